@@ -4,6 +4,8 @@
 # However, the user can provide a different list of repositories by passing the absolute file path as the first argument
 # to the script.
 # A second argument can be passed to the script to specify whether to resolve dependencies or not (default is false).
+# A third argument can be passed to the script to specify the number of test classes processed concurrently within each
+# project (default is 1).
 # The script operates in 4 steps, iteratively:
 #   1. The script reads the current line of the CSV file and split it into repo_id and repo_name fields
 #      (the repo_url is generated from the repo_name)
@@ -24,6 +26,7 @@ export PATH="$MAVEN_BIN:$PATH"
 
 GITHUB_REPOS_LIST_FILE=${1:-$GITHUB_REPOS_LIST_FILE}
 resolve_deps=${2:-"false"}
+workers=${3:-1}
 
 if [ ! -e "${DATASET_JAR}" ]; then
   cd "${DATASET_DIR}"
@@ -91,7 +94,7 @@ while IFS=, read -r repo_id repo_name; do
         classpath="${LIB_DIR}/java8:${LIB_DIR}/java11:${LIB_DIR}/java17"
         # Generate Oracle dataset
         sdk use java "$JAVA21"
-        java -jar "${DATASET_JAR}" "${repo_id}" "${GITHUB_REPOS_DIR}/${repo_name}" "${OUTPUT_MINER_DIR}/${repo_name}.json" "${OUTPUT_DIR}" "${DATASET_DIR}" "${SRC_RESOURCES_DIR}/oracles-dataset_config.json"
+        java -jar "${DATASET_JAR}" "${repo_id}" "${GITHUB_REPOS_DIR}/${repo_name}" "${OUTPUT_MINER_DIR}/${repo_name}.json" "${OUTPUT_DIR}" "${DATASET_DIR}" "${SRC_RESOURCES_DIR}/oracles-dataset_config.json" --workers "${workers}"
       fi
     else
       echo "Unprocessed project"
@@ -0,0 +1,155 @@
+package star.llms.prompts.dataset;
+
+import com.github.javaparser.resolution.TypeSolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.records.OraclesDatasetOptions;
+import star.llms.prompts.dataset.preprocessing.OraclesDataset;
+import star.llms.prompts.dataset.utils.javaParser.JavaParserUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the oracles datasets of multiple repositories within the same JVM. The repositories are listed in a batch
+ * file, and scheduled over a pool of threads (one repository for each thread at a time). The type solver of the JDK
+ * libraries is loaded only once and shared by the generations of all the repositories, and so is the pool of workers
+ * processing the test classes: the number of worker threads is bounded by the {@code --workers} option, regardless of
+ * the number of repositories processed concurrently (while the ceiling of the cache of the compilation units applies
+ * to each repository). The failure of the generation of a repository does not affect the generations of the other
+ * ones.
+ * <p>
+ * The batch file is a csv file, where each row is in the format {@code project-identifier,repo-root-path,repo-track-path}.
+ */
+public class BatchMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMain.class);
+
+    public static void main(String[] args) {
+        // Process arguments
+        Path batchFilePath = Path.of(args[0]);
+        Path outputPath = Path.of(args[1]);
+        String classpath = Main.initializeJavaClassPath(Path.of(args[2]));
+        Path configPath = Path.of(args[3]);
+        // Process optional arguments (the ones not specific to the batch are the options of each generation)
+        int parallelProjects = 1;
+        List<String> generationArgs = new ArrayList<>();
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].equals("--parallel-projects") && i + 1 < args.length) {
+                parallelProjects = Integer.parseInt(args[++i]);
+            } else {
+                generationArgs.add(args[i]);
+            }
+        }
+        if (parallelProjects < 1) {
+            throw new IllegalArgumentException("The number of parallel projects must be greater than 0. Found: " + parallelProjects);
+        }
+        OraclesDatasetOptions options = Main.parseOptions(generationArgs.toArray(new String[0]), 0);
+        List<BatchProject> projects = readBatchFile(batchFilePath);
+        logger.info("Projects to process: {}", projects.size());
+        // Load the libraries of the classpath (JDK libraries) once, for all the projects
+        TypeSolver sharedTypeSolver = JavaParserUtils.createClasspathTypeSolver(classpath);
+        // Define the pool of workers processing the test classes of all the projects (no pool for a sequential
+        // execution). The workers are daemon threads, so that a failure does not prevent the JVM from terminating
+        ExecutorService workersExecutor = options.workers() > 1 ? Executors.newFixedThreadPool(options.workers(), runnable -> {
+            Thread worker = new Thread(runnable);
+            worker.setDaemon(true);
+            return worker;
+        }) : null;
+        // Schedule the generation of each project over the pool of threads
+        ExecutorService executor = Executors.newFixedThreadPool(parallelProjects);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (BatchProject project : projects) {
+            results.add(executor.submit(() -> generate(project, configPath, outputPath, sharedTypeSolver, workersExecutor, options)));
+        }
+        List<String> failedProjects = new ArrayList<>();
+        for (int i = 0; i < projects.size(); i++) {
+            try {
+                if (!results.get(i).get()) {
+                    failedProjects.add(projects.get(i).projectIdentifier());
+                }
+            } catch (ExecutionException e) {
+                logger.error("Error when generating the oracles dataset of project {}", projects.get(i).projectIdentifier(), e.getCause());
+                failedProjects.add(projects.get(i).projectIdentifier());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                if (workersExecutor != null) {
+                    workersExecutor.shutdownNow();
+                }
+                throw new IllegalStateException("Interrupted while waiting for the generation of the projects.", e);
+            }
+        }
+        executor.shutdown();
+        if (workersExecutor != null) {
+            workersExecutor.shutdown();
+        }
+        logger.info("Projects processed: {}", projects.size() - failedProjects.size());
+        logger.info("Projects failed: {} {}", failedProjects.size(), failedProjects);
+    }
+
+    /**
+     * Generate the oracles dataset of a project of the batch, isolating its failures from the other projects.
+     *
+     * @param project the project of the batch
+     * @param configPath the path to the configuration file
+     * @param outputPath the path to the output directory
+     * @param sharedTypeSolver the type solver of the libraries shared by all the projects
+     * @param workersExecutor the pool of workers shared by all the projects (null for a sequential execution)
+     * @param options the execution options of the generation
+     * @return true if the generation completed, false otherwise
+     */
+    private static boolean generate(BatchProject project, Path configPath, Path outputPath, TypeSolver sharedTypeSolver, ExecutorService workersExecutor, OraclesDatasetOptions options) {
+        logger.info("Processing project: {}", project.projectIdentifier());
+        try {
+            OraclesDataset.generate(project.repoRootPath(), project.repoTrackPath(), configPath, outputPath, project.projectIdentifier(), "", sharedTypeSolver, workersExecutor, options);
+            return true;
+        } catch (Exception | Error e) {
+            logger.error("Error when generating the oracles dataset of project {}", project.projectIdentifier(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Read the projects listed in a batch file (a csv file, where each row is in the format
+     * {@code project-identifier,repo-root-path,repo-track-path}). Empty rows are ignored.
+     *
+     * @param batchFilePath the path to the batch file
+     * @return the list of projects of the batch
+     * @throws Error if an error occurs while reading the file, or a row is malformed
+     */
+    private static List<BatchProject> readBatchFile(Path batchFilePath) {
+        List<BatchProject> projects = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(batchFilePath)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    throw new Error("Malformed row in batch file " + batchFilePath + ": " + line);
+                }
+                projects.add(new BatchProject(fields[0].trim(), Path.of(fields[1].trim()), Path.of(fields[2].trim())));
+            }
+        } catch (IOException e) {
+            throw new Error("Error when reading file " + batchFilePath, e);
+        }
+        return projects;
+    }
+
+    /**
+     * A project of the batch.
+     *
+     * @param projectIdentifier the identifier of the project
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrackPath the path to the repository track file
+     */
+    private record BatchProject(String projectIdentifier, Path repoRootPath, Path repoTrackPath) {}
+}
@@ -2,7 +2,9 @@ package star.llms.prompts.dataset;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import star.llms.prompts.dataset.data.enums.NamingConvention;
+import star.llms.prompts.dataset.data.records.OraclesDatasetOptions;
 import star.llms.prompts.dataset.preprocessing.OraclesDataset;
+import star.llms.prompts.dataset.utils.javaParser.CompilationUnitCache;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -19,15 +21,53 @@ public class Main {
         Path outputPath = Path.of(args[3]);
         String classpath = initializeJavaClassPath(Path.of(args[4]));
         Path configPath = Path.of(args[5]);
+        // Process optional arguments
+        OraclesDatasetOptions options = parseOptions(args, 6);
         // Project identifier
         try {
-            OraclesDataset.generate(repoRootPath, repoTrackPath, configPath, outputPath, projectIdentifier, classpath);
+            OraclesDataset.generate(repoRootPath, repoTrackPath, configPath, outputPath, projectIdentifier, classpath, options);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private static String initializeJavaClassPath(Path basePath) {
+    /**
+     * Parse the optional arguments of the generation, starting from the given index.
+     *
+     * @param args the arguments of the program
+     * @param start the index of the first optional argument
+     * @return the execution options of the generation
+     * @throws IllegalArgumentException if an argument is not recognized
+     */
+    static OraclesDatasetOptions parseOptions(String[] args, int start) {
+        int workers = 1;
+        boolean inMemoryPipeline = false;
+        boolean writeIntermediateFiles = false;
+        boolean resume = true;
+        boolean incremental = false;
+        int compilationUnitCacheMb = CompilationUnitCache.DEFAULT_MAX_MEMORY_MB;
+        for (int i = start; i < args.length; i++) {
+            if (args[i].equals("--workers") && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--in-memory")) {
+                inMemoryPipeline = true;
+            } else if (args[i].equals("--write-intermediate-files")) {
+                writeIntermediateFiles = true;
+            } else if (args[i].equals("--no-resume")) {
+                resume = false;
+            } else if (args[i].equals("--incremental")) {
+                incremental = true;
+            } else if (args[i].equals("--cu-cache-mb") && i + 1 < args.length) {
+                compilationUnitCacheMb = Integer.parseInt(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unrecognized argument: " + args[i]);
+            }
+        }
+        // The intermediate files are always written when the test classes are processed step by step
+        return new OraclesDatasetOptions(workers, inMemoryPipeline, writeIntermediateFiles || !inMemoryPipeline, resume, incremental, compilationUnitCacheMb);
+    }
+
+    static String initializeJavaClassPath(Path basePath) {
         String classpath = "";
         ObjectMapper objectMapper = new ObjectMapper();
         try {
@@ -0,0 +1,32 @@
+package star.llms.prompts.dataset.data.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum FocalClassMatchingType {
+    /* Match the test class with the source class with the same path (ignoring the case), replacing `/src/test/` with
+       `/src/main/` and removing `test` from the name of the test class. */
+    PERFECT("perfect"),
+    /* Match the test class as in the perfect strategy, but with a source class in any module of the repository (only the
+       path after the last `/src/main/` is compared). */
+    ANY_MODULE("any-module");
+
+    private final String type;
+
+    FocalClassMatchingType(String type) {
+        this.type = type;
+    }
+
+    @JsonValue
+    public String getType() { return type; }
+
+    @JsonCreator
+    public static FocalClassMatchingType fromValue(String value) {
+        for (FocalClassMatchingType type : FocalClassMatchingType.values()) {
+            if (type.getType().equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
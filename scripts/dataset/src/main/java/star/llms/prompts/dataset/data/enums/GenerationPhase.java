@@ -0,0 +1,20 @@
+package star.llms.prompts.dataset.data.enums;
+
+/**
+ * The phases of the generation of the oracles dataset, applied in order to each test class of a repository.
+ */
+public enum GenerationPhase {
+    NORMALIZE("normalize"),
+    SPLIT("split"),
+    PROCESS("process");
+
+    private final String phaseName;
+
+    GenerationPhase(String phaseName) {
+        this.phaseName = phaseName;
+    }
+
+    public String getPhaseName() {
+        return phaseName;
+    }
+}
@@ -0,0 +1,31 @@
+package star.llms.prompts.dataset.data.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum OutputFormatType {
+    /* Each chunk file is a JSON array of oracles datapoints of test classes. */
+    JSON("json"),
+    /* Each chunk file is a sequence of independently decompressible gzip blocks of JSON lines (one line for each test
+       class). */
+    JSONL_GZIP("jsonl-gzip");
+
+    private final String type;
+
+    OutputFormatType(String type) {
+        this.type = type;
+    }
+
+    @JsonValue
+    public String getType() { return type; }
+
+    @JsonCreator
+    public static OutputFormatType fromValue(String value) {
+        for (OutputFormatType type : OutputFormatType.values()) {
+            if (type.getType().equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
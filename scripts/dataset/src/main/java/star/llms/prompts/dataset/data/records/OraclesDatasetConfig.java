@@ -30,5 +30,31 @@ public record OraclesDatasetConfig(
         /* Boolean flag for the integration of the statements after the last assertion */
         @JsonProperty("keep-statements-after-last-assertion") boolean keepStatementsAfterLastAssertion,
         /* Policy to assert that the number of split test cases is equal to the number of assertions found in the original test case */
-        @JsonProperty("num-assertions-match") NumAssertionsMatchStrategyType numAssertionsMatchStrategy
-) {}
+        @JsonProperty("num-assertions-match") NumAssertionsMatchStrategyType numAssertionsMatchStrategy,
+        /* The format of the chunk files of the oracles datapoints: json or jsonl-gzip. Can be null (json) */
+        @JsonProperty("output-format") OutputFormatType outputFormat,
+        /* Boolean flag for the deduplication of the methods and constructors repeated within a chunk file of the oracles datapoints */
+        @JsonProperty("deduplicate-records") boolean deduplicateRecords,
+        /* The strategy to match the test classes with the focal classes: perfect or any-module. Can be null (perfect) */
+        @JsonProperty("focal-class-matching") FocalClassMatchingType focalClassMatching
+) {
+
+    /**
+     * Get the format of the chunk files of the oracles datapoints, defaulting to JSON if not specified.
+     *
+     * @return the format of the chunk files
+     */
+    public OutputFormatType outputFormatOrDefault() {
+        return outputFormat == null ? OutputFormatType.JSON : outputFormat;
+    }
+
+    /**
+     * Get the strategy to match the test classes with the focal classes, defaulting to the perfect matching if not
+     * specified.
+     *
+     * @return the strategy to match the test classes with the focal classes
+     */
+    public FocalClassMatchingType focalClassMatchingOrDefault() {
+        return focalClassMatching == null ? FocalClassMatchingType.PERFECT : focalClassMatching;
+    }
+}
@@ -0,0 +1,39 @@
+package star.llms.prompts.dataset.data.records;
+
+import star.llms.prompts.dataset.utils.javaParser.CompilationUnitCache;
+
+/**
+ * The record class collects the execution options of the generation of the oracles dataset of a repository. Differently
+ * from {@link OraclesDatasetConfig}, the options do not affect the content of the dataset, but only how it is generated.
+ */
+public record OraclesDatasetOptions(
+        /* The number of test classes processed concurrently (1 to process them sequentially). */
+        int workers,
+        /* Boolean flag to carry each test class in memory through all the steps (normalize, split, process), without
+           writing and re-parsing the intermediate test classes. */
+        boolean inMemoryPipeline,
+        /* Boolean flag to write the intermediate (normalized and split) test classes when the in-memory pipeline is
+           enabled. The intermediate test classes are always written otherwise, since each step reads them from disk. */
+        boolean writeIntermediateFiles,
+        /* Boolean flag to resume an interrupted generation, skipping the test classes already completed according to
+           the journal of the generation. */
+        boolean resume,
+        /* Boolean flag to process only the test classes whose dependencies changed since the previous generation,
+           merging their oracles datapoints with the ones of the unchanged test classes. */
+        boolean incremental,
+        /* The ceiling of the memory retained by the caches of the compilation units parsed read-only (like the ones of
+           the classes extended or implemented by the focal classes) and by the symbol solver, in megabytes. */
+        int compilationUnitCacheMb
+) {
+
+    /**
+     * Get the default execution options: sequential execution, processing the test classes step by step, resuming an
+     * interrupted generation (if any), processing all the test classes (no incremental generation), and caching the
+     * compilation units up to the default memory ceiling.
+     *
+     * @return the default execution options
+     */
+    public static OraclesDatasetOptions defaultOptions() {
+        return new OraclesDatasetOptions(1, false, true, true, false, CompilationUnitCache.DEFAULT_MAX_MEMORY_MB);
+    }
+}
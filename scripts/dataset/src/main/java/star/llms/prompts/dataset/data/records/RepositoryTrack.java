@@ -21,6 +21,8 @@ import java.util.List;
  * @param until   The end date of the tracking period (ISO 8601 format).
  * @param commits A map of commit identifiers to lists of commit details. The key represents the name of the files
  *                tracked, and the value is a list containing the details of the commits where the file was added or modified.
+ *                It is null if the repository track is read without commits (see
+ *                {@link star.llms.prompts.dataset.preprocessing.utils.RepositoryTrackReader}).
  * @param track   A map of test cases added or modified in the repository, during the tracking period. The key represents
  *                the name of the files tracked, and the value is a list containing the details of the test cases added
  *                or modified in the file, during the tracking period.
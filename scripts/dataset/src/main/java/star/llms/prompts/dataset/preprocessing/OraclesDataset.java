@@ -1,26 +1,50 @@
 package star.llms.prompts.dataset.preprocessing;
 
-import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
 import org.javatuples.Pair;
+import org.javatuples.Triplet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.GenerationPhase;
 import star.llms.prompts.dataset.data.enums.NamingConvention;
 import star.llms.prompts.dataset.data.records.OraclesDatasetConfig;
+import star.llms.prompts.dataset.data.records.OraclesDatasetOptions;
 import star.llms.prompts.dataset.data.records.RepositoryTrack;
 import star.llms.prompts.dataset.preprocessing.components.TestClazzOracleDatapoints;
 import star.llms.prompts.dataset.preprocessing.components.TestStats;
+import star.llms.prompts.dataset.preprocessing.utils.FocalClassIndex;
+import star.llms.prompts.dataset.preprocessing.utils.GenerationJournal;
+import star.llms.prompts.dataset.preprocessing.utils.IncrementalManifest;
 import star.llms.prompts.dataset.preprocessing.utils.JavaFileCollector;
+import star.llms.prompts.dataset.preprocessing.utils.OraclesDatapointsReader;
+import star.llms.prompts.dataset.preprocessing.utils.OraclesDatapointsWriter;
+import star.llms.prompts.dataset.preprocessing.utils.RepositoryTrackIndex;
+import star.llms.prompts.dataset.preprocessing.utils.RepositoryTrackReader;
 import star.llms.prompts.dataset.preprocessing.utils.TestUtils;
 import star.llms.prompts.dataset.utils.FilesUtils;
+import star.llms.prompts.dataset.utils.RepositoryIndex;
 import star.llms.prompts.dataset.utils.javaParser.JavaParserUtils;
+import star.llms.prompts.dataset.utils.javaParser.TestProcessingContext;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -30,291 +54,870 @@ import java.util.stream.Collectors;
 public class OraclesDataset {
 
     private static final Logger logger = LoggerFactory.getLogger(OraclesDataset.class);
+    /* The maximum size of a chunk file of the oracles datapoints (50 MB). */
+    private static final long MAX_CHUNK_SIZE_BYTES = 50 * 1024 * 1024;
 
     public static void generate(Path repoRootPath, Path repoTrackPath, Path configPath, Path outputPath, String projectIdentifier, String classpath) throws IOException {
+        generate(repoRootPath, repoTrackPath, configPath, outputPath, projectIdentifier, classpath, OraclesDatasetOptions.defaultOptions());
+    }
+
+    /**
+     * Generates the oracles dataset of a repository, according to the given execution options. The test classes of each
+     * phase (normalization, split, and datapoints extraction) are processed concurrently, over a pool of workers
+     * threads. The results are merged following the order of the test classes, so that the output is the same of the
+     * sequential execution (the placeholder variables of the generated assertions are numbered within each test class,
+     * see {@link TestProcessingContext#resetVariableID()}). If the in-memory pipeline is enabled, each test class is
+     * carried through all the phases as a single compilation unit, without writing and re-parsing the intermediate test
+     * classes.
+     * <p>
+     * The test classes completed in each phase are recorded in a {@link GenerationJournal}. If resume is enabled and a
+     * previous execution on the same inputs has been interrupted, the test classes already completed are skipped, and
+     * their outputs are restored from the journal. The journal is deleted once the generation is completed.
+     * <p>
+     * If the incremental generation is enabled, only the test classes whose dependencies or tracked test cases changed
+     * since the previous generation (according to the {@link IncrementalManifest}) are processed, and their oracles
+     * datapoints are merged with the ones of the unchanged test classes, read from the existing chunk files.
+     * <p>
+     * The oracles datapoints are streamed to the chunk files as soon as each test class is processed, so that only the
+     * oracles datapoints of the test classes in progress are held in memory. The journal does not retain them either:
+     * it only indexes the position of each recorded fragment, reading it back from the journal file when a test class
+     * completed by an interrupted execution is restored.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrackPath the path to the repository track file
+     * @param configPath the path to the configuration file
+     * @param outputPath the path to the output directory
+     * @param projectIdentifier the identifier of the project
+     * @param classpath the classpath of the project (each element is separated by a ":")
+     * @param options the execution options of the generation
+     * @throws IOException if an error occurs while writing the output files
+     */
+    public static void generate(Path repoRootPath, Path repoTrackPath, Path configPath, Path outputPath, String projectIdentifier, String classpath, OraclesDatasetOptions options) throws IOException {
+        generate(repoRootPath, repoTrackPath, configPath, outputPath, projectIdentifier, classpath, null, options);
+    }
+
+    /**
+     * Generates the oracles dataset of a repository, according to the given execution options (see
+     * {@link #generate(Path, Path, Path, Path, String, String, OraclesDatasetOptions)}), resolving the symbols of the
+     * libraries also through a type solver shared with the generations of other repositories (like the one of the JDK
+     * libraries, see {@link JavaParserUtils#createClasspathTypeSolver(String)}).
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrackPath the path to the repository track file
+     * @param configPath the path to the configuration file
+     * @param outputPath the path to the output directory
+     * @param projectIdentifier the identifier of the project
+     * @param classpath the classpath of the project, not covered by the shared type solver (each element is separated
+     *                  by a ":"). Can be empty.
+     * @param sharedTypeSolver the type solver shared with the generations of other repositories. Can be null.
+     * @param options the execution options of the generation
+     * @throws IOException if an error occurs while writing the output files
+     */
+    public static void generate(Path repoRootPath, Path repoTrackPath, Path configPath, Path outputPath, String projectIdentifier, String classpath, TypeSolver sharedTypeSolver, OraclesDatasetOptions options) throws IOException {
+        generate(repoRootPath, repoTrackPath, configPath, outputPath, projectIdentifier, classpath, sharedTypeSolver, null, options);
+    }
+
+    /**
+     * Generates the oracles dataset of a repository, according to the given execution options (see
+     * {@link #generate(Path, Path, Path, Path, String, String, TypeSolver, OraclesDatasetOptions)}), processing the test
+     * classes over a pool of workers shared with the generations of other repositories. In this way, the number of
+     * worker threads is bounded by the size of the shared pool, regardless of the number of repositories processed
+     * concurrently. The shared pool is not shut down by the generation.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrackPath the path to the repository track file
+     * @param configPath the path to the configuration file
+     * @param outputPath the path to the output directory
+     * @param projectIdentifier the identifier of the project
+     * @param classpath the classpath of the project, not covered by the shared type solver (each element is separated
+     *                  by a ":"). Can be empty.
+     * @param sharedTypeSolver the type solver shared with the generations of other repositories. Can be null.
+     * @param sharedExecutor the pool of workers shared with the generations of other repositories, made of
+     *                       {@link OraclesDatasetOptions#workers()} threads. Can be null, in which case the generation
+     *                       uses a pool of its own (or no pool at all, for a sequential execution).
+     * @param options the execution options of the generation
+     * @throws IOException if an error occurs while writing the output files
+     */
+    public static void generate(Path repoRootPath, Path repoTrackPath, Path configPath, Path outputPath, String projectIdentifier, String classpath, TypeSolver sharedTypeSolver, ExecutorService sharedExecutor, OraclesDatasetOptions options) throws IOException {
+        int workers = options.workers();
+        if (workers < 1) {
+            throw new IllegalArgumentException("The number of workers must be greater than 0. Found: " + workers);
+        }
+        // Walk the repository once, indexing the files needed by the following steps
+        RepositoryIndex repositoryIndex = RepositoryIndex.scan(repoRootPath);
         // Update classpath with the libraries paths
-        List<Path> librariesPaths = findLibrariesPaths(repoRootPath);
+        List<Path> librariesPaths = repositoryIndex.getDecompiledLibrariesPaths();
         for (Path libraryPath : librariesPaths) {
-            classpath += ":" + libraryPath.toString();
+            classpath += classpath.isEmpty() ? libraryPath.toString() : ":" + libraryPath;
         }
         // Load configuration file
         OraclesDatasetConfig oraclesDatasetConfig = FilesUtils.readJSON(configPath, OraclesDatasetConfig.class);
 
-        RepositoryTrack repoTrack = FilesUtils.readJSON(repoTrackPath, RepositoryTrack.class);
+        // Load the repository track, skipping the commits (not needed to generate the dataset)
+        long repoTrackLoadStart = System.nanoTime();
+        RepositoryTrack repoTrack = RepositoryTrackReader.readWithoutCommits(repoTrackPath);
+        logger.info("Repository track loaded in {} ms", (System.nanoTime() - repoTrackLoadStart) / 1_000_000);
+        // Index the test cases tracked in the repository track, by test class
+        RepositoryTrackIndex repoTrackIndex = new RepositoryTrackIndex(repoRootPath, repoTrack);
         // Define test mapping hash map
         HashMap<Path, Path> mappedTests = new HashMap<>();
         // Define statistics hash map
         HashMap<String, Integer> statistics = new HashMap<>();
-        // Define list of oracles datapoints
-        List<TestClazzOracleDatapoints> testClassesOracleDatapoints = new ArrayList<>();
         // Generate directories to output path if they do not exist
         Path outputDatasetPath = outputPath.resolve("raw-oracles-dataset");
         Path outputStatisticsPath = outputPath.resolve("statistics");
         FilesUtils.createDirectories(outputDatasetPath);
         FilesUtils.createDirectories(outputStatisticsPath);
+        // Define the pool of workers processing the test classes, unless a shared pool is provided (no pool for a
+        // sequential execution). The workers are daemon threads, so that an unexpected failure of the generation does
+        // not prevent the JVM from terminating
+        ExecutorService executor = sharedExecutor != null ? sharedExecutor : workers > 1 ? Executors.newFixedThreadPool(workers, runnable -> {
+            Thread worker = new Thread(runnable);
+            worker.setDaemon(true);
+            return worker;
+        }) : null;
+        // Define the object mapper converting the oracles datapoints and the statistics to JSON
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Open the journal of the test classes completed in each phase (restoring the one of an interrupted execution),
+        // and the writer streaming the oracles datapoints to the chunk files, as soon as each test class is processed
+        Path journalPath = outputPath.resolve("checkpoints").resolve(projectIdentifier).resolve(String.format("journal-%s.jsonl", projectIdentifier));
         // Log step 1
         logger.info("1. Repository classes analysis...");
-        // Setup the repository root path for JavaParser
-        JavaParserUtils.setRepoJavaParser(repoRootPath, classpath);
-        // Clean repository from previous execution of the current program
-        JavaFileCollector.cleanRepository(repoRootPath, outputPath);
-        // Collect java files within the repository
-        List<Path> javaFilePaths = JavaFileCollector.collectAllJavaFilePaths(repoRootPath);
-        // Collect java test files within the repository
-        List<Path> testFilePaths = repoTrack.track().keySet().stream().map(testClassPath -> Paths.get(repoRootPath.toString(), testClassPath)).collect(Collectors.toList());
-        // Collect java source files within the repository
-        List<Path> sourceFilePaths = JavaFileCollector.collectSourceFilePaths(repoRootPath, testFilePaths);
-        // Collect the java classes excluded from the test and source files
-        List<Path> excludedClasses = excludedClasses(javaFilePaths, testFilePaths, sourceFilePaths);
-        // Store statistics
-        statistics.put("javaFilePaths", javaFilePaths.size());
-        statistics.put("testFilePaths", testFilePaths.size());
-        statistics.put("sourceFilePaths", sourceFilePaths.size());
-        statistics.put("excludedClasses", excludedClasses.size());
-        // Log info data
-        logger.info("Java Files: {}", javaFilePaths.size());
-        logger.info("Test Classes: {}", testFilePaths.size());
-        logger.info("Source Classes: {}", sourceFilePaths.size());
-        logger.info("Excluded Classes: {}", excludedClasses.size());
-        // Log step 2
-        logger.info("2. Perfect name matching analysis (Test Class <--> Source Class)");
-        List<Path> perfectMatchNotFounds = new ArrayList<>();
-        for (Path testClassPath : testFilePaths) {
-            Path expectedSourceClassNormPath = testClassPathToSourceClassNormPath(testClassPath);
-            for(Path sourceFilePath : sourceFilePaths) {
-                if (sourceFilePath.toString().toLowerCase().equals(expectedSourceClassNormPath.toString().toLowerCase())) {
-                    mappedTests.put(testClassPath, sourceFilePath);
-                    break;
-                }
+        // Setup the test processing context (JavaParser, symbol solver, and caches) of the repository, released once
+        // the generation is over (the workers outlive the generation when the pool is shared)
+        try (GenerationJournal journal = new GenerationJournal(journalPath, generationFingerprint(configPath, repoTrackPath, repositoryIndex, classpath, options), options.resume());
+             OraclesDatapointsWriter datapointsWriter = new OraclesDatapointsWriter(outputDatasetPath.resolve(projectIdentifier), projectIdentifier, objectMapper, oraclesDatasetConfig.outputFormatOrDefault(), MAX_CHUNK_SIZE_BYTES, oraclesDatasetConfig.deduplicateRecords());
+             TestProcessingContext context = new TestProcessingContext(repositoryIndex, classpath, sharedTypeSolver, options.compilationUnitCacheMb(), workers)) {
+            // Clean repository from previous execution of the current program, unless the execution is resumed (the files
+            // generated by the interrupted execution are still referenced by the journal)
+            if (journal.isEmpty()) {
+                JavaFileCollector.cleanRepository(repositoryIndex, outputPath);
             }
-            if (!mappedTests.containsKey(testClassPath)) {
-                perfectMatchNotFounds.add(testClassPath);
+            // Collect java files within the repository
+            Set<Path> javaFilePaths = JavaFileCollector.collectAllJavaFilePaths(repositoryIndex);
+            // Collect java test files within the repository
+            List<Path> testFilePaths = repoTrack.track().keySet().stream().map(testClassPath -> Paths.get(repoRootPath.toString(), testClassPath)).collect(Collectors.toList());
+            // Collect java source files within the repository
+            Set<Path> sourceFilePaths = JavaFileCollector.collectSourceFilePaths(repositoryIndex, testFilePaths);
+            // Collect the java classes excluded from the test and source files
+            List<Path> excludedClasses = excludedClasses(javaFilePaths, testFilePaths, sourceFilePaths);
+            // Store statistics
+            statistics.put("javaFilePaths", javaFilePaths.size());
+            statistics.put("testFilePaths", testFilePaths.size());
+            statistics.put("sourceFilePaths", sourceFilePaths.size());
+            statistics.put("excludedClasses", excludedClasses.size());
+            // Log info data
+            logger.info("Java Files: {}", javaFilePaths.size());
+            logger.info("Test Classes: {}", testFilePaths.size());
+            logger.info("Source Classes: {}", sourceFilePaths.size());
+            logger.info("Excluded Classes: {}", excludedClasses.size());
+            // Log step 2
+            logger.info("2. Perfect name matching analysis (Test Class <--> Source Class)");
+            Set<Path> perfectMatchNotFounds = new LinkedHashSet<>();
+            // Index the source classes once, to match each test class with a single lookup
+            FocalClassIndex focalClassIndex = new FocalClassIndex(sourceFilePaths, oraclesDatasetConfig.focalClassMatchingOrDefault());
+            for (Path testClassPath : testFilePaths) {
+                Optional<Path> sourceFilePath = focalClassIndex.findFocalClass(testClassPath);
+                if (sourceFilePath.isPresent()) {
+                    mappedTests.put(testClassPath, sourceFilePath.get());
+                } else {
+                    perfectMatchNotFounds.add(testClassPath);
+                }
             }
-        }
-        // Log info data
-        logger.info("Perfect matches found: {}", mappedTests.size());
-        logger.info("Perfect matches not found: {}", perfectMatchNotFounds.size());
-        // Store statistics
-        statistics.put("perfectMatches", mappedTests.size());
-        statistics.put("perfectMatchesNotFound", perfectMatchNotFounds.size());
-        List<Pair<Path,Path>> normalizedTestFilePaths = new ArrayList<>();
-        List<TestStats> testStatsList = new ArrayList<>();
-        // Remove the test classes that are not perfect matches
-        testFilePaths.removeAll(perfectMatchNotFounds);
-        // Iterate over the original test class files and normalize them
-        for (Path testClassPath : testFilePaths) {
-            // if (testClassPath.toString().contains("PaymentClientTest")) {
-            try {
-                logger.info("Normalizing test class: {}", testClassPath.toString().replace(repoRootPath.toString(), ""));
-                List<RepositoryTrack.TestCase> testCaseFilterList = new ArrayList<>();
-                for (Map.Entry<String, List<RepositoryTrack.TestCase>> testClassRepoTrack: repoTrack.track().entrySet()) {
-                    if (testClassPath.toString().contains(testClassRepoTrack.getKey())) {
-                        testCaseFilterList = testClassRepoTrack.getValue();
-                        break;
+            // Log info data
+            logger.info("Perfect matches found: {}", mappedTests.size());
+            logger.info("Perfect matches not found: {}", perfectMatchNotFounds.size());
+            // Store statistics
+            statistics.put("perfectMatches", mappedTests.size());
+            statistics.put("perfectMatchesNotFound", perfectMatchNotFounds.size());
+            List<Pair<Path,Path>> normalizedTestFilePaths = new ArrayList<>();
+            List<TestStats> testStatsList = new ArrayList<>();
+            // Remove the test classes that are not perfect matches
+            testFilePaths.removeAll(perfectMatchNotFounds);
+            // Collect the test classes unchanged since the previous generation (if incremental), and process only the others
+            List<Path> matchedTestFilePaths = new ArrayList<>(testFilePaths);
+            Set<String> upToDateTestClasses = new HashSet<>();
+            IncrementalManifest manifest = null;
+            if (options.incremental()) {
+                Path manifestPath = outputPath.resolve("manifests").resolve(projectIdentifier).resolve(String.format("manifest-%s.json", projectIdentifier));
+                manifest = new IncrementalManifest(manifestPath, repoRootPath, manifestFingerprint(configPath, repoTrack));
+                // Digest the test cases tracked for each test class
+                Map<String, String> trackDigests = new HashMap<>();
+                for (Map.Entry<String, List<RepositoryTrack.TestCase>> trackedTestClass : repoTrack.track().entrySet()) {
+                    String testClass = Paths.get(repoRootPath.toString(), trackedTestClass.getKey()).toString().replace(repoRootPath.toString(), "");
+                    trackDigests.put(testClass, trackedTestCasesDigest(objectMapper, trackedTestClass.getValue()));
+                }
+                for (Path testClassPath : matchedTestFilePaths) {
+                    String testClass = testClassPath.toString().replace(repoRootPath.toString(), "");
+                    if (manifest.isUpToDate(testClass, trackDigests.get(testClass))) {
+                        upToDateTestClasses.add(testClass);
                     }
                 }
-                Pair<Path,List<TestStats>> normalizedTestClassresult = TestUtils.normalizeTest(
-                        oraclesDatasetConfig,
-                        repoRootPath,
-                        testClassPath,
-                        Paths.get(outputPath.toString(), "test-normalize", projectIdentifier),
-                        testCaseFilterList
-                );
-                Path normalizedTestClassPath = normalizedTestClassresult.getValue0();
-                testStatsList.addAll(normalizedTestClassresult.getValue1());
-                // Store the normalized test class path and the original test class path
-                normalizedTestFilePaths.add(new Pair<>(normalizedTestClassPath, testClassPath));
-            } catch (Exception e) {
-                logger.error(e.getMessage());
+                testFilePaths.removeIf(testClassPath -> upToDateTestClasses.contains(testClassPath.toString().replace(repoRootPath.toString(), "")));
+                logger.info("Test classes up-to-date: {}", upToDateTestClasses.size());
+                logger.info("Test classes to process: {}", testFilePaths.size());
+                // Record the dependencies of the test classes to process before processing them (so that the content
+                // hashes are the ones of the files read by the processing), and keep the ones of the up-to-date test classes
+                IncrementalManifest incrementalManifest = manifest;
+                upToDateTestClasses.forEach(incrementalManifest::retain);
+                processTestClasses(executor, workers, testFilePaths, testClassPath -> {
+                    String testClass = testClassPath.toString().replace(repoRootPath.toString(), "");
+                    try {
+                        incrementalManifest.record(testClass, trackDigests.get(testClass), TestUtils.collectTestClassDependencies(context, testClassPath, Optional.ofNullable(mappedTests.get(testClassPath)), repoRootPath));
+                    } catch (Exception e) {
+                        logger.error("Error while collecting the dependencies of test class: {}", testClass);
+                    }
+                    return Optional.empty();
+                });
             }
-            //}
-        }
-        // Update java parser considering the new split files generated within the repository
-        JavaParserUtils.setRepoJavaParser(repoRootPath, classpath);
-        // Define the list to store the test pair of split test cases (generated from the original test cases) and the
-        // corresponding source class (if available)
-        List<Pair<Path, Optional<Path>>> splittedTestFilePaths = new ArrayList<>();
-        // Iterate over the original test class files and split the test cases at any occurrence of an assertion
-        for (Pair<Path,Path> normalizedTestClassPair : normalizedTestFilePaths) {
-            Path normalizedTestClassPath = normalizedTestClassPair.getValue0();
-            Path originalTestClassPath = normalizedTestClassPair.getValue1();
-            //if (normalizedTestClassPath.toString().contains("PaymentClientTest")) {
-            try {
-                logger.info("Splitting test class: {}", normalizedTestClassPath.toString().replace(repoRootPath.toString(), ""));
-                List<RepositoryTrack.TestCase> testCaseFilterList = new ArrayList<>();
-                for (Map.Entry<String, List<RepositoryTrack.TestCase>> testClassRepoTrack: repoTrack.track().entrySet()) {
-                    if (originalTestClassPath.toString().contains(testClassRepoTrack.getKey())) {
-                        testCaseFilterList = testClassRepoTrack.getValue();
-                        break;
+            // Define the converters between the results of each phase and the output fragments recorded in the journal
+            Function<Pair<Path, List<TestStats>>, JsonNode> normalizeToFragment = result -> {
+                ObjectNode fragment = objectMapper.createObjectNode();
+                fragment.put("normalized-test-class", result.getValue0().toString());
+                fragment.set("test-stats", objectMapper.valueToTree(result.getValue1()));
+                return fragment;
+            };
+            Function<JsonNode, Optional<Pair<Path, List<TestStats>>>> normalizeFromFragment = fragment -> {
+                Path normalizedTestClassPath = Path.of(fragment.get("normalized-test-class").asText());
+                // The normalized test class must be generated again if it has been removed in the meantime
+                if (!Files.exists(normalizedTestClassPath)) {
+                    return Optional.empty();
+                }
+                return Optional.of(new Pair<>(normalizedTestClassPath, objectMapper.convertValue(fragment.get("test-stats"), new TypeReference<List<TestStats>>() {})));
+            };
+            Function<Path, JsonNode> splitToFragment = splitTestClassPath -> objectMapper.createObjectNode().put("split-test-class", splitTestClassPath.toString());
+            Function<JsonNode, Optional<Path>> splitFromFragment = fragment -> Optional.of(Path.of(fragment.get("split-test-class").asText())).filter(Files::exists);
+            Function<Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>>, JsonNode> processToFragment = result -> processedToFragment(objectMapper, result);
+            Function<JsonNode, Optional<Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>>>> processFromFragment = fragment -> Optional.of(processedFromFragment(objectMapper, fragment));
+            // Copy the oracles datapoints of the up-to-date test classes from the chunk files of the previous generation
+            Map<String, String> upToDateSplitTestClasses = new HashMap<>();
+            for (String testClass : upToDateTestClasses) {
+                upToDateSplitTestClasses.put(testClass.replace(".java", NamingConvention.TEST_SPLIT_FILE.getConventionName()), testClass);
+            }
+            if (!upToDateSplitTestClasses.isEmpty()) {
+                copyPreviousOraclesDatapoints(outputDatasetPath.resolve(projectIdentifier), upToDateSplitTestClasses.keySet(), datapointsWriter, objectMapper);
+            }
+            HashMap<String,HashMap<String, HashMap<String, List<String>>>> errorsStatistics = new HashMap<>();
+            if (options.inMemoryPipeline()) {
+                // Carry each test class through all the steps (normalize, split, process) in memory
+                processTestClasses(executor, workers, testFilePaths, testClassPath -> journaled(
+                        journal,
+                        GenerationPhase.PROCESS,
+                        testClassPath.toString().replace(repoRootPath.toString(), ""),
+                        () -> processTestClassInMemory(
+                                context,
+                                oraclesDatasetConfig,
+                                options,
+                                objectMapper,
+                                repoRootPath,
+                                repoTrackIndex,
+                                testClassPath,
+                                Optional.ofNullable(mappedTests.get(testClassPath)),
+                                outputPath,
+                                projectIdentifier
+                        ),
+                        result -> inMemoryToFragment(objectMapper, result),
+                        fragment -> Optional.of(inMemoryFromFragment(objectMapper, fragment))
+                ), (testClassPath, inMemoryTestClassResult) -> {
+                    if (inMemoryTestClassResult.isPresent()) {
+                        testStatsList.addAll(inMemoryTestClassResult.get().testStats());
+                        if (inMemoryTestClassResult.get().processedSplitTestClass().isPresent()) {
+                            Path splitTestClassPath = inMemoryTestClassResult.get().splitTestClassPath().orElseThrow();
+                            JsonNode splitTestClasstestClassesOracleDatapoints = inMemoryTestClassResult.get().processedSplitTestClass().get().getValue0();
+                            HashMap<String, HashMap<String, List<String>>> splitTestClassErrorsStatistics = inMemoryTestClassResult.get().processedSplitTestClass().get().getValue1();
+                            datapointsWriter.write(splitTestClasstestClassesOracleDatapoints);
+                            errorsStatistics.put(splitTestClassPath.toString().replace(repoRootPath.toString(), ""), splitTestClassErrorsStatistics);
+                        }
+                    }
+                });
+            } else {
+                // Iterate over the original test class files and normalize them
+                List<Optional<Pair<Path,List<TestStats>>>> normalizedTestClassResults = processTestClasses(executor, workers, testFilePaths, testClassPath -> journaled(journal, GenerationPhase.NORMALIZE, testClassPath.toString().replace(repoRootPath.toString(), ""), () -> {
+                    try {
+                        logger.info("Normalizing test class: {}", testClassPath.toString().replace(repoRootPath.toString(), ""));
+                        return Optional.of(TestUtils.normalizeTest(
+                                context,
+                                oraclesDatasetConfig,
+                                repoRootPath,
+                                testClassPath,
+                                Paths.get(outputPath.toString(), "test-normalize", projectIdentifier),
+                                repoTrackIndex.getTrackedTestCases(testClassPath)
+                        ));
+                    } catch (Exception e) {
+                        logger.error(e.getMessage());
+                        return Optional.empty();
                     }
+                }, normalizeToFragment, normalizeFromFragment));
+                for (int i = 0; i < testFilePaths.size(); i++) {
+                    Optional<Pair<Path,List<TestStats>>> normalizedTestClassResult = normalizedTestClassResults.get(i);
+                    if (normalizedTestClassResult.isPresent()) {
+                        testStatsList.addAll(normalizedTestClassResult.get().getValue1());
+                        // Store the normalized test class path and the original test class path
+                        normalizedTestFilePaths.add(new Pair<>(normalizedTestClassResult.get().getValue0(), testFilePaths.get(i)));
+                    }
+                }
+                // Define the list to store the test pair of split test cases (generated from the original test cases) and the
+                // corresponding source class (if available), together with the original test class
+                List<Triplet<Path, Optional<Path>, Path>> splittedTestFilePaths = new ArrayList<>();
+                // Iterate over the original test class files and split the test cases at any occurrence of an assertion
+                List<Optional<Path>> splitTestClassResults = processTestClasses(executor, workers, normalizedTestFilePaths, normalizedTestClassPair -> withGeneratedTestClass(context, normalizedTestClassPair.getValue0(), () -> journaled(journal, GenerationPhase.SPLIT, normalizedTestClassPair.getValue1().toString().replace(repoRootPath.toString(), ""), () -> {
+                    Path normalizedTestClassPath = normalizedTestClassPair.getValue0();
+                    Path originalTestClassPath = normalizedTestClassPair.getValue1();
+                    try {
+                        restoreGeneratedCompilationUnit(context, normalizedTestClassPath);
+                        logger.info("Splitting test class: {}", normalizedTestClassPath.toString().replace(repoRootPath.toString(), ""));
+                        return Optional.of(TestUtils.splitTest(
+                                context,
+                                oraclesDatasetConfig,
+                                repoRootPath,
+                                normalizedTestClassPath,
+                                Paths.get(outputPath.toString(), "test-split", projectIdentifier)
+                        ));
+                    } catch (Exception e) {
+                        logger.error(e.getMessage());
+                        return Optional.empty();
+                    }
+                }, splitToFragment, splitFromFragment)));
+                for (int i = 0; i < normalizedTestFilePaths.size(); i++) {
+                    Optional<Path> splitTestClassPath = splitTestClassResults.get(i);
+                    if (splitTestClassPath.isPresent()) {
+                        Path originalTestClassPath = normalizedTestFilePaths.get(i).getValue1();
+                        splittedTestFilePaths.add(new Triplet<>(splitTestClassPath.get(), Optional.ofNullable(mappedTests.get(originalTestClassPath)), originalTestClassPath));
+                    }
+                }
+                // Iterate over the original test class files and split the test cases at any occurrence of an assertion
+                processTestClasses(executor, workers, splittedTestFilePaths, splitTestClassPathsTriplet -> withGeneratedTestClass(context, splitTestClassPathsTriplet.getValue0(), () -> journaled(journal, GenerationPhase.PROCESS, splitTestClassPathsTriplet.getValue2().toString().replace(repoRootPath.toString(), ""), () -> {
+                    Path splitTestClassPath = splitTestClassPathsTriplet.getValue0();
+                    Optional<Path> sourceFilePath = splitTestClassPathsTriplet.getValue1();
+                    logger.info("Processing split test class {} to generate oracles datapoints", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
+                    if (sourceFilePath.isPresent()) {
+                        try {
+                            restoreGeneratedCompilationUnit(context, splitTestClassPath);
+                            Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processedSplitTestClass = TestUtils.processSplitTestClass(context, oraclesDatasetConfig, splitTestClassPath, sourceFilePath.get(), repoRootPath);
+                            return Optional.of(new Pair<>(objectMapper.valueToTree(processedSplitTestClass.getValue0()), processedSplitTestClass.getValue1()));
+                        } catch (Exception e) {
+                            logger.error("Error while processing split test class: {}", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
+                            logger.error("Error message: {}", e.getMessage());
+                        }
+                    }
+                    return Optional.empty();
+                }, processToFragment, processFromFragment)), (splitTestClassPathsTriplet, processedSplitTestClassResult) -> {
+                    if (processedSplitTestClassResult.isPresent()) {
+                        Path splitTestClassPath = splitTestClassPathsTriplet.getValue0();
+                        JsonNode splitTestClasstestClassesOracleDatapoints = processedSplitTestClassResult.get().getValue0();
+                        HashMap<String, HashMap<String, List<String>>> splitTestClassErrorsStatistics = processedSplitTestClassResult.get().getValue1();
+                        datapointsWriter.write(splitTestClasstestClassesOracleDatapoints);
+                        errorsStatistics.put(splitTestClassPath.toString().replace(repoRootPath.toString(), ""), splitTestClassErrorsStatistics);
+                    }
+                });
+            }
+            // All the test classes are processed, complete the chunk files
+            datapointsWriter.complete();
+            if (manifest != null) {
+                // Merge the statistics of the up-to-date test classes from the previous generation
+                if (!upToDateTestClasses.isEmpty()) {
+                    mergePreviousStatistics(outputStatisticsPath.resolve(projectIdentifier), projectIdentifier, repoRootPath, upToDateTestClasses, upToDateSplitTestClasses, testStatsList, errorsStatistics, objectMapper);
                 }
+                manifest.write();
+            }
+            int oraclesDatapoints = datapointsWriter.getDatapointsWritten();
+            // TODO: Log statistics
+            // Log info data
+            logger.info("Test classes processed: {}", datapointsWriter.getTestClassesWritten());
+            logger.info("Oracles datapoints generated: {}", oraclesDatapoints);
+            logger.info("Compilation unit cache: {}", context.getCompilationUnitCache().getStats());
+            logger.info("Call resolution cache: {}", context.getCallResolutionCache().getStats());
+            // Store statistics
+            statistics.put("testClassesProcessed", datapointsWriter.getTestClassesWritten());
+            statistics.put("oracleDatapoints", oraclesDatapoints);
+            String statisticsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(statistics);
+            String errorsStatisticsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(errorsStatistics);
+            String testStatsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(testStatsList);
+            // Write statistics to file
+            FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("statistics-%s.json", projectIdentifier)), statisticsJSON);
+            FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("errors-statistics-%s.json", projectIdentifier)), errorsStatisticsJSON);
+            FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("test-stats-%s.json", projectIdentifier)), testStatsJSON);
+            // The generation is completed, the next execution starts from scratch
+            journal.complete();
+        } finally {
+            // Release the workers, also if the generation fails (a batch generation goes on in the same JVM)
+            if (executor != null && executor != sharedExecutor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Collects the java classes that are part of the repository (contained within the {@code javaFilePaths}), but are not
+     * contained neither in the {@code testFilePaths} nor in the {@code sourceFilePaths}.
+     *
+     * @param javaFilePaths the java files of the repository
+     * @param testFilePaths the test files of the repository
+     * @param sourceFilePaths the source files of the repository
+     * @return the list of excluded classes
+     */
+    private static List<Path> excludedClasses(Collection<Path> javaFilePaths, Collection<Path> testFilePaths, Collection<Path> sourceFilePaths) {
+        List<Path> excludedClasses = new ArrayList<>();
+        // Hash the test and source files, to classify each java file in constant time
+        Set<Path> classifiedFilePaths = new HashSet<>(testFilePaths);
+        classifiedFilePaths.addAll(sourceFilePaths);
+        // Iterate over all the collected java files of the repository
+        for (Path classPath : javaFilePaths) {
+            // Check if the class of the project is not contained in the test file set and in the source file set
+            if (!classifiedFilePaths.contains(classPath)) {
+                // Add the class to the excluded class list
+                excludedClasses.add(classPath);
+            }
+        }
+        // Return the list of excluded classes
+        return excludedClasses;
+    }
 
-                Path splitTestClassPath = TestUtils.splitTest(
-                        oraclesDatasetConfig,
-                        repoRootPath,
-                        normalizedTestClassPath,
-                        Paths.get(outputPath.toString(), "test-split", projectIdentifier)
-                );
-                splittedTestFilePaths.add(new Pair<>(splitTestClassPath, Optional.ofNullable(mappedTests.get(originalTestClassPath))));
+    /**
+     * Process a test class in memory, carrying the same compilation unit through all the steps of the generation:
+     * normalization, split, and datapoints extraction. The intermediate test classes are written to the output paths
+     * only if required by the execution options (for debugging purposes). Returns an empty optional if the test class
+     * cannot be normalized.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration of the oracles dataset
+     * @param options the execution options of the generation
+     * @param objectMapper the object mapper used to convert the oracles datapoints to JSON
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrackIndex the index of the test cases tracked in the repository track
+     * @param testClassPath the path to the test class to process
+     * @param sourceFilePath the path to the corresponding source class (if available)
+     * @param outputPath the path to the output directory
+     * @param projectIdentifier the identifier of the project
+     * @return the result of the processing of the test class
+     */
+    private static Optional<InMemoryTestClassResult> processTestClassInMemory(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            OraclesDatasetOptions options,
+            ObjectMapper objectMapper,
+            Path repoRootPath,
+            RepositoryTrackIndex repoTrackIndex,
+            Path testClassPath,
+            Optional<Path> sourceFilePath,
+            Path outputPath,
+            String projectIdentifier
+    ) {
+        // The generated test classes registered in the type solver, unregistered once the test class is processed
+        List<Path> generatedTestClassPaths = new ArrayList<>();
+        try {
+            return processTestClassInMemory(context, config, options, objectMapper, repoRootPath, repoTrackIndex, testClassPath, sourceFilePath, outputPath, projectIdentifier, generatedTestClassPaths);
+        } finally {
+            generatedTestClassPaths.forEach(context::unregisterGeneratedCompilationUnit);
+        }
+    }
+
+    /**
+     * Process a test class in memory (see {@link #processTestClassInMemory(TestProcessingContext, OraclesDatasetConfig,
+     * OraclesDatasetOptions, ObjectMapper, Path, RepositoryTrackIndex, Path, Optional, Path, String)}), collecting the
+     * paths of the generated test classes registered in the type solver.
+     */
+    private static Optional<InMemoryTestClassResult> processTestClassInMemory(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            OraclesDatasetOptions options,
+            ObjectMapper objectMapper,
+            Path repoRootPath,
+            RepositoryTrackIndex repoTrackIndex,
+            Path testClassPath,
+            Optional<Path> sourceFilePath,
+            Path outputPath,
+            String projectIdentifier,
+            List<Path> generatedTestClassPaths
+    ) {
+        CompilationUnit cu;
+        Pair<Path, List<TestStats>> normalizedTestClassResult;
+        try {
+            logger.info("Normalizing test class: {}", testClassPath.toString().replace(repoRootPath.toString(), ""));
+            // Parse the test class only once
+            cu = context.call(() -> JavaParserUtils.getCompilationUnit(testClassPath));
+            normalizedTestClassResult = TestUtils.normalizeTest(
+                    context,
+                    config,
+                    repoRootPath,
+                    testClassPath,
+                    cu,
+                    Paths.get(outputPath.toString(), "test-normalize", projectIdentifier),
+                    repoTrackIndex.getTrackedTestCases(testClassPath),
+                    options.writeIntermediateFiles()
+            );
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return Optional.empty();
+        }
+        generatedTestClassPaths.add(normalizedTestClassResult.getValue0());
+        Path splitTestClassPath;
+        try {
+            logger.info("Splitting test class: {}", normalizedTestClassResult.getValue0().toString().replace(repoRootPath.toString(), ""));
+            splitTestClassPath = TestUtils.splitTest(
+                    context,
+                    config,
+                    repoRootPath,
+                    normalizedTestClassResult.getValue0(),
+                    cu,
+                    Paths.get(outputPath.toString(), "test-split", projectIdentifier),
+                    options.writeIntermediateFiles()
+            );
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return Optional.of(new InMemoryTestClassResult(normalizedTestClassResult.getValue1(), Optional.empty(), Optional.empty()));
+        }
+        generatedTestClassPaths.add(splitTestClassPath);
+        logger.info("Processing split test class {} to generate oracles datapoints", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
+        Optional<Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>>> processedSplitTestClass = Optional.empty();
+        if (sourceFilePath.isPresent()) {
+            try {
+                Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> result = TestUtils.processSplitTestClass(context, config, splitTestClassPath, cu, sourceFilePath.get(), repoRootPath);
+                processedSplitTestClass = Optional.of(new Pair<>(objectMapper.valueToTree(result.getValue0()), result.getValue1()));
             } catch (Exception e) {
-                logger.error(e.getMessage());
+                logger.error("Error while processing split test class: {}", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
+                logger.error("Error message: {}", e.getMessage());
             }
-            //}
         }
-        // Update java parser considering the new split files generated within the repository
-        JavaParserUtils.setRepoJavaParser(repoRootPath, classpath);
-        // Convert statistics to JSON
-        ObjectMapper objectMapper = new ObjectMapper();
-        int oraclesDatapoints = 0;
-        HashMap<String,HashMap<String, HashMap<String, List<String>>>> errorsStatistics = new HashMap<>();
-        // Iterate over the original test class files and split the test cases at any occurrence of an assertion
-        for (Pair<Path, Optional<Path>> splitTestClassPathsPair : splittedTestFilePaths) {
-            Path splitTestClassPath = splitTestClassPathsPair.getValue0();
-            Optional<Path> sourceFilePath = splitTestClassPathsPair.getValue1();
-            logger.info("Processing split test class {} to generate oracles datapoints", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
-            if (sourceFilePath.isPresent()) {
-                // Debugging
-                // if (splitTestClassPath.toString().replace(repoRootPath.toString(), "").contains("PaymentClientTest")) {
-                //     try {
-                //         Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processedSplitTestClassResult = TestUtils.processSplitTestClass(oraclesDatasetConfig, splitTestClassPath, sourceFilePath.get(), repoRootPath);
-                //         TestClazzOracleDatapoints splitTestClasstestClassesOracleDatapoints = processedSplitTestClassResult.getValue0();
-                //         HashMap<String, HashMap<String, List<String>>> splitTestClassErrorsStatistics = processedSplitTestClassResult.getValue1();
-                //         oraclesDatapoints += splitTestClasstestClassesOracleDatapoints.datapoints().size();
-                //         testClassesOracleDatapoints.add(splitTestClasstestClassesOracleDatapoints);
-                //     } catch (Exception e) {
-                //         logger.error("Error while processing split test class: {}", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
-                //         logger.error("Error message: {}", e.getMessage());
-                //     }
-                // }
+        return Optional.of(new InMemoryTestClassResult(normalizedTestClassResult.getValue1(), Optional.of(splitTestClassPath), processedSplitTestClass));
+    }
+
+    /**
+     * Applies the given task to each test class of the list. If an executor is provided, the test classes are processed
+     * concurrently, otherwise they are processed sequentially in the current thread. In both cases, the results are
+     * returned following the order of the given list of test classes. The task is responsible for handling its own
+     * errors, returning an empty optional if the test class cannot be processed.
+     *
+     * @param executor the pool of workers (null for a sequential execution)
+     * @param workers the number of workers of the pool
+     * @param testClasses the list of test classes to process
+     * @param task the task to apply to each test class
+     * @return the list of results, one for each test class of the given list (in the same order)
+     */
+    private static <T, R> List<Optional<R>> processTestClasses(ExecutorService executor, int workers, List<T> testClasses, Function<T, Optional<R>> task) {
+        List<Optional<R>> results = new ArrayList<>();
+        processTestClasses(executor, workers, testClasses, task, (testClass, result) -> results.add(result));
+        return results;
+    }
+
+    /**
+     * Applies the given task to each test class of the list, and passes each result to the given consumer as soon as
+     * it is available, following the order of the given list of test classes. If an executor is provided, the test
+     * classes are processed concurrently, otherwise they are processed sequentially in the current thread. In the
+     * concurrent case, at most twice as many test classes as the workers are in progress (or waiting to be consumed)
+     * at a time, so that the results held in memory are bounded regardless of the number of test classes, and the test
+     * classes still pending are cancelled if the processing is interrupted (the pool may be shared). The consumer
+     * is always called from the current thread. The task is responsible for handling its own errors, returning an empty
+     * optional if the test class cannot be processed.
+     *
+     * @param executor the pool of workers (null for a sequential execution)
+     * @param workers the number of workers of the pool
+     * @param testClasses the list of test classes to process
+     * @param task the task to apply to each test class
+     * @param consumer the consumer of the result of each test class
+     */
+    private static <T, R> void processTestClasses(ExecutorService executor, int workers, List<T> testClasses, Function<T, Optional<R>> task, BiConsumer<T, Optional<R>> consumer) {
+        // Process the test classes sequentially
+        if (executor == null) {
+            for (T testClass : testClasses) {
+                consumer.accept(testClass, task.apply(testClass));
+            }
+            return;
+        }
+        // Submit the test classes to the pool of workers, keeping a bounded window of test classes in progress
+        int window = 2 * workers;
+        ArrayDeque<Future<Optional<R>>> futures = new ArrayDeque<>();
+        int nextSubmitted = 0;
+        try {
+            for (int i = 0; i < testClasses.size(); i++) {
+                while (nextSubmitted < testClasses.size() && nextSubmitted < i + window) {
+                    T testClass = testClasses.get(nextSubmitted++);
+                    futures.add(executor.submit(() -> task.apply(testClass)));
+                }
+                // Consume the results following the original order of the test classes
+                Optional<R> result;
                 try {
-                    Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processedSplitTestClassResult = TestUtils.processSplitTestClass(oraclesDatasetConfig, splitTestClassPath, sourceFilePath.get(), repoRootPath);
-                    TestClazzOracleDatapoints splitTestClasstestClassesOracleDatapoints = processedSplitTestClassResult.getValue0();
-                    HashMap<String, HashMap<String, List<String>>> splitTestClassErrorsStatistics = processedSplitTestClassResult.getValue1();
-                    testClassesOracleDatapoints.add(splitTestClasstestClassesOracleDatapoints);
-                    oraclesDatapoints += splitTestClasstestClassesOracleDatapoints.datapoints().size();
-                    errorsStatistics.put(splitTestClassPath.toString().replace(repoRootPath.toString(), ""), splitTestClassErrorsStatistics);
-                } catch (Exception e) {
-                    logger.error("Error while processing split test class: {}", splitTestClassPath.toString().replace(repoRootPath.toString(), ""));
-                    logger.error("Error message: {}", e.getMessage());
+                    result = futures.poll().get();
+                } catch (ExecutionException e) {
+                    logger.error("Error while processing test class: {}", e.getCause().toString());
+                    result = Optional.empty();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the test classes to be processed.", e);
                 }
+                consumer.accept(testClasses.get(i), result);
             }
+        } finally {
+            // Cancel the test classes still pending (if the processing did not complete)
+            futures.forEach(future -> future.cancel(true));
         }
-        // TODO: Log statistics
-        // Log info data
-        logger.info("Test classes processed: {}", testClassesOracleDatapoints.size());
-        logger.info("Oracles datapoints generated: {}", oraclesDatapoints);
-        int maxFileSizeBytes = 50 * 1024 * 1024; // 50 MB
-        int fileCounter = 0;
-        List<TestClazzOracleDatapoints> currentChunk = new ArrayList<>();
-        long currentChunkSize = 0;
+    }
 
-        for (TestClazzOracleDatapoints dataPoint : testClassesOracleDatapoints) {
-            // Convert individual data points to JSON to estimate their size
-            String dataPointJSON = objectMapper.writeValueAsString(dataPoint);
-            long dataPointSize = dataPointJSON.getBytes(StandardCharsets.UTF_8).length;
-            // Check if adding this data point exceeds the max file size
-            if (currentChunkSize + dataPointSize > maxFileSizeBytes && !currentChunk.isEmpty()) {
-                // Write current chunk to a file
-                writeChunkToFile(currentChunk, fileCounter++, outputDatasetPath.resolve(projectIdentifier), projectIdentifier, objectMapper);
-                // Start a new chunk
-                currentChunk = new ArrayList<>();
-                currentChunkSize = 0;
-            }
-            // Add the data point to the current chunk
-            currentChunk.add(dataPoint);
-            currentChunkSize += dataPointSize;
+    /**
+     * Applies the given task to the test class generated in the previous phase, and then unregisters the generated test
+     * class from the type solver (it is not resolved by the following phases).
+     *
+     * @param context the test processing context of the repository
+     * @param generatedTestClassPath the path of the test class generated in the previous phase
+     * @param task the task to apply to the generated test class
+     * @return the result of the task
+     */
+    private static <R> Optional<R> withGeneratedTestClass(TestProcessingContext context, Path generatedTestClassPath, Supplier<Optional<R>> task) {
+        try {
+            return task.get();
+        } finally {
+            context.unregisterGeneratedCompilationUnit(generatedTestClassPath);
+        }
+    }
+
+    /**
+     * Register in the type solver the test class generated in the previous phase, if it has not been registered while
+     * generating it (because the previous phase has been restored from the journal of an interrupted execution). In
+     * this way, the test class is resolved as in an execution that has not been interrupted.
+     *
+     * @param context the test processing context of the repository
+     * @param generatedTestClassPath the path of the test class generated in the previous phase
+     * @throws IOException if an error occurs while reading the generated test class
+     */
+    private static void restoreGeneratedCompilationUnit(TestProcessingContext context, Path generatedTestClassPath) throws IOException {
+        if (context.isGeneratedCompilationUnitRegistered(generatedTestClassPath)) {
+            return;
         }
-        // Write the last chunk if any
-        if (!currentChunk.isEmpty()) {
-            writeChunkToFile(currentChunk, fileCounter++, outputDatasetPath.resolve(projectIdentifier), projectIdentifier, objectMapper);
+        context.run(() -> context.registerGeneratedCompilationUnit(generatedTestClassPath, JavaParserUtils.getCompilationUnit(generatedTestClassPath)));
+    }
+
+    /**
+     * Applies the given task to a test class, unless the phase has already been completed for the test class in a
+     * previous execution. In that case, the result is restored from the output fragment recorded in the journal. If the
+     * result cannot be restored (for example, because an intermediate test class has been removed), the task is
+     * applied again. The completion of the task is recorded in the journal, even if the task fails.
+     *
+     * @param journal the journal of the generation
+     * @param phase the phase of the generation
+     * @param testClass the path of the original test class, relative to the root of the repository
+     * @param task the task to apply to the test class
+     * @param toFragment the converter from the result of the task to the output fragment
+     * @param fromFragment the converter from the output fragment to the result of the task (empty if it cannot be
+     *                     restored)
+     * @return the result of the task (empty if the task failed)
+     */
+    private static <R> Optional<R> journaled(
+            GenerationJournal journal,
+            GenerationPhase phase,
+            String testClass,
+            Supplier<Optional<R>> task,
+            Function<R, JsonNode> toFragment,
+            Function<JsonNode, Optional<R>> fromFragment
+    ) {
+        Optional<GenerationJournal.Entry> completed = journal.getCompleted(phase, testClass);
+        if (completed.isPresent()) {
+            Optional<JsonNode> fragment = completed.get().optionalFragment();
+            // The phase failed for the test class in the previous execution
+            if (fragment.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<R> restored = fromFragment.apply(fragment.get());
+            if (restored.isPresent()) {
+                logger.info("Restored test class {} ({}) from journal", testClass, phase.getPhaseName());
+                return restored;
+            }
         }
-        // Store statistics
-        statistics.put("testClassesProcessed", testClassesOracleDatapoints.size());
-        statistics.put("oracleDatapoints", oraclesDatapoints);
-        String statisticsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(statistics);
-        String errorsStatisticsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(errorsStatistics);
-        String testStatsJSON = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(testStatsList);
-        // Write statistics to file
-        FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("statistics-%s.json", projectIdentifier)), statisticsJSON);
-        FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("errors-statistics-%s.json", projectIdentifier)), errorsStatisticsJSON);
-        FilesUtils.writeJSONFile(Paths.get(outputStatisticsPath.resolve(projectIdentifier).toString(), String.format("test-stats-%s.json", projectIdentifier)), testStatsJSON);
+        Optional<R> result = task.get();
+        journal.record(phase, testClass, result.map(toFragment).orElse(null));
+        return result;
+    }
+
+    /**
+     * Converts the oracles datapoints and the errors statistics of a processed split test class to an output fragment
+     * of the journal.
+     */
+    private static JsonNode processedToFragment(ObjectMapper objectMapper, Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>> processedSplitTestClass) {
+        ObjectNode fragment = objectMapper.createObjectNode();
+        fragment.set("datapoints", processedSplitTestClass.getValue0());
+        fragment.set("errors-statistics", objectMapper.valueToTree(processedSplitTestClass.getValue1()));
+        return fragment;
+    }
 
+    /**
+     * Converts an output fragment of the journal back to the oracles datapoints and the errors statistics of a
+     * processed split test class.
+     */
+    private static Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>> processedFromFragment(ObjectMapper objectMapper, JsonNode fragment) {
+        return new Pair<>(fragment.get("datapoints"), objectMapper.convertValue(fragment.get("errors-statistics"), new TypeReference<HashMap<String, HashMap<String, List<String>>>>() {}));
+    }
 
+    /**
+     * Converts the result of the in-memory processing of a test class to an output fragment of the journal.
+     */
+    private static JsonNode inMemoryToFragment(ObjectMapper objectMapper, InMemoryTestClassResult result) {
+        ObjectNode fragment = objectMapper.createObjectNode();
+        fragment.set("test-stats", objectMapper.valueToTree(result.testStats()));
+        fragment.put("split-test-class", result.splitTestClassPath().map(Path::toString).orElse(null));
+        fragment.set("processed-split-test-class", result.processedSplitTestClass().map(processed -> processedToFragment(objectMapper, processed)).orElse(null));
+        return fragment;
     }
 
     /**
-     * Maps the test class path to the expected corresponding source class normalized path.
-     * The normalization is performed transforming the original string into a corresponding
-     * string with only lower case characters.
-     *
-     * @param testClassPath the test class path
-     * @return the corresponding source class path
+     * Converts an output fragment of the journal back to the result of the in-memory processing of a test class.
      */
-    private static Path testClassPathToSourceClassNormPath(Path testClassPath) {
-        // Normalize the test class path string
-        String testFileNormStr = testClassPath.toString().toLowerCase();
-        // Split the normalized test class path string
-        String[] testFileNormStrSplitted = testFileNormStr.split("/");
-        // Get the test class name
-        String testClassName = testFileNormStrSplitted[testFileNormStrSplitted.length - 1];
-        // Generate the expected corresponding source class name
-        String sourceClassName = testClassName.replace("test", "");
-        // Apply changes to the original test class path to complete the transformation
-        String sourceClassPathStr = testFileNormStr
-                .replace("/src/test/", "/src/main/")
-                .replace(testClassName, sourceClassName);
-        // Return the expected corresponding source class path
-        return Paths.get(sourceClassPathStr);
+    private static InMemoryTestClassResult inMemoryFromFragment(ObjectMapper objectMapper, JsonNode fragment) {
+        JsonNode splitTestClass = fragment.get("split-test-class");
+        JsonNode processedSplitTestClass = fragment.get("processed-split-test-class");
+        return new InMemoryTestClassResult(
+                objectMapper.convertValue(fragment.get("test-stats"), new TypeReference<List<TestStats>>() {}),
+                splitTestClass == null || splitTestClass.isNull() ? Optional.empty() : Optional.of(Path.of(splitTestClass.asText())),
+                processedSplitTestClass == null || processedSplitTestClass.isNull() ? Optional.empty() : Optional.of(processedFromFragment(objectMapper, processedSplitTestClass))
+        );
     }
 
     /**
-     * Collects the java classes that are part of the repository (contained within the {@code javaFilePaths}), but are not
-     * contained neither in the {@code testFilePaths} nor in the {@code sourceFilePaths}.
+     * Copies the oracles datapoints of the given split test classes from the chunk files of the previous generation.
+     * The chunk files are read in a streaming fashion, one test class at a time.
      *
-     * @param javaFilePaths
-     * @param testFilePaths
-     * @param sourceFilePaths
-     * @return
+     * @param chunksPath the path to the directory containing the chunk files of the project
+     * @param splitTestClasses the split test classes to copy (relative to the root of the repository)
+     * @param datapointsWriter the writer of the chunk files of the current generation
+     * @param objectMapper the object mapper used to read the chunk files
+     * @throws IOException if an error occurs while reading the chunk files
      */
-    private static List<Path> excludedClasses(List<Path> javaFilePaths, List<Path> testFilePaths, List<Path> sourceFilePaths) {
-        List<Path> excludedClasses = new ArrayList<>();
+    private static void copyPreviousOraclesDatapoints(Path chunksPath, Set<String> splitTestClasses, OraclesDatapointsWriter datapointsWriter, ObjectMapper objectMapper) throws IOException {
+        for (Path chunkPath : OraclesDatapointsReader.listChunkFiles(chunksPath)) {
+            OraclesDatapointsReader.forEachTestClass(chunkPath, objectMapper, testClassOracleDatapoints -> {
+                if (splitTestClasses.contains(testClassOracleDatapoints.get("testClass").get("filePath").asText())) {
+                    datapointsWriter.write(testClassOracleDatapoints);
+                }
+            });
+        }
+    }
 
-        // Iterate over all the collected java files of the repository
-        for (Path classPath : javaFilePaths) {
-            // Check if the class of the project is not contained in the test file list and in the source file list
-            if (!testFilePaths.contains(classPath) && !sourceFilePaths.contains(classPath)) {
-                // Add the class to the excluded class list
-                excludedClasses.add(classPath);
+    /**
+     * Merges the test statistics and the errors statistics of the up-to-date test classes, written by the previous
+     * generation, into the ones of the test classes processed in the current generation.
+     *
+     * @param statisticsPath the path to the directory containing the statistics files of the project
+     * @param projectIdentifier the identifier of the project
+     * @param repoRootPath the path to the root of the repository
+     * @param upToDateTestClasses the up-to-date test classes (relative to the root of the repository)
+     * @param upToDateSplitTestClasses the split test classes of the up-to-date test classes (relative to the root of
+     *                                 the repository)
+     * @param testStatsList the test statistics of the current generation
+     * @param errorsStatistics the errors statistics of the current generation
+     * @param objectMapper the object mapper used to read the statistics files
+     * @throws IOException if an error occurs while reading the statistics files
+     */
+    private static void mergePreviousStatistics(
+            Path statisticsPath,
+            String projectIdentifier,
+            Path repoRootPath,
+            Set<String> upToDateTestClasses,
+            Map<String, String> upToDateSplitTestClasses,
+            List<TestStats> testStatsList,
+            HashMap<String, HashMap<String, HashMap<String, List<String>>>> errorsStatistics,
+            ObjectMapper objectMapper
+    ) throws IOException {
+        Path testStatsPath = statisticsPath.resolve(String.format("test-stats-%s.json", projectIdentifier));
+        if (Files.exists(testStatsPath)) {
+            List<TestStats> previousTestStats = objectMapper.readValue(testStatsPath.toFile(), new TypeReference<List<TestStats>>() {});
+            for (TestStats testStats : previousTestStats) {
+                if (upToDateTestClasses.contains(testStats.filePath().replace(repoRootPath.toString(), ""))) {
+                    testStatsList.add(testStats);
+                }
+            }
+        }
+        Path errorsStatisticsPath = statisticsPath.resolve(String.format("errors-statistics-%s.json", projectIdentifier));
+        if (Files.exists(errorsStatisticsPath)) {
+            HashMap<String, HashMap<String, HashMap<String, List<String>>>> previousErrorsStatistics = objectMapper.readValue(errorsStatisticsPath.toFile(), new TypeReference<HashMap<String, HashMap<String, HashMap<String, List<String>>>>>() {});
+            for (Map.Entry<String, HashMap<String, HashMap<String, List<String>>>> splitTestClassErrorsStatistics : previousErrorsStatistics.entrySet()) {
+                if (upToDateSplitTestClasses.containsKey(splitTestClassErrorsStatistics.getKey())) {
+                    errorsStatistics.put(splitTestClassErrorsStatistics.getKey(), splitTestClassErrorsStatistics.getValue());
+                }
             }
         }
-        // Return the list of excluded classes
-        return excludedClasses;
     }
 
-    private static void writeChunkToFile(List<TestClazzOracleDatapoints> chunk, int fileCounter, Path outputPath, String projectIdentifier, ObjectMapper objectMapper) throws IOException {
-        Path outputFile = Paths.get(outputPath.toString(), String.format("oracles-datapoints-%s-%d.json", projectIdentifier, fileCounter));
-        FilesUtils.createFile(outputFile);
-        try (BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8);
-             JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(writer)) {
-            objectMapper.writeValue(jsonGenerator, chunk);
+    /**
+     * Computes the fingerprint of the incremental manifest (hexadecimal SHA-256 digest of the configuration file and of
+     * the repository and the period tracked by the repository track). The outputs of a previous generation can be
+     * reused only if the configuration and the repository track did not change.
+     *
+     * @param configPath the path to the configuration file
+     * @param repoTrack the repository track
+     * @return the fingerprint of the configuration and of the repository track
+     * @throws IOException if an error occurs while reading the configuration file
+     */
+    private static String manifestFingerprint(Path configPath, RepositoryTrack repoTrack) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(configPath));
+            digest.update(String.format("%s|%s|%s", repoTrack.url(), repoTrack.since(), repoTrack.until()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available.", e);
         }
     }
 
-    private static List<Path> findLibrariesPaths(Path repoRootPath) {
-        List<Path> matchingPaths = new ArrayList<>();
+    /**
+     * Computes the digest of the test cases tracked for a test class in the repository track (hexadecimal SHA-256
+     * digest of their JSON representation). The outputs of a test class in a previous generation can be reused only if
+     * its tracked test cases did not change.
+     *
+     * @param objectMapper the object mapper used to convert the test cases to JSON
+     * @param testCases the test cases tracked for the test class
+     * @return the digest of the tracked test cases
+     * @throws IOException if an error occurs while converting the test cases to JSON
+     */
+    private static String trackedTestCasesDigest(ObjectMapper objectMapper, List<RepositoryTrack.TestCase> testCases) throws IOException {
         try {
-            Files.walkFileTree(repoRootPath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.toString().endsWith(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
-                        matchingPaths.add(dir);
-                    }
-                    return FileVisitResult.CONTINUE;
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(testCases)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available.", e);
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the inputs of the generation: the content of the configuration file, the size and the
+     * last modification time of the repository track, the path, the size and the last modification time of each java
+     * file of the repository (including the decompiled libraries, but not the test classes generated by the
+     * generation), the classpath, and the execution mode (the fragments recorded by the in-memory pipeline differ from
+     * the ones recorded step by step). The java files are not read, so that the fingerprint stays cheap to compute.
+     *
+     * @param configPath the path to the configuration file
+     * @param repoTrackPath the path to the repository track file
+     * @param repositoryIndex the index of the repository
+     * @param classpath the classpath of the project (each element is separated by a ":")
+     * @param options the execution options of the generation
+     * @return the fingerprint of the inputs (hexadecimal SHA-256 digest)
+     * @throws IOException if an error occurs while reading the input files
+     */
+    private static String generationFingerprint(Path configPath, Path repoTrackPath, RepositoryIndex repositoryIndex, String classpath, OraclesDatasetOptions options) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(configPath));
+            digest.update(String.format("%d:%d:%b", Files.size(repoTrackPath), Files.getLastModifiedTime(repoTrackPath).toMillis(), options.inMemoryPipeline()).getBytes(StandardCharsets.UTF_8));
+            for (List<Path> javaFilePaths : List.of(repositoryIndex.getJavaFilePaths(), repositoryIndex.getDecompiledJavaFilePaths())) {
+                for (Path javaFilePath : javaFilePaths) {
+                    BasicFileAttributes attributes = Files.readAttributes(javaFilePath, BasicFileAttributes.class);
+                    digest.update(String.format("\n%s:%d:%d", repositoryIndex.getRepoRootPath().relativize(javaFilePath), attributes.size(), attributes.lastModifiedTime().toMillis()).getBytes(StandardCharsets.UTF_8));
                 }
-            });
-        } catch (IOException e) {
-            System.err.println("Error while searching for folders: " + e.getMessage());
+            }
+            digest.update(("\n" + classpath).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available.", e);
         }
-        return matchingPaths;
     }
+
+    /**
+     * The result of the in-memory processing of a test class.
+     *
+     * @param testStats the statistics of the test cases collected during the normalization
+     * @param splitTestClassPath the path of the split test class (empty if the test class cannot be split)
+     * @param processedSplitTestClass the oracles datapoints (as JSON tree) and the errors statistics of the split test
+     *                                class (empty if the test class has no focal class or cannot be processed)
+     */
+    private record InMemoryTestClassResult(
+            List<TestStats> testStats,
+            Optional<Path> splitTestClassPath,
+            Optional<Pair<JsonNode, HashMap<String, HashMap<String, List<String>>>>> processedSplitTestClass
+    ) {}
 }
@@ -0,0 +1,286 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.observer.AstObserver;
+import com.github.javaparser.ast.observer.AstObserverAdapter;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.visitor.CloneVisitor;
+import com.github.javaparser.ast.visitor.Visitable;
+import star.llms.prompts.dataset.utils.javaParser.visitors.expressions.NameExprVisitor;
+import star.llms.prompts.dataset.utils.javaParser.visitors.expressions.VariableDeclarationExprVisitor;
+import star.llms.prompts.dataset.utils.javaParser.visitors.statements.ReturnStmtVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The template of an auxiliary method of a test class, integrated into the body of the test cases invoking it while
+ * normalizing the test class. The same auxiliary methods (like the methods creating the fixtures of the test cases) are
+ * typically invoked by most of the test cases of the class, while their analysis only depends on the auxiliary method:
+ * the template validates the body of the auxiliary method once (a single return statement, at the end of the body),
+ * and records the variables declared within the body, and the occurrences of the names of the parameters and of the
+ * declared variables (the slots to replace at each invocation).
+ * <p>
+ * Each invocation clones the body of the template, replacing the slots while cloning them, so that the parameters and
+ * the variables are replaced without traversing the cloned body again. The replacements are the same performed by
+ * replacing the name expressions and the variable declarations collected from the whole cloned body.
+ * <p>
+ * The template is stored in the data of the auxiliary method, and any change to the body of the auxiliary method
+ * invalidates it. The body is observed by a single observer shared by all the templates (registered once on each node),
+ * so rebuilding a template does not add observers to the body. The template must be used by the thread owning the AST
+ * of the test class.
+ */
+public class AuxiliaryMethodTemplate {
+
+    /* The key of the template in the data of the auxiliary method. */
+    private static final DataKey<AuxiliaryMethodTemplate> TEMPLATE_KEY = new DataKey<>() {};
+    /* The observer invalidating the templates of the auxiliary methods containing a node that changes. */
+    private static final AstObserver INVALIDATION_OBSERVER = new AstObserverAdapter() {
+        @Override
+        public void propertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+            invalidate(observedNode);
+        }
+
+        @Override
+        public void parentChange(Node observedNode, Node previousParent, Node newParent) {
+            invalidate(observedNode);
+        }
+
+        @Override
+        public void listChange(NodeList<?> observedNode, AstObserver.ListChangeType type, int index, Node nodeAddedOrRemoved) {
+            observedNode.getParentNode().ifPresent(AuxiliaryMethodTemplate::invalidate);
+        }
+
+        @Override
+        public void listReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+            observedNode.getParentNode().ifPresent(AuxiliaryMethodTemplate::invalidate);
+        }
+    };
+
+    /* The auxiliary method. */
+    private final MethodDeclaration method;
+    /* The reason why the auxiliary method cannot be integrated (null if it can be integrated). */
+    private final String error;
+    /* The body of the auxiliary method (null if the auxiliary method has type parameters). */
+    private final BlockStmt body;
+    /* The names of the variables declared within the body, in the order they are declared. */
+    private final List<String> declaredVariables = new ArrayList<>();
+    /* The name expressions (with the name of a parameter or of a declared variable) and the variable declarators
+       within the body (compared by identity). */
+    private final Set<Node> slots = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private AuxiliaryMethodTemplate(MethodDeclaration method, String error, BlockStmt body) {
+        this.method = method;
+        this.error = error;
+        this.body = body;
+        if (body == null) {
+            return;
+        }
+        // Invalidate the template when the body changes (the nodes already observed are not registered again)
+        body.registerForSubtree(INVALIDATION_OBSERVER);
+        if (error != null) {
+            return;
+        }
+        // Collect the variables declared within the body
+        for (VariableDeclarationExpr varDecl : new VariableDeclarationExprVisitor().visit(body)) {
+            for (VariableDeclarator var : varDecl.getVariables()) {
+                declaredVariables.add(var.getNameAsString());
+                slots.add(var);
+            }
+        }
+        // Collect the occurrences of the parameters and of the declared variables
+        Set<String> names = new HashSet<>(declaredVariables);
+        for (Parameter parameter : method.getParameters()) {
+            names.add(parameter.getNameAsString());
+        }
+        for (NameExpr nameExpr : new NameExprVisitor().visit(body)) {
+            if (names.contains(nameExpr.getNameAsString())) {
+                slots.add(nameExpr);
+            }
+        }
+    }
+
+    /**
+     * Get the template of an auxiliary method, analyzing the auxiliary method the first time (or after its body has
+     * changed). The analysis replaces the return statement at the end of the body (if any) with its expression.
+     *
+     * @param method the auxiliary method
+     * @return the template of the auxiliary method
+     * @throws java.util.NoSuchElementException if the auxiliary method has no body
+     */
+    public static AuxiliaryMethodTemplate of(MethodDeclaration method) {
+        if (method.containsData(TEMPLATE_KEY)) {
+            if (method.getData(TEMPLATE_KEY).method == method) {
+                return method.getData(TEMPLATE_KEY);
+            }
+            // The data of a node is copied to its clones: discard the template of the original auxiliary method
+            method.removeData(TEMPLATE_KEY);
+        }
+        AuxiliaryMethodTemplate template = analyze(method);
+        method.setData(TEMPLATE_KEY, template);
+        return template;
+    }
+
+    /**
+     * Validate the body of an auxiliary method, replacing the return statement at the end of the body (if any) with
+     * its expression.
+     *
+     * @param method the auxiliary method
+     * @return the template of the auxiliary method
+     */
+    private static AuxiliaryMethodTemplate analyze(MethodDeclaration method) {
+        if (method.getTypeParameters().size() > 0) {
+            return new AuxiliaryMethodTemplate(method, "Auxiliary method with type parameters is not supported.", null);
+        }
+        BlockStmt auxBody = method.getBody().get();
+        List<ReturnStmt> returnStmts = new ReturnStmtVisitor().visit(auxBody);
+        if (returnStmts.size() > 1) {
+            return new AuxiliaryMethodTemplate(method, "Multiple return statements in the auxiliary method.", auxBody);
+        }
+        if (returnStmts.size() == 1) {
+            ReturnStmt returnStmt = returnStmts.get(0);
+            Optional<Expression> returnExpr = returnStmt.getExpression();
+            if (returnExpr.isEmpty()) {
+                return new AuxiliaryMethodTemplate(method, "Empty return statement in the auxiliary method.", auxBody);
+            }
+            if (!(auxBody.getStatements().getLast().get() == returnStmt)) {
+                return new AuxiliaryMethodTemplate(method, "Return statement not at the end of the auxiliary method.", auxBody);
+            }
+            auxBody.getStatements().remove(returnStmt);
+            ExpressionStmt returnExprStmt = new ExpressionStmt(returnExpr.get());
+            auxBody.addStatement(returnExprStmt);
+        }
+        return new AuxiliaryMethodTemplate(method, null, auxBody);
+    }
+
+    /**
+     * Invalidate the templates of the auxiliary methods containing a node (the node itself or one of its ancestors),
+     * removing them from the data of the auxiliary methods.
+     *
+     * @param node the node changed
+     */
+    private static void invalidate(Node node) {
+        for (Node n = node; n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof MethodDeclaration && n.containsData(TEMPLATE_KEY)) {
+                n.removeData(TEMPLATE_KEY);
+            }
+        }
+    }
+
+    /**
+     * Get the reason why the auxiliary method cannot be integrated into the test cases.
+     *
+     * @return the reason why the auxiliary method cannot be integrated, or empty if it can be integrated
+     */
+    public Optional<String> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    /**
+     * Get the names of the variables declared within the body of the auxiliary method.
+     *
+     * @return the names of the declared variables, in the order they are declared (a name is repeated if declared
+     * multiple times)
+     */
+    public List<String> getDeclaredVariables() {
+        return Collections.unmodifiableList(declaredVariables);
+    }
+
+    /**
+     * Clone the body of the auxiliary method, to integrate it at an invocation. The parameters are replaced with the
+     * actual arguments (a clone of the corresponding argument) and the variables are renamed while cloning the body,
+     * without traversing the cloned body again. The added statements are prepended to the cloned body: their name
+     * expressions with the name of a parameter are replaced as well, and the variables within the added statements and
+     * within the arguments replacing the parameters are renamed.
+     *
+     * @param addedStatements the statements to add at the beginning of the cloned body
+     * @param paramMapping the mapping of the parameters to replace
+     * @param varMapping the mapping of the variables to rename
+     * @return the cloned body
+     * @throws IllegalStateException if the auxiliary method cannot be integrated
+     */
+    public BlockStmt instantiate(List<Statement> addedStatements, Map<String, Expression> paramMapping, Map<String, String> varMapping) {
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        // The nodes not cloned from the template, whose variables must be renamed
+        List<Node> addedNodes = new ArrayList<>();
+        BlockStmt clonedBody = (BlockStmt) body.accept(new CloneVisitor() {
+            @Override
+            public Visitable visit(NameExpr n, Object arg) {
+                if (!slots.contains(n)) {
+                    return super.visit(n, arg);
+                }
+                if (paramMapping.containsKey(n.getNameAsString())) {
+                    Expression replacement = paramMapping.get(n.getNameAsString()).clone();
+                    addedNodes.add(replacement);
+                    return replacement;
+                }
+                NameExpr r = (NameExpr) super.visit(n, arg);
+                if (varMapping.containsKey(r.getNameAsString())) {
+                    r.setName(varMapping.get(r.getNameAsString()));
+                }
+                return r;
+            }
+
+            @Override
+            public Visitable visit(VariableDeclarator n, Object arg) {
+                VariableDeclarator r = (VariableDeclarator) super.visit(n, arg);
+                if (slots.contains(n) && varMapping.containsKey(r.getNameAsString())) {
+                    r.setName(varMapping.get(r.getNameAsString()));
+                }
+                return r;
+            }
+        }, null);
+        for (Statement addedStatement : addedStatements) {
+            for (NameExpr nameExpr : new NameExprVisitor().visit(addedStatement)) {
+                if (paramMapping.containsKey(nameExpr.getNameAsString())) {
+                    nameExpr.replace(paramMapping.get(nameExpr.getNameAsString()).clone());
+                }
+            }
+            addedNodes.add(addedStatement);
+        }
+        clonedBody.getStatements().addAll(0, addedStatements);
+        if (varMapping.isEmpty()) {
+            return clonedBody;
+        }
+        // Rename the variable declarations and the variable usages within the nodes not cloned from the template
+        for (Node addedNode : addedNodes) {
+            List<VariableDeclarationExpr> varDecls = new ArrayList<>();
+            addedNode.accept(new VariableDeclarationExprVisitor(), varDecls);
+            for (VariableDeclarationExpr varDecl : varDecls) {
+                for (VariableDeclarator var : varDecl.getVariables()) {
+                    if (varMapping.containsKey(var.getNameAsString())) {
+                        var.setName(varMapping.get(var.getNameAsString()));
+                    }
+                }
+            }
+            List<NameExpr> nameExprs = new ArrayList<>();
+            addedNode.accept(new NameExprVisitor(), nameExprs);
+            for (NameExpr nameExpr : nameExprs) {
+                if (varMapping.containsKey(nameExpr.getNameAsString())) {
+                    nameExpr.setName(varMapping.get(nameExpr.getNameAsString()));
+                }
+            }
+        }
+        return clonedBody;
+    }
+}
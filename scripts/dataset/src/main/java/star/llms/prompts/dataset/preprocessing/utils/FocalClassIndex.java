@@ -0,0 +1,92 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import star.llms.prompts.dataset.data.enums.FocalClassMatchingType;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An index of the source classes of a repository, to match each test class with its focal class. The index maps the
+ * normalized path of each source class (according to the {@link FocalClassMatchingType}) to the source class, so that
+ * each test class is matched with a single lookup.
+ */
+public class FocalClassIndex {
+
+    /* The segment of the path that precedes the source classes of a module. */
+    private static final String MAIN_SOURCES_SEGMENT = "/src/main/";
+
+    /* The strategy used to match the test classes with the focal classes. */
+    private final FocalClassMatchingType matchingType;
+    /* The map of the source classes, by normalized path. */
+    private final Map<String, Path> sourceClassPaths;
+
+    /**
+     * Builds the index of the given source classes.
+     *
+     * @param sourceFilePaths the source classes of the repository
+     * @param matchingType the strategy used to match the test classes with the focal classes
+     */
+    public FocalClassIndex(Collection<Path> sourceFilePaths, FocalClassMatchingType matchingType) {
+        this.matchingType = matchingType;
+        this.sourceClassPaths = new HashMap<>(sourceFilePaths.size() * 2);
+        for (Path sourceFilePath : sourceFilePaths) {
+            // If multiple source classes have the same normalized path, the first one is matched
+            sourceClassPaths.putIfAbsent(normalize(sourceFilePath.toString().toLowerCase()), sourceFilePath);
+        }
+    }
+
+    /**
+     * Find the focal class of a test class.
+     *
+     * @param testClassPath the test class path
+     * @return the path of the focal class. An empty optional if no source class matches the test class.
+     */
+    public Optional<Path> findFocalClass(Path testClassPath) {
+        return Optional.ofNullable(sourceClassPaths.get(normalize(testClassPathToSourceClassNormPath(testClassPath).toString())));
+    }
+
+    /**
+     * Normalize the (lower case) path of a source class, according to the matching strategy.
+     *
+     * @param sourceClassNormPath the lower case path of the source class
+     * @return the normalized path of the source class
+     */
+    private String normalize(String sourceClassNormPath) {
+        return switch (matchingType) {
+            case PERFECT -> sourceClassNormPath;
+            case ANY_MODULE -> {
+                int sourcesIndex = sourceClassNormPath.lastIndexOf(MAIN_SOURCES_SEGMENT);
+                yield sourcesIndex == -1 ? sourceClassNormPath : sourceClassNormPath.substring(sourcesIndex);
+            }
+        };
+    }
+
+    /**
+     * Maps the test class path to the expected corresponding source class normalized path.
+     * The normalization is performed transforming the original string into a corresponding
+     * string with only lower case characters.
+     *
+     * @param testClassPath the test class path
+     * @return the corresponding source class path
+     */
+    private static Path testClassPathToSourceClassNormPath(Path testClassPath) {
+        // Normalize the test class path string
+        String testFileNormStr = testClassPath.toString().toLowerCase();
+        // Split the normalized test class path string
+        String[] testFileNormStrSplitted = testFileNormStr.split("/");
+        // Get the test class name
+        String testClassName = testFileNormStrSplitted[testFileNormStrSplitted.length - 1];
+        // Generate the expected corresponding source class name
+        String sourceClassName = testClassName.replace("test", "");
+        // Apply changes to the original test class path to complete the transformation
+        String sourceClassPathStr = testFileNormStr
+                .replace("/src/test/", MAIN_SOURCES_SEGMENT)
+                .replace(testClassName, sourceClassName);
+        // Return the expected corresponding source class path
+        return Paths.get(sourceClassPathStr);
+    }
+}
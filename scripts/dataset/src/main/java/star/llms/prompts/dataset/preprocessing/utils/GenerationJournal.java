@@ -0,0 +1,323 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.GenerationPhase;
+import star.llms.prompts.dataset.utils.FilesUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only journal of the test classes completed in each phase of the generation of the oracles dataset of a
+ * repository. Each line of the journal is a JSON object recording the phase, the test class (relative to the root of
+ * the repository), and the output fragment produced for the test class (null if the phase failed for the test class).
+ * The first line of the journal records a fingerprint of the inputs of the generation (configuration, repository track,
+ * java files of the repository, classpath, and execution mode): a journal with a different fingerprint is discarded,
+ * since its fragments are no longer valid.
+ * <p>
+ * When a generation is restarted (for example, after the JVM has been killed), the journal is read back and the test
+ * classes already completed are skipped, restoring their output fragments. A partially written last line (the JVM died
+ * while appending it) is ignored and truncated. The journal can be written concurrently by multiple workers.
+ * <p>
+ * The output fragments (like the oracles datapoints of a test class) are not kept in memory: the journal only indexes
+ * the position of each entry in the journal file, and reads the entry back from the file when it is requested (only for
+ * the test classes completed by an interrupted execution).
+ */
+public class GenerationJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJournal.class);
+
+    /* The path to the journal file. */
+    private final Path journalPath;
+    /* The object mapper used to (de)serialize the entries of the journal. */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /* The size of the buffer used to scan the journal file. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /* The positions of the entries completed so far in the journal file (restored from a previous execution or
+       recorded in the current one), indexed by phase and test class. */
+    private final Map<Pair<GenerationPhase, String>, Location> entries = new ConcurrentHashMap<>();
+    /* The stream appending the entries to the journal file. */
+    private final OutputStream writer;
+    /* The channel reading the entries back from the journal file. */
+    private final FileChannel reader;
+    /* The size of the journal file (the offset of the next entry appended). */
+    private long size;
+
+    /**
+     * Opens the journal at the given path. If resume is enabled and the journal exists with the same fingerprint, the
+     * entries of the previous execution are restored and the new entries are appended to the existing file. Otherwise,
+     * the journal is (re)created empty.
+     *
+     * @param journalPath the path to the journal file
+     * @param fingerprint the fingerprint of the inputs of the generation
+     * @param resume whether to restore the entries of a previous execution
+     * @throws IOException if an error occurs while reading or creating the journal file
+     */
+    public GenerationJournal(Path journalPath, String fingerprint, boolean resume) throws IOException {
+        this.journalPath = journalPath;
+        long restoredSize = resume && Files.exists(journalPath) ? restore(fingerprint) : -1;
+        FilesUtils.createFile(journalPath);
+        if (restoredSize >= 0) {
+            // Drop the partially written last line (if any), so that the new entries start on a new line
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(restoredSize);
+            }
+            writer = new BufferedOutputStream(Files.newOutputStream(journalPath, StandardOpenOption.APPEND));
+            size = restoredSize;
+            logger.info("Resuming generation from journal {} ({} completed entries)", journalPath, entries.size());
+        } else {
+            entries.clear();
+            writer = new BufferedOutputStream(Files.newOutputStream(journalPath, StandardOpenOption.TRUNCATE_EXISTING));
+            size = 0;
+            append(objectMapper.writeValueAsBytes(new Header(fingerprint)));
+        }
+        reader = FileChannel.open(journalPath, StandardOpenOption.READ);
+    }
+
+    /**
+     * Restore the positions of the entries of the journal file, if its fingerprint matches the given one. The file is
+     * scanned line by line, and each entry is parsed only to index its phase and test class.
+     *
+     * @param fingerprint the fingerprint of the inputs of the current generation
+     * @return the offset of the end of the last complete line of the journal file, or -1 if the journal must be
+     * discarded
+     * @throws IOException if an error occurs while reading the journal file
+     */
+    private long restore(String fingerprint) throws IOException {
+        try (InputStream input = Files.newInputStream(journalPath)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            // The offset of the line being read, and the number of bytes read so far
+            long lineOffset = 0;
+            long position = 0;
+            boolean header = true;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    line.write(buffer, lineStart, i - lineStart);
+                    byte[] lineBytes = line.toByteArray();
+                    line.reset();
+                    if (header) {
+                        if (!matchesFingerprint(lineBytes, fingerprint)) {
+                            return -1;
+                        }
+                        header = false;
+                    } else {
+                        restoreEntry(lineBytes, lineOffset);
+                    }
+                    lineStart = i + 1;
+                    lineOffset = position + lineStart;
+                }
+                line.write(buffer, lineStart, read - lineStart);
+                position += read;
+            }
+            if (header) {
+                return -1;
+            }
+            if (line.size() > 0) {
+                // The last entry has been partially written by an execution that died in the meantime
+                logger.warn("Ignoring truncated entry in journal {}", journalPath);
+            }
+            return lineOffset;
+        }
+    }
+
+    /**
+     * Check if the header of the journal file records the given fingerprint.
+     *
+     * @param headerLine the first line of the journal file
+     * @param fingerprint the fingerprint of the inputs of the current generation
+     * @return true if the header records the given fingerprint, false if the journal must be discarded
+     */
+    private boolean matchesFingerprint(byte[] headerLine, String fingerprint) {
+        Header header;
+        try {
+            header = objectMapper.readValue(headerLine, Header.class);
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable journal {}", journalPath);
+            return false;
+        }
+        if (!fingerprint.equals(header.fingerprint())) {
+            logger.info("Discarding journal {}, generated with different inputs", journalPath);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Index the position of an entry of the journal file.
+     *
+     * @param entryLine the line of the entry
+     * @param offset the offset of the line in the journal file
+     */
+    private void restoreEntry(byte[] entryLine, long offset) {
+        try {
+            Entry entry = objectMapper.readValue(entryLine, Entry.class);
+            entries.put(new Pair<>(entry.phase(), entry.testClass()), new Location(offset, entryLine.length, entry.optionalFragment().isEmpty()));
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable entry in journal {}", journalPath);
+        }
+    }
+
+    /**
+     * Check if there are entries restored from a previous execution (or recorded in the current one).
+     *
+     * @return true if the journal has no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Get the entry recorded for the given phase and test class, if the phase has been completed for the test class.
+     *
+     * @param phase the phase of the generation
+     * @param testClass the path of the test class, relative to the root of the repository
+     * @return the entry of the completed phase. An empty optional if the phase has not been completed for the test class.
+     */
+    public Optional<Entry> getCompleted(GenerationPhase phase, String testClass) {
+        Location location = entries.get(new Pair<>(phase, testClass));
+        if (location == null) {
+            return Optional.empty();
+        }
+        // The phase failed for the test class, there is no fragment to read
+        if (location.failed()) {
+            return Optional.of(new Entry(phase, testClass, null));
+        }
+        try {
+            ByteBuffer entryLine = ByteBuffer.allocate(location.length());
+            while (entryLine.hasRemaining()) {
+                if (reader.read(entryLine, location.offset() + entryLine.position()) == -1) {
+                    throw new EOFException("Unexpected end of file " + journalPath);
+                }
+            }
+            return Optional.of(objectMapper.readValue(entryLine.array(), Entry.class));
+        } catch (IOException e) {
+            // The test class is processed again
+            logger.warn("Unable to read the entry of test class {} ({}) from journal {}", testClass, phase.getPhaseName(), journalPath);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Record the completion of a phase for a test class, appending the entry to the journal file. The entry is flushed
+     * immediately, so that it survives an abrupt termination of the JVM.
+     *
+     * @param phase the phase of the generation
+     * @param testClass the path of the test class, relative to the root of the repository
+     * @param fragment the output fragment produced for the test class (null if the phase failed for the test class)
+     * @throws Error if an error occurs while writing the journal file
+     */
+    public void record(GenerationPhase phase, String testClass, JsonNode fragment) {
+        Entry entry = new Entry(phase, testClass, fragment);
+        try {
+            byte[] entryLine = objectMapper.writeValueAsBytes(entry);
+            long offset = append(entryLine);
+            entries.put(new Pair<>(phase, testClass), new Location(offset, entryLine.length, entry.optionalFragment().isEmpty()));
+        } catch (IOException e) {
+            throw new Error("Error when writing to file " + journalPath, e);
+        }
+    }
+
+    /**
+     * Append a line to the journal file and flush it.
+     *
+     * @param line the line to append (without the line separator)
+     * @return the offset of the line in the journal file
+     * @throws IOException if an error occurs while writing the journal file
+     */
+    private synchronized long append(byte[] line) throws IOException {
+        long offset = size;
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+        size += line.length + 1;
+        return offset;
+    }
+
+    /**
+     * Close the journal and delete the journal file. The method is called once the generation is completed, so that a
+     * new execution generates the dataset from scratch.
+     */
+    public void complete() {
+        close();
+        try {
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            throw new Error("Error when deleting file " + journalPath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+            reader.close();
+        } catch (IOException e) {
+            throw new Error("Error when closing file " + journalPath, e);
+        }
+    }
+
+    /**
+     * The position of an entry in the journal file.
+     *
+     * @param offset the offset of the line of the entry
+     * @param length the length of the line of the entry (in bytes, without the line separator)
+     * @param failed true if the phase failed for the test class (the entry has no output fragment)
+     */
+    private record Location(long offset, int length, boolean failed) {}
+
+    /**
+     * The first line of the journal.
+     *
+     * @param fingerprint the fingerprint of the inputs of the generation
+     */
+    public record Header(
+            @JsonProperty("fingerprint") String fingerprint
+    ) {}
+
+    /**
+     * An entry of the journal, recording the completion of a phase for a test class.
+     *
+     * @param phase the phase of the generation
+     * @param testClass the path of the test class, relative to the root of the repository
+     * @param fragment the output fragment produced for the test class (null if the phase failed for the test class)
+     */
+    public record Entry(
+            @JsonProperty("phase") GenerationPhase phase,
+            @JsonProperty("test-class") String testClass,
+            @JsonProperty("fragment") JsonNode fragment
+    ) {
+
+        /**
+         * Get the output fragment of the entry.
+         *
+         * @return the output fragment. An empty optional if the phase failed for the test class.
+         */
+        public Optional<JsonNode> optionalFragment() {
+            return Optional.ofNullable(fragment).filter(f -> !f.isNull());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The manifest of the last generation of the oracles dataset of a repository, persisted to enable incremental
+ * regenerations. For each test class processed, the manifest records the digest of the test cases tracked for the test
+ * class in the repository track, and the content hashes of the files the oracles datapoints of the test class depend on
+ * (the test class, the focal class, the classes referenced by the test class, and the classes related to them, see
+ * {@link TestUtils#collectTestClassDependencies}).
+ * When the repository (or its track) changes, only the test classes with different tracked test cases or with at least
+ * one changed dependency are processed again, while the outputs of the others are kept from the previous generation.
+ * <p>
+ * The content hashes are computed at most once per generation, and the dependencies must be recorded before the test
+ * classes are processed: a file changed while the generation is running is then detected by the next generation.
+ * <p>
+ * The manifest is bound to a fingerprint of the configuration of the dataset and of the repository track: a manifest
+ * generated with a different configuration or track is discarded, and all the test classes are processed again. The
+ * dependencies of the test classes can be recorded concurrently by multiple workers.
+ */
+public class IncrementalManifest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalManifest.class);
+
+    /* The path to the manifest file. */
+    private final Path manifestPath;
+    /* The path to the root of the repository (the paths in the manifest are relative to it). */
+    private final Path repoRootPath;
+    /* The fingerprint of the configuration of the dataset and of the repository track. */
+    private final String fingerprint;
+    /* The test classes recorded in the previous generation (empty if there is no valid previous manifest). */
+    private final Map<String, TestClassEntry> previousTestClasses;
+    /* The test classes recorded in the current generation. */
+    private final Map<String, TestClassEntry> currentTestClasses = new ConcurrentHashMap<>();
+    /* The content hashes of the files of the repository, computed at most once per generation. */
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+    /* The object mapper used to (de)serialize the manifest. */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Loads the manifest of the previous generation from the given path, if it exists and it has been generated with
+     * the same configuration and repository track.
+     *
+     * @param manifestPath the path to the manifest file
+     * @param repoRootPath the path to the root of the repository
+     * @param fingerprint the fingerprint of the configuration of the dataset and of the repository track
+     */
+    public IncrementalManifest(Path manifestPath, Path repoRootPath, String fingerprint) {
+        this.manifestPath = manifestPath;
+        this.repoRootPath = repoRootPath;
+        this.fingerprint = fingerprint;
+        Map<String, TestClassEntry> testClasses = new HashMap<>();
+        if (Files.exists(manifestPath)) {
+            try {
+                Manifest manifest = objectMapper.readValue(manifestPath.toFile(), Manifest.class);
+                if (fingerprint.equals(manifest.fingerprint())) {
+                    testClasses = manifest.testClasses();
+                } else {
+                    logger.info("Discarding manifest {}, generated with a different configuration", manifestPath);
+                }
+            } catch (IOException e) {
+                logger.warn("Discarding unreadable manifest {}", manifestPath);
+            }
+        }
+        this.previousTestClasses = testClasses;
+    }
+
+    /**
+     * Check if a test class is up-to-date, i.e. it has been processed in the previous generation with the same tracked
+     * test cases, and none of the files it depends on has changed in the meantime.
+     *
+     * @param testClass the path of the test class, relative to the root of the repository
+     * @param trackDigest the digest of the test cases tracked for the test class in the repository track
+     * @return true if the outputs of the test class in the previous generation are still valid, false otherwise
+     */
+    public boolean isUpToDate(String testClass, String trackDigest) {
+        TestClassEntry entry = previousTestClasses.get(testClass);
+        if (entry == null || trackDigest == null || !trackDigest.equals(entry.trackDigest())) {
+            return false;
+        }
+        for (Map.Entry<String, String> dependency : entry.dependencies().entrySet()) {
+            if (!dependency.getValue().equals(contentHash(dependency.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keep the entry of an up-to-date test class in the manifest of the current generation.
+     *
+     * @param testClass the path of the test class, relative to the root of the repository
+     */
+    public void retain(String testClass) {
+        TestClassEntry entry = previousTestClasses.get(testClass);
+        if (entry != null) {
+            currentTestClasses.put(testClass, entry);
+        }
+    }
+
+    /**
+     * Record the dependencies of a test class to process in the current generation, with their current content hashes.
+     * The dependencies must be recorded before the test class is processed.
+     *
+     * @param testClass the path of the test class, relative to the root of the repository
+     * @param trackDigest the digest of the test cases tracked for the test class in the repository track
+     * @param dependencies the paths of the files the test class depends on
+     */
+    public void record(String testClass, String trackDigest, List<Path> dependencies) {
+        HashMap<String, String> dependenciesHashes = new HashMap<>();
+        for (Path dependency : dependencies) {
+            String relativePath = dependency.toString().replace(repoRootPath.toString(), "");
+            dependenciesHashes.put(relativePath, contentHash(relativePath));
+        }
+        currentTestClasses.put(testClass, new TestClassEntry(trackDigest, dependenciesHashes));
+    }
+
+    /**
+     * Write the manifest of the current generation, replacing the previous one.
+     *
+     * @throws Error if an error occurs while writing the manifest file
+     */
+    public void write() {
+        try {
+            FilesUtils.writeJSONFile(manifestPath, objectMapper.writeValueAsString(new Manifest(fingerprint, new HashMap<>(currentTestClasses))));
+        } catch (IOException e) {
+            throw new Error("Error when writing to file " + manifestPath, e);
+        }
+    }
+
+    /**
+     * Get the content hash of a file of the repository. The hash of a file that does not exist (anymore) is an empty
+     * string.
+     *
+     * @param relativePath the path of the file, relative to the root of the repository
+     * @return the content hash of the file (hexadecimal SHA-256 digest)
+     */
+    private String contentHash(String relativePath) {
+        return contentHashes.computeIfAbsent(relativePath, p -> {
+            Path filePath = Path.of(repoRootPath.toString() + p);
+            if (!Files.exists(filePath)) {
+                return "";
+            }
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(filePath)));
+            } catch (IOException e) {
+                throw new Error("Error when reading file " + filePath, e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 algorithm not available.", e);
+            }
+        });
+    }
+
+    /**
+     * The content of the manifest file.
+     *
+     * @param fingerprint the fingerprint of the configuration of the dataset and of the repository track
+     * @param testClasses the test classes processed, indexed by their path relative to the root of the repository
+     */
+    public record Manifest(
+            @JsonProperty("fingerprint") String fingerprint,
+            @JsonProperty("test-classes") HashMap<String, TestClassEntry> testClasses
+    ) {}
+
+    /**
+     * The entry of a test class in the manifest.
+     *
+     * @param trackDigest the digest of the test cases tracked for the test class in the repository track
+     * @param dependencies the content hashes of the files the test class depends on, indexed by their path relative to
+     *                     the root of the repository
+     */
+    public record TestClassEntry(
+            @JsonProperty("track-digest") String trackDigest,
+            @JsonProperty("dependencies") HashMap<String, String> dependencies
+    ) {}
+}
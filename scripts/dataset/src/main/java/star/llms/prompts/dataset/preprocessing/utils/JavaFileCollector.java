@@ -1,13 +1,23 @@
 package star.llms.prompts.dataset.preprocessing.utils;
 
-import star.llms.prompts.dataset.data.enums.NamingConvention;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.JUnitAnnotationType;
 import star.llms.prompts.dataset.utils.FilesUtils;
+import star.llms.prompts.dataset.utils.RepositoryIndex;
 
 import java.io.IOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This class provides static utility methods to collect the different type
@@ -15,6 +25,18 @@ import java.util.List;
  */
 public class JavaFileCollector {
 
+    private static final Logger logger = LoggerFactory.getLogger(JavaFileCollector.class);
+
+    /* The names of the JUnit annotations identifying a test case. */
+    private static final Set<String> TEST_ANNOTATION_NAMES = Arrays.stream(JUnitAnnotationType.values())
+            .map(JUnitAnnotationType::getAnnotationName)
+            .filter(JUnitAnnotationType::isTestAnnotation)
+            .collect(Collectors.toUnmodifiableSet());
+    /* The maximum length of a (qualified) annotation name recognized while scanning the java files. */
+    private static final int MAX_ANNOTATION_NAME_LENGTH = 256;
+    /* The buffer used to read the java files, for each thread scanning them. */
+    private static final ThreadLocal<byte[]> readBuffer = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
     /** Do not instantiate this class. */
     private JavaFileCollector() {
         throw new UnsupportedOperationException("This class cannot be instantiated.");
@@ -22,54 +44,112 @@ public class JavaFileCollector {
 
     /**
      * Process the whole repository to find test files. A file is considered a test file
-     * if it contains the @Test annotation. The method walks the file tree starting from
-     * the root path of the repository and checks each file for the presence of the @Test
+     * if it contains a JUnit test annotation (e.g. @Test). The method walks the file tree starting from
+     * the root path of the repository and checks each file for the presence of a JUnit test
      * annotation. The method returns a list of paths referring to the test files found
      * within the repository, according to the given rule.
      *
      * @param repoRootPath the root path of the repository
-     * @return a list of paths referring to test files
+     * @return an insertion-ordered set of paths referring to test files
      */
-    public static List<Path> collectTestFilePaths(Path repoRootPath) {
-        // Create a list to store the paths of the test files
-        List<Path> testFiles = new ArrayList<>();
-        try {
-            // Walk the file tree starting from the root path
-            // The method includes a visitor that checks if a file is a test file
-            // by looking for the @Test annotation
-            Files.walkFileTree(repoRootPath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.toString().contains(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
-                        return FileVisitResult.SKIP_SUBTREE; // Skip this directory and its subdirectories
+    public static Set<Path> collectTestFilePaths(Path repoRootPath) {
+        return collectTestFilePaths(RepositoryIndex.scan(repoRootPath));
+    }
+
+    /**
+     * Find the test files among the java files of the given repository index. A file is considered a test file if it
+     * contains a JUnit test annotation (see {@link JUnitAnnotationType#isTestAnnotation(String)}), either simple or
+     * qualified (e.g. {@code @Test} or {@code @org.junit.jupiter.api.Test}). The files are scanned in parallel, and the
+     * scan of each file stops at the first test annotation found.
+     *
+     * @param repositoryIndex the index of the repository
+     * @return an insertion-ordered set of paths referring to test files
+     */
+    public static Set<Path> collectTestFilePaths(RepositoryIndex repositoryIndex) {
+        // The parallel stream keeps the order of the java files within the index
+        return repositoryIndex.getJavaFilePaths().parallelStream()
+                .filter(file -> {
+                    try {
+                        return containsTestAnnotation(file);
+                    } catch (IOException e) {
+                        logger.error("Error when reading the java file {}", file, e);
+                        return false;
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    // Check if the file is a Java file
-                    if (file.toString().endsWith(".java")) {
-                        // Read the lines of the file
-                        List<String> lines = Files.readAllLines(file);
-                        // Process each line of the file and check if it contains the @Test annotation
-                        for (String line : lines) {
-                            // If the line contains the @Test annotation, add the file to the list
-                            if (line.contains("@Test") || line.contains("@org.junit.Test") || line.contains("@org.junit.jupiter.api.Test")
-                                    || line.contains("@ParameterizedTest") || line.contains("@org.junit.jupiter.params.ParameterizedTest")) {
-                                testFiles.add(file);
-                                break;
+                })
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Check if a java file contains a JUnit test annotation. The file is read as raw bytes (without decoding them),
+     * and the read stops at the first test annotation found. The annotations are recognized by the {@code @} symbol
+     * followed by a (possibly qualified) name, whose last segment is the name of a JUnit test annotation.
+     *
+     * @param file the java file
+     * @return true if the file contains a JUnit test annotation, false otherwise
+     * @throws IOException if an error occurs while reading the file
+     */
+    public static boolean containsTestAnnotation(Path file) throws IOException {
+        byte[] buffer = readBuffer.get();
+        byte[] annotationName = new byte[MAX_ANNOTATION_NAME_LENGTH];
+        // The length of the annotation name read so far (-1 if the bytes read are not part of an annotation name)
+        int annotationNameLength = -1;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (annotationNameLength >= 0) {
+                        if (isAnnotationNameByte(b)) {
+                            if (annotationNameLength < MAX_ANNOTATION_NAME_LENGTH) {
+                                annotationName[annotationNameLength] = b;
                             }
+                            annotationNameLength++;
+                            continue;
+                        }
+                        // The annotation name is complete
+                        if (isTestAnnotationName(annotationName, annotationNameLength)) {
+                            return true;
                         }
+                        annotationNameLength = -1;
+                    }
+                    if (b == '@') {
+                        annotationNameLength = 0;
                     }
-                    // Continue walking the file tree
-                    return FileVisitResult.CONTINUE;
                 }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
+            }
         }
-        // Return the list of collected test java file paths
-        return testFiles;
+        // The file may end with an annotation name
+        return annotationNameLength >= 0 && isTestAnnotationName(annotationName, annotationNameLength);
+    }
+
+    /**
+     * Check if a byte can be part of a (possibly qualified) annotation name. Only ASCII identifiers are considered,
+     * since the names of the JUnit annotations are ASCII.
+     *
+     * @param b the byte
+     * @return true if the byte can be part of an annotation name, false otherwise
+     */
+    private static boolean isAnnotationNameByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b == '$' || b == '.';
+    }
+
+    /**
+     * Check if a (possibly qualified) annotation name refers to a JUnit test annotation.
+     *
+     * @param annotationName the bytes of the annotation name
+     * @param length the length of the annotation name
+     * @return true if the last segment of the annotation name is the name of a JUnit test annotation, false otherwise
+     */
+    private static boolean isTestAnnotationName(byte[] annotationName, int length) {
+        if (length == 0 || length > MAX_ANNOTATION_NAME_LENGTH) {
+            return false;
+        }
+        // Get the last segment of the qualified name
+        int start = length;
+        while (start > 0 && annotationName[start - 1] != '.') {
+            start--;
+        }
+        return TEST_ANNOTATION_NAMES.contains(new String(annotationName, start, length - start, StandardCharsets.US_ASCII));
     }
 
     /**
@@ -79,10 +159,10 @@ public class JavaFileCollector {
      * The method calls the collectTestFiles method to collect the test files first.
      *
      * @param repoRootPath the root path of the repository
-     * @return a list of paths referring to source files (excluding test files)
+     * @return an insertion-ordered set of paths referring to source files (excluding test files)
      */
-    public static List<Path> collectSourceFilePaths(Path repoRootPath) {
-        List<Path> testFiles = JavaFileCollector.collectTestFilePaths(repoRootPath);
+    public static Set<Path> collectSourceFilePaths(Path repoRootPath) {
+        Set<Path> testFiles = JavaFileCollector.collectTestFilePaths(repoRootPath);
         return JavaFileCollector.collectSourceFilePaths(repoRootPath, testFiles);
     }
 
@@ -92,40 +172,31 @@ public class JavaFileCollector {
      * the .java extension. The method excludes test files from the list of source files.
      *
      * @param repoRootPath the root path of the repository
-     * @param testFiles a list of paths referring to test files
-     * @return a list of paths referring to source files (excluding test files)
+     * @param testFiles a collection of paths referring to test files
+     * @return an insertion-ordered set of paths referring to source files (excluding test files)
      */
-    public static List<Path> collectSourceFilePaths(Path repoRootPath, List<Path> testFiles) {
+    public static Set<Path> collectSourceFilePaths(Path repoRootPath, Collection<Path> testFiles) {
+        return collectSourceFilePaths(RepositoryIndex.scan(repoRootPath), testFiles);
+    }
+
+    /**
+     * Collect all non-test Java files among the java files of the given repository index. The method excludes test
+     * files from the list of source files.
+     *
+     * @param repositoryIndex the index of the repository
+     * @param testFiles a collection of paths referring to test files
+     * @return an insertion-ordered set of paths referring to source files (excluding test files)
+     */
+    public static Set<Path> collectSourceFilePaths(RepositoryIndex repositoryIndex, Collection<Path> testFiles) {
+        // Hash the test files, to classify each java file in constant time
+        Set<Path> testFilesSet = testFiles instanceof Set<Path> set ? set : new HashSet<>(testFiles);
         // Collect all non-test Java files
-        List<Path> srcFiles = new ArrayList<>();
-        // Collect all source java files (excluding test files)
-        try {
-            // Walk the file tree starting from the root path
-            // The method includes a visitor that checks if a file is a source file
-            // by looking for the .java extension and excluding test files
-            Files.walkFileTree(repoRootPath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.toString().contains(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
-                        return FileVisitResult.SKIP_SUBTREE; // Skip this directory and its subdirectories
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    // Check if the file is a Java file
-                    if (file.toString().endsWith(".java")) {
-                        // If the file is not a test file, add it to the list
-                        if (!testFiles.contains(file) && !file.toString().contains("src/test")) {
-                            srcFiles.add(file);
-                        }
-                    }
-                    // Continue walking the file tree
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
+        Set<Path> srcFiles = new LinkedHashSet<>();
+        for (Path file : repositoryIndex.getJavaFilePaths()) {
+            // If the file is not a test file, add it to the set
+            if (!testFilesSet.contains(file) && !file.toString().contains("src/test")) {
+                srcFiles.add(file);
+            }
         }
         // Return the list of collected source java file paths
         return srcFiles;
@@ -137,41 +208,20 @@ public class JavaFileCollector {
      * the .java extension.
      *
      * @param repoRootPath the root path of the repository
-     * @return a list of paths referring to all Java files
+     * @return an insertion-ordered set of paths referring to all Java files
      */
-    public static List<Path> collectAllJavaFilePaths(Path repoRootPath) {
-        // Collect all Java files
-        List<Path> javaFilesourceFilePaths = new ArrayList<>();
-        // Collect all source java files (excluding test files)
-        try {
-            // Walk the file tree starting from the root path
-            // The method includes a visitor that checks if a file is a java file
-            // by looking for the .java extension
-            Files.walkFileTree(repoRootPath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.toString().contains(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
-                        return FileVisitResult.SKIP_SUBTREE; // Skip this directory and its subdirectories
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
+    public static Set<Path> collectAllJavaFilePaths(Path repoRootPath) {
+        return collectAllJavaFilePaths(RepositoryIndex.scan(repoRootPath));
+    }
 
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    // Check if the file is a Java file
-                    if (file.toString().endsWith(".java")) {
-                        // If the file is a java file, add it to the list
-                        javaFilesourceFilePaths.add(file);
-                    }
-                    // Continue walking the file tree
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        // Return the list of collected source java file paths
-        return javaFilesourceFilePaths;
+    /**
+     * Collect all Java files of the given repository index.
+     *
+     * @param repositoryIndex the index of the repository
+     * @return an insertion-ordered set of paths referring to all Java files
+     */
+    public static Set<Path> collectAllJavaFilePaths(RepositoryIndex repositoryIndex) {
+        return new LinkedHashSet<>(repositoryIndex.getJavaFilePaths());
     }
 
     /**
@@ -184,38 +234,25 @@ public class JavaFileCollector {
      * @param repoRootPath the root path of the repository
      */
     public static void cleanRepository(Path repoRootPath, Path outputPath) {
-        // Collect all source java files (excluding test files)
-        try {
-            // Walk the file tree starting from the root path
-            // The method includes a visitor that checks if a file is a file generated by the OraclesDataset program,
-            // looking for the star.llms.prompts.dataset.data.NamingConvention.TEST_SPLIT_FILE convention
-            Files.walkFileTree(repoRootPath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.toString().contains(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
-                        return FileVisitResult.SKIP_SUBTREE; // Skip this directory and its subdirectories
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
+        cleanRepository(RepositoryIndex.scan(repoRootPath), outputPath);
+    }
 
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    // Check if the file is a file generated by the OraclesDataset program
-                    if (file.toString().endsWith(NamingConvention.TEST_SPLIT_FILE.getConventionName()) ||
-                            file.toString().endsWith(NamingConvention.NORMALIZED_TEST_FILE.getConventionName())) {
-                        // Delete the file
-                        try {
-                            Files.delete(file);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    // Continue walking the file tree
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Clean the repository by removing all files generated in a previous execution of the
+     * {@link star.llms.prompts.dataset.preprocessing.OraclesDataset} program, as listed in the given repository index.
+     *
+     * @param repositoryIndex the index of the repository
+     * @param outputPath the output path of the program
+     */
+    public static void cleanRepository(RepositoryIndex repositoryIndex, Path outputPath) {
+        Path repoRootPath = repositoryIndex.getRepoRootPath();
+        // Delete the files generated by the OraclesDataset program
+        for (Path file : repositoryIndex.getGeneratedFilePaths()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
         // Delete the output directory
         try {
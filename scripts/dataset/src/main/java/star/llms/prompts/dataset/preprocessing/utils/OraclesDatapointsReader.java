@@ -0,0 +1,217 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class provides static utility methods to read the chunk files of the oracles datapoints written by
+ * {@link OraclesDatapointsWriter}, in any of the supported formats. The chunk files are read in a streaming fashion,
+ * one test class at a time. The references to the records table of a chunk file (if the records were deduplicated) are
+ * resolved transparently, so that the consumers always receive the original oracles datapoints.
+ */
+public class OraclesDatapointsReader {
+
+    /* The extensions of the chunk files, in the json and jsonl-gzip formats. */
+    private static final List<String> CHUNK_EXTENSIONS = List.of(".json", ".jsonl.gz");
+
+    /** Do not instantiate this class. */
+    private OraclesDatapointsReader() {
+        throw new UnsupportedOperationException("This class cannot be instantiated.");
+    }
+
+    /**
+     * List the chunk files of the oracles datapoints within the given directory, following the order of the chunks.
+     *
+     * @param chunksPath the directory containing the chunk files of a project
+     * @return the list of chunk files (empty if the directory does not exist)
+     * @throws IOException if an error occurs while listing the directory
+     */
+    public static List<Path> listChunkFiles(Path chunksPath) throws IOException {
+        if (!Files.exists(chunksPath)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.list(chunksPath)) {
+            return stream
+                    .filter(chunkPath -> chunkPath.getFileName().toString().startsWith("oracles-datapoints-"))
+                    .filter(chunkPath -> chunkBaseName(chunkPath.getFileName().toString()) != null)
+                    .sorted(Comparator.comparingInt(OraclesDatapointsReader::chunkIndex))
+                    .toList();
+        }
+    }
+
+    /**
+     * Read the oracles datapoints of each test class within a chunk file, passing them to the given consumer. The format
+     * of the chunk file is inferred from its extension. If the chunk file has a records table, the references to the
+     * records are replaced with (a copy of) the records.
+     *
+     * @param chunkPath the chunk file to read
+     * @param objectMapper the object mapper used to parse the oracles datapoints
+     * @param consumer the consumer of the oracles datapoints of each test class (as a JSON tree)
+     * @throws IOException if an error occurs while reading the chunk file
+     */
+    public static void forEachTestClass(Path chunkPath, ObjectMapper objectMapper, Consumer<JsonNode> consumer) throws IOException {
+        Map<String, JsonNode> records = readRecordsTable(chunkPath, objectMapper);
+        if (!records.isEmpty()) {
+            consumer = rehydrating(chunkPath, records, consumer);
+        }
+        if (chunkPath.toString().endsWith(".jsonl.gz")) {
+            // The gzip members of the chunk file are decompressed as a single gzip stream
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(chunkPath)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        consumer.accept(objectMapper.readTree(line));
+                    }
+                }
+            }
+        } else {
+            try (JsonParser parser = objectMapper.getFactory().createParser(chunkPath.toFile())) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a JSON array of oracles datapoints in " + chunkPath);
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    consumer.accept(objectMapper.readTree(parser));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the path of the records table of a chunk file ({@code oracles-datapoints-[project]-[n].records.jsonl}, with
+     * the {@code .gz} extension if the chunk file is compressed).
+     *
+     * @param chunkPath the chunk file
+     * @return the path of the records table of the chunk file
+     */
+    static Path recordsTablePath(Path chunkPath) {
+        String chunkName = chunkPath.getFileName().toString();
+        return chunkPath.resolveSibling(chunkBaseName(chunkName) + ".records.jsonl" + (chunkName.endsWith(".gz") ? ".gz" : ""));
+    }
+
+    /**
+     * Read the records table of a chunk file.
+     *
+     * @param chunkPath the chunk file
+     * @param objectMapper the object mapper used to parse the records
+     * @return the map of the records, by id (empty if the chunk file has no records table)
+     * @throws IOException if an error occurs while reading the records table
+     */
+    private static Map<String, JsonNode> readRecordsTable(Path chunkPath, ObjectMapper objectMapper) throws IOException {
+        Path recordsPath = recordsTablePath(chunkPath);
+        Map<String, JsonNode> records = new HashMap<>();
+        if (!Files.exists(recordsPath)) {
+            return records;
+        }
+        InputStream inputStream = Files.newInputStream(recordsPath);
+        if (recordsPath.toString().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    OraclesDatapointsWriter.RecordsTableEntry entry = objectMapper.readValue(line, OraclesDatapointsWriter.RecordsTableEntry.class);
+                    records.put(entry.id(), entry.record());
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Wrap a consumer of the oracles datapoints of a test class, resolving the references to the records table of the
+     * chunk file before passing the oracles datapoints to it.
+     *
+     * @param chunkPath the chunk file
+     * @param records the map of the records of the chunk file, by id
+     * @param consumer the consumer of the oracles datapoints of each test class
+     * @return the consumer resolving the references
+     * @throws IllegalStateException if a reference to a record not in the records table is found
+     */
+    private static Consumer<JsonNode> rehydrating(Path chunkPath, Map<String, JsonNode> records, Consumer<JsonNode> consumer) {
+        return testClassOracleDatapoints -> consumer.accept(rehydrate(chunkPath, testClassOracleDatapoints, records));
+    }
+
+    /**
+     * Replace the references to the records table within a JSON tree with (a copy of) the records.
+     *
+     * @param chunkPath the chunk file
+     * @param node the JSON tree
+     * @param records the map of the records of the chunk file, by id
+     * @return the JSON tree without references
+     * @throws IllegalStateException if a reference to a record not in the records table is found
+     */
+    private static JsonNode rehydrate(Path chunkPath, JsonNode node, Map<String, JsonNode> records) {
+        if (node instanceof ObjectNode objectNode) {
+            if (objectNode.size() == 1 && objectNode.has(OraclesDatapointsWriter.REFERENCE_FIELD)) {
+                String id = objectNode.get(OraclesDatapointsWriter.REFERENCE_FIELD).asText();
+                JsonNode record = records.get(id);
+                if (record == null) {
+                    throw new IllegalStateException("Record " + id + " not found in the records table of " + chunkPath);
+                }
+                return record.deepCopy();
+            }
+            List<String> fieldNames = new ArrayList<>();
+            objectNode.fieldNames().forEachRemaining(fieldNames::add);
+            for (String fieldName : fieldNames) {
+                objectNode.set(fieldName, rehydrate(chunkPath, objectNode.get(fieldName), records));
+            }
+        } else if (node instanceof ArrayNode arrayNode) {
+            for (int i = 0; i < arrayNode.size(); i++) {
+                arrayNode.set(i, rehydrate(chunkPath, arrayNode.get(i), records));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Get the index of a chunk file from its name ({@code oracles-datapoints-[project]-[n].[extension]}).
+     *
+     * @param chunkPath the chunk file
+     * @return the index of the chunk file
+     */
+    private static int chunkIndex(Path chunkPath) {
+        String chunkBaseName = chunkBaseName(chunkPath.getFileName().toString());
+        return Integer.parseInt(chunkBaseName.substring(chunkBaseName.lastIndexOf('-') + 1));
+    }
+
+    /**
+     * Get the name of a chunk file without its extension ({@code oracles-datapoints-[project]-[n]}). Only the known
+     * extensions are removed from the end of the name, since the project identifier may contain dots.
+     *
+     * @param chunkName the name of the chunk file
+     * @return the name of the chunk file without its extension, or null if the file is not a chunk file (for example,
+     * a records table or a block index)
+     */
+    private static String chunkBaseName(String chunkName) {
+        if (chunkName.endsWith(".records.jsonl") || chunkName.endsWith(".records.jsonl.gz")) {
+            return null;
+        }
+        for (String extension : CHUNK_EXTENSIONS) {
+            if (chunkName.endsWith(extension)) {
+                return chunkName.substring(0, chunkName.length() - extension.length());
+            }
+        }
+        return null;
+    }
+}
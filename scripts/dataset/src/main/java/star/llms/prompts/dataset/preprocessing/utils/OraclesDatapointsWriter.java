@@ -0,0 +1,413 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.OutputFormatType;
+import star.llms.prompts.dataset.utils.FilesUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the oracles datapoints of the test classes of a project to chunk files, as soon as they are generated. A new
+ * chunk file is started once the current one reaches the maximum size, so that only the oracles datapoints of a single
+ * test class are held in memory at a time. The format of the chunk files depends on the {@link OutputFormatType}:
+ * <ul>
+ *     <li>{@code json}: each chunk file ({@code oracles-datapoints-[project]-[n].json}) contains a JSON array of oracles
+ *     datapoints of test classes.</li>
+ *     <li>{@code jsonl-gzip}: each chunk file ({@code oracles-datapoints-[project]-[n].jsonl.gz}) contains one line for
+ *     each test class, compressed in blocks. Each block is an independent gzip member, so the chunk file can be read as a
+ *     single gzip stream, or each block can be decompressed on its own (in parallel). The offsets of the blocks are
+ *     listed in a sidecar index file ({@code oracles-datapoints-[project]-[n].jsonl.gz.idx}).</li>
+ * </ul>
+ * If the deduplication of the records is enabled, the methods and constructors of the test class and of the focal class,
+ * and the methods invoked within the test prefixes, are replaced by a reference ({@code {"$ref": "[id]"}}) to a records
+ * table of the chunk file ({@code oracles-datapoints-[project]-[n].records.jsonl}, compressed with gzip in the
+ * jsonl-gzip format). The id of a record is the hash of its content, and each record is written to the records table
+ * only once, the first time it occurs within the chunk file. The references are resolved transparently by
+ * {@link OraclesDatapointsReader}.
+ * <p>
+ * The chunk files are written to a staging directory, moved to the output directory of the project only when the
+ * writer is completed (see {@link #complete()}). In this way, the chunk files of a previous generation are replaced at
+ * once, and the output of an interrupted generation never mixes with the output of a previous one. Closing a writer
+ * that has not been completed (for example, because the generation failed) releases the chunk files being written and
+ * discards them.
+ */
+public class OraclesDatapointsWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OraclesDatapointsWriter.class);
+
+    /* The uncompressed size of a block of JSON lines (1 MB), in the jsonl-gzip format. */
+    private static final int BLOCK_SIZE_BYTES = 1024 * 1024;
+    /* The number of bytes of the content hash used as the id of a record (128 bits). */
+    private static final int RECORD_ID_BYTES = 16;
+    /* The name of the field of a reference to a record of the records table. */
+    public static final String REFERENCE_FIELD = "$ref";
+
+    /* The output directory of the chunk files of the project. */
+    private final Path outputPath;
+    /* The staging directory of the chunk files, while they are written. */
+    private final Path stagingPath;
+    /* The identifier of the project. */
+    private final String projectIdentifier;
+    /* The object mapper used to serialize the oracles datapoints. */
+    private final ObjectMapper objectMapper;
+    /* The format of the chunk files. */
+    private final OutputFormatType outputFormat;
+    /* The maximum size of a chunk file (in bytes). A chunk exceeds the limit only by the last test class written. */
+    private final long maxChunkSizeBytes;
+    /* Boolean flag for the deduplication of the records within each chunk file. */
+    private final boolean deduplicateRecords;
+    /* The message digest used to compute the ids of the records. */
+    private final MessageDigest recordDigest;
+    /* The number of chunk files written so far. */
+    private int chunkCounter = 0;
+    /* The path of the current chunk file (null if no chunk file is open). */
+    private Path chunkPath;
+    /* The output stream of the current chunk file (null if no chunk file is open). */
+    private CountingOutputStream chunkOutputStream;
+    /* The JSON generator of the current chunk file, in the json format (null if no chunk file is open). */
+    private JsonGenerator chunkGenerator;
+    /* The JSON lines of the current block, in the jsonl-gzip format. */
+    private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+    /* The number of JSON lines of the current block, in the jsonl-gzip format. */
+    private int blockRecords = 0;
+    /* The index of the blocks of the current chunk file, in the jsonl-gzip format. */
+    private final List<BlockIndexEntry> blockIndex = new ArrayList<>();
+    /* The output stream of the records table of the current chunk file (null if the records are not deduplicated). */
+    private OutputStream recordsOutputStream;
+    /* The ids of the records already written to the records table of the current chunk file. */
+    private final Set<String> writtenRecordIds = new HashSet<>();
+    /* The number of test classes written. */
+    private int testClassesWritten = 0;
+    /* The number of oracles datapoints written. */
+    private int datapointsWritten = 0;
+    /* True once the writer has been completed or closed. */
+    private boolean closed = false;
+
+    /**
+     * Creates a writer of the chunk files of a project.
+     *
+     * @param outputPath the output directory of the chunk files of the project
+     * @param projectIdentifier the identifier of the project
+     * @param objectMapper the object mapper used to serialize the oracles datapoints
+     * @param outputFormat the format of the chunk files
+     * @param maxChunkSizeBytes the maximum size of a chunk file (in bytes, compressed if the format is compressed). The
+     *                          records table of the chunk file is not included in its size.
+     * @param deduplicateRecords a boolean flag to replace the repeated records with references to the records table of
+     *                           the chunk file
+     */
+    public OraclesDatapointsWriter(Path outputPath, String projectIdentifier, ObjectMapper objectMapper, OutputFormatType outputFormat, long maxChunkSizeBytes, boolean deduplicateRecords) {
+        this.outputPath = outputPath;
+        this.stagingPath = outputPath.resolveSibling(outputPath.getFileName() + ".partial");
+        this.projectIdentifier = projectIdentifier;
+        this.objectMapper = objectMapper;
+        this.outputFormat = outputFormat;
+        this.maxChunkSizeBytes = maxChunkSizeBytes;
+        this.deduplicateRecords = deduplicateRecords;
+        try {
+            this.recordDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available.", e);
+        }
+        // Remove the chunk files left by an interrupted generation
+        FilesUtils.deleteDirectory(stagingPath);
+        FilesUtils.createDirectories(stagingPath);
+    }
+
+    /**
+     * Write the oracles datapoints of a test class to the current chunk file, starting a new chunk file if the current
+     * one reached the maximum size.
+     *
+     * @param testClassOracleDatapoints the oracles datapoints of the test class (as a JSON tree)
+     * @throws Error if an error occurs while writing the chunk file
+     */
+    public synchronized void write(JsonNode testClassOracleDatapoints) {
+        try {
+            if (chunkOutputStream != null && chunkOutputStream.getCount() >= maxChunkSizeBytes) {
+                closeChunk();
+            }
+            if (chunkOutputStream == null) {
+                openChunk();
+            }
+            // The records are replaced in a copy of the tree, leaving the given one unchanged
+            JsonNode testClassOracleDatapointsToWrite = deduplicateRecords ? deduplicate(testClassOracleDatapoints.deepCopy()) : testClassOracleDatapoints;
+            if (outputFormat == OutputFormatType.JSONL_GZIP) {
+                blockBuffer.write(objectMapper.writeValueAsBytes(testClassOracleDatapointsToWrite));
+                blockBuffer.write('\n');
+                blockRecords++;
+                if (blockBuffer.size() >= BLOCK_SIZE_BYTES) {
+                    flushBlock();
+                }
+            } else {
+                // The generator is flushed after each value, so that the size of the chunk file is always up-to-date
+                objectMapper.writeValue(chunkGenerator, testClassOracleDatapointsToWrite);
+            }
+        } catch (IOException e) {
+            throw new Error("Error when writing the oracles datapoints to " + stagingPath, e);
+        }
+        testClassesWritten++;
+        datapointsWritten += testClassOracleDatapoints.get("datapoints").size();
+    }
+
+    public int getTestClassesWritten() {
+        return testClassesWritten;
+    }
+
+    public int getDatapointsWritten() {
+        return datapointsWritten;
+    }
+
+    /**
+     * Start a new chunk file in the staging directory.
+     *
+     * @throws IOException if an error occurs while creating the chunk file
+     */
+    private void openChunk() throws IOException {
+        String extension = outputFormat == OutputFormatType.JSONL_GZIP ? "jsonl.gz" : "json";
+        chunkPath = stagingPath.resolve(String.format("oracles-datapoints-%s-%d.%s", projectIdentifier, chunkCounter++, extension));
+        chunkOutputStream = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(chunkPath)));
+        if (outputFormat == OutputFormatType.JSON) {
+            chunkGenerator = objectMapper.getFactory().createGenerator(chunkOutputStream, JsonEncoding.UTF8);
+            chunkGenerator.writeStartArray();
+        }
+        if (deduplicateRecords) {
+            OutputStream recordsFileOutputStream = new BufferedOutputStream(Files.newOutputStream(OraclesDatapointsReader.recordsTablePath(chunkPath)));
+            recordsOutputStream = outputFormat == OutputFormatType.JSONL_GZIP ? new GZIPOutputStream(recordsFileOutputStream) : recordsFileOutputStream;
+        }
+    }
+
+    /**
+     * Replace the methods and constructors of the test class and of the focal class, and the methods invoked within the
+     * test prefixes, with references to the records table of the current chunk file.
+     *
+     * @param testClassOracleDatapoints the oracles datapoints of the test class (as a JSON tree). The tree is modified.
+     * @return the oracles datapoints of the test class, with the references to the records
+     * @throws IOException if an error occurs while writing the records table
+     */
+    private JsonNode deduplicate(JsonNode testClassOracleDatapoints) throws IOException {
+        replaceWithReferences(testClassOracleDatapoints.get("testClass"), "auxiliaryMethods", "setupTearDownMethods", "testCases");
+        replaceWithReferences(testClassOracleDatapoints.get("focalClass"), "constructors", "methods");
+        for (JsonNode datapoint : testClassOracleDatapoints.get("datapoints")) {
+            replaceWithReferences(datapoint.get("testPrefix"), "invokedMethods");
+        }
+        return testClassOracleDatapoints;
+    }
+
+    /**
+     * Replace each record of the given array fields of a JSON object with a reference to the records table of the
+     * current chunk file.
+     *
+     * @param jsonObject the JSON object containing the arrays of records. Can be null.
+     * @param fieldNames the names of the array fields
+     * @throws IOException if an error occurs while writing the records table
+     */
+    private void replaceWithReferences(JsonNode jsonObject, String... fieldNames) throws IOException {
+        if (jsonObject == null || !jsonObject.isObject()) {
+            return;
+        }
+        for (String fieldName : fieldNames) {
+            if (jsonObject.get(fieldName) instanceof ArrayNode records) {
+                for (int i = 0; i < records.size(); i++) {
+                    if (records.get(i).isObject()) {
+                        records.set(i, reference(records.get(i)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the reference to a record, writing the record to the records table of the current chunk file if it has not
+     * been written yet.
+     *
+     * @param record the record
+     * @return the reference to the record
+     * @throws IOException if an error occurs while writing the records table
+     */
+    private JsonNode reference(JsonNode record) throws IOException {
+        // The id of the record is the hash of its serialized content
+        String id = HexFormat.of().formatHex(recordDigest.digest(objectMapper.writeValueAsBytes(record)), 0, RECORD_ID_BYTES);
+        if (writtenRecordIds.add(id)) {
+            recordsOutputStream.write(objectMapper.writeValueAsBytes(new RecordsTableEntry(id, record)));
+            recordsOutputStream.write('\n');
+        }
+        ObjectNode reference = objectMapper.createObjectNode();
+        reference.put(REFERENCE_FIELD, id);
+        return reference;
+    }
+
+    /**
+     * Compress the JSON lines of the current block as an independent gzip member of the current chunk file, and record
+     * the block in the index of the chunk file.
+     *
+     * @throws IOException if an error occurs while writing the chunk file
+     */
+    private void flushBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        long offset = chunkOutputStream.getCount();
+        GzipMemberOutputStream gzipOutputStream = new GzipMemberOutputStream(chunkOutputStream);
+        blockBuffer.writeTo(gzipOutputStream);
+        gzipOutputStream.finishMember();
+        blockIndex.add(new BlockIndexEntry(offset, chunkOutputStream.getCount() - offset, blockRecords));
+        blockBuffer.reset();
+        blockRecords = 0;
+    }
+
+    /**
+     * Complete the current chunk file (and its index, in the jsonl-gzip format).
+     *
+     * @throws IOException if an error occurs while writing the chunk file
+     */
+    private void closeChunk() throws IOException {
+        if (outputFormat == OutputFormatType.JSONL_GZIP) {
+            flushBlock();
+            chunkOutputStream.close();
+            objectMapper.writeValue(chunkPath.resolveSibling(chunkPath.getFileName() + ".idx").toFile(), blockIndex);
+            blockIndex.clear();
+        } else {
+            chunkGenerator.writeEndArray();
+            chunkGenerator.close();
+            chunkGenerator = null;
+        }
+        if (recordsOutputStream != null) {
+            recordsOutputStream.close();
+            recordsOutputStream = null;
+            writtenRecordIds.clear();
+        }
+        chunkOutputStream = null;
+        chunkPath = null;
+    }
+
+    /**
+     * Complete the last chunk file and replace the chunk files of the output directory with the ones written.
+     *
+     * @throws Error if an error occurs while writing or moving the chunk files
+     */
+    public synchronized void complete() {
+        try {
+            if (chunkOutputStream != null) {
+                closeChunk();
+            }
+            closed = true;
+            FilesUtils.deleteDirectory(outputPath);
+            Files.move(stagingPath, outputPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new Error("Error when moving the oracles datapoints to " + outputPath, e);
+        }
+    }
+
+    /**
+     * Release the chunk files being written, if the writer has not been completed, and discard them (the chunk files of
+     * the output directory are left untouched).
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Closeable stream : new Closeable[]{chunkGenerator, chunkOutputStream, recordsOutputStream}) {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    logger.warn("Error when closing a chunk file in {}", stagingPath, e);
+                }
+            }
+        }
+        FilesUtils.deleteDirectory(stagingPath);
+    }
+
+    /**
+     * An entry of the index of the blocks of a chunk file, in the jsonl-gzip format.
+     *
+     * @param offset the offset of the block (gzip member) within the chunk file, in bytes
+     * @param length the compressed length of the block, in bytes
+     * @param records the number of JSON lines (test classes) within the block
+     */
+    public record BlockIndexEntry(
+            @JsonProperty("offset") long offset,
+            @JsonProperty("length") long length,
+            @JsonProperty("records") int records
+    ) {}
+
+    /**
+     * An entry (a line) of the records table of a chunk file.
+     *
+     * @param id the id of the record (the hash of its content)
+     * @param record the record
+     */
+    public record RecordsTableEntry(
+            @JsonProperty("id") String id,
+            @JsonProperty("record") JsonNode record
+    ) {}
+
+    /**
+     * An output stream counting the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        /* The number of bytes written. */
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * A gzip output stream writing a single gzip member to the underlying stream, without closing it.
+     */
+    private static class GzipMemberOutputStream extends GZIPOutputStream {
+
+        GzipMemberOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        /**
+         * Write the trailer of the gzip member and release the compressor, leaving the underlying stream open.
+         *
+         * @throws IOException if an error occurs while writing the trailer
+         */
+        void finishMember() throws IOException {
+            finish();
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import star.llms.prompts.dataset.data.records.RepositoryTrack;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An index of the test cases tracked in a {@link RepositoryTrack}. The index maps the relative path of each tracked
+ * test class to its tracked test cases, indexed in turn by name and normalized body, so that both the tracked test
+ * cases of a test class and the match of a test case with the tracked ones are found with constant-time lookups.
+ */
+public class RepositoryTrackIndex {
+
+    /* The pattern of the whitespaces, removed from the signatures and collapsed in the bodies of the test cases. */
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    /* The path to the root of the repository. */
+    private final Path repoRootPath;
+    /* The tracked test cases of each test class, by relative path of the test class. */
+    private final Map<String, TrackedTestCases> trackedTestClasses = new HashMap<>();
+
+    /**
+     * Builds the index of the test cases tracked in the given repository track.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param repoTrack the repository track
+     */
+    public RepositoryTrackIndex(Path repoRootPath, RepositoryTrack repoTrack) {
+        this.repoRootPath = repoRootPath;
+        for (Map.Entry<String, List<RepositoryTrack.TestCase>> testClassRepoTrack : repoTrack.track().entrySet()) {
+            trackedTestClasses.put(relativePath(testClassRepoTrack.getKey()), new TrackedTestCases(testClassRepoTrack.getValue()));
+        }
+    }
+
+    /**
+     * Get the tracked test cases of a test class.
+     *
+     * @param testClassPath the path to the test class
+     * @return the tracked test cases of the test class (empty if the test class is not tracked)
+     */
+    public TrackedTestCases getTrackedTestCases(Path testClassPath) {
+        TrackedTestCases trackedTestCases = trackedTestClasses.get(repoRootPath.relativize(testClassPath).normalize().toString());
+        return trackedTestCases == null ? TrackedTestCases.EMPTY : trackedTestCases;
+    }
+
+    /**
+     * Normalize the path of a test class tracked in the repository track (relative to the root of the repository, with
+     * or without a leading separator).
+     *
+     * @param trackedPath the path of the test class in the repository track
+     * @return the normalized relative path of the test class
+     */
+    private static String relativePath(String trackedPath) {
+        String relativePath = trackedPath;
+        while (relativePath.startsWith("/")) {
+            relativePath = relativePath.substring(1);
+        }
+        return Paths.get(relativePath).normalize().toString();
+    }
+
+    /**
+     * The tracked test cases of a test class, indexed by name and normalized body.
+     */
+    public static class TrackedTestCases {
+
+        /* The tracked test cases of a test class that is not tracked. */
+        static final TrackedTestCases EMPTY = new TrackedTestCases(List.of());
+
+        /* The normalized signatures of the tracked test cases, by name and normalized body. */
+        private final Map<String, Map<String, List<String>>> signatures = new HashMap<>();
+
+        TrackedTestCases(List<RepositoryTrack.TestCase> testCases) {
+            for (RepositoryTrack.TestCase testCase : testCases) {
+                // The test cases without body cannot be matched
+                if (testCase.name() != null && testCase.signature() != null && testCase.body() != null) {
+                    signatures.computeIfAbsent(testCase.name(), name -> new HashMap<>())
+                            .computeIfAbsent(normalizeBody(testCase.body()), body -> new ArrayList<>())
+                            .add(normalizeSignature(testCase.signature()));
+                }
+            }
+        }
+
+        /**
+         * Check if a test case is tracked: a tracked test case must have the same name and the same body (ignoring the
+         * differences in the whitespaces), and its signature must contain the signature of the test case (ignoring the
+         * whitespaces).
+         *
+         * @param name the name of the test case
+         * @param signature the signature of the test case
+         * @param body the body of the test case
+         * @return true if the test case is tracked, false otherwise
+         */
+        public boolean contains(String name, String signature, String body) {
+            Map<String, List<String>> signaturesByBody = signatures.get(name);
+            if (signaturesByBody == null) {
+                return false;
+            }
+            List<String> trackedSignatures = signaturesByBody.get(normalizeBody(body));
+            if (trackedSignatures == null) {
+                return false;
+            }
+            String normalizedSignature = normalizeSignature(signature);
+            for (String trackedSignature : trackedSignatures) {
+                if (trackedSignature.contains(normalizedSignature)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isEmpty() {
+            return signatures.isEmpty();
+        }
+
+        private static String normalizeSignature(String signature) {
+            return WHITESPACES.matcher(signature).replaceAll("");
+        }
+
+        private static String normalizeBody(String body) {
+            return WHITESPACES.matcher(body).replaceAll(" ").trim();
+        }
+    }
+}
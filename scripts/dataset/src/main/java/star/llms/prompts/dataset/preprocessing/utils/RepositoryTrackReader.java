@@ -0,0 +1,98 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import star.llms.prompts.dataset.data.records.RepositoryTrack;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class provides static utility methods to read a {@link RepositoryTrack} file in a streaming fashion, binding
+ * only the sections needed. The commits section (containing the source code before and after each commit, the diffs,
+ * and the lists of methods) is by far the largest section of the file, but the generation of the dataset needs only
+ * the test cases tracked. The commits can still be read on demand, with {@link #readCommits(Path)}.
+ */
+public class RepositoryTrackReader {
+
+    /* The object mapper used to bind the sections of the repository track. */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Do not instantiate this class. */
+    private RepositoryTrackReader() {
+        throw new UnsupportedOperationException("This class cannot be instantiated.");
+    }
+
+    /**
+     * Read a repository track file, skipping its commits section without binding it.
+     *
+     * @param repoTrackPath the path to the repository track file
+     * @return the repository track, without commits ({@link RepositoryTrack#commits()} is null)
+     * @throws Error if an error occurs while reading the file
+     */
+    public static RepositoryTrack readWithoutCommits(Path repoTrackPath) {
+        String url = null;
+        String since = null;
+        String until = null;
+        HashMap<String, List<RepositoryTrack.TestCase>> track = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(repoTrackPath.toFile())) {
+            expectStartObject(parser, repoTrackPath);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "url" -> url = parser.getValueAsString();
+                    case "since" -> since = parser.getValueAsString();
+                    case "until" -> until = parser.getValueAsString();
+                    case "track" -> track = objectMapper.readValue(parser, new TypeReference<HashMap<String, List<RepositoryTrack.TestCase>>>() {});
+                    // The commits (and any other section) are skipped without building any object
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new Error("Error when reading file " + repoTrackPath, e);
+        }
+        return new RepositoryTrack(url, since, until, null, track == null ? new HashMap<>() : track);
+    }
+
+    /**
+     * Read only the commits section of a repository track file, skipping the other sections.
+     *
+     * @param repoTrackPath the path to the repository track file
+     * @return the map of the commits of the repository track (empty if the file has no commits section)
+     * @throws Error if an error occurs while reading the file
+     */
+    public static HashMap<String, List<RepositoryTrack.Commit>> readCommits(Path repoTrackPath) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(repoTrackPath.toFile())) {
+            expectStartObject(parser, repoTrackPath);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (fieldName.equals("commits")) {
+                    return objectMapper.readValue(parser, new TypeReference<HashMap<String, List<RepositoryTrack.Commit>>>() {});
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            throw new Error("Error when reading file " + repoTrackPath, e);
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Move the parser to the start of the root object of the repository track file.
+     *
+     * @param parser the parser of the repository track file
+     * @param repoTrackPath the path to the repository track file
+     * @throws IOException if the file does not start with a JSON object
+     */
+    private static void expectStartObject(JsonParser parser, Path repoTrackPath) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object in " + repoTrackPath);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package star.llms.prompts.dataset.preprocessing.utils;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import com.github.javaparser.ast.observer.PropagatingAstObserver;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.ReferenceType;
+import com.github.javaparser.ast.visitor.CloneVisitor;
+import com.github.javaparser.ast.visitor.Visitable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A split test case generated from an original test case. Splitting a test case with k assertions generates k split
+ * test cases, each one made of all the statements preceding its assertion: cloning the whole test case at every
+ * assertion costs a number of statements quadratic in the number of assertions. Instead, while a test case is split,
+ * the split test cases share the body of the test case under construction (the statements are only appended to it),
+ * and each split test case only records its cut point (the number of statements of the body it includes) together with
+ * its signature. The split test case is materialized (its statements cloned into a new method) only when it is
+ * emitted.
+ * <p>
+ * The shared body is observed: any change to it other than a statement appended at its end (for example a statement
+ * added within a nested block, or a statement removed) materializes the pending split test cases sharing it before the
+ * change takes effect, so that each split test case always corresponds to the state of the body at its cut point. A
+ * split test case must be used by the thread owning the AST of the test case.
+ */
+public class SplitTestCase {
+
+    /* The key of the pending split test cases in the data of the body they share. */
+    private static final DataKey<PendingCuts> PENDING_CUTS_KEY = new DataKey<>() {};
+
+    /* The materialized split test case (null until materialized). */
+    private MethodDeclaration method;
+    /* The signature of the split test case, with an empty body (null once materialized). */
+    private MethodDeclaration header;
+    /* The body shared with the test case under construction (null once materialized). */
+    private BlockStmt body;
+    /* The number of statements of the shared body included in the split test case. */
+    private final int cut;
+
+    private SplitTestCase(MethodDeclaration method) {
+        this.method = method;
+        this.cut = method.getBody().map(b -> b.getStatements().size()).orElse(0);
+    }
+
+    private SplitTestCase(MethodDeclaration header, BlockStmt body, int cut) {
+        this.header = header;
+        this.body = body;
+        this.cut = cut;
+    }
+
+    /**
+     * Create a split test case from a method already materialized.
+     *
+     * @param method the method of the split test case
+     * @return the split test case
+     */
+    public static SplitTestCase of(MethodDeclaration method) {
+        return new SplitTestCase(method);
+    }
+
+    /**
+     * Create a split test case representing the current state of a test case under construction. The split test case
+     * shares the body of the test case, that can only be extended by appending statements at its end, and records the
+     * number of statements it includes. The signature of the test case (its name, annotations, parameters and thrown
+     * exceptions) is copied, so the test case under construction can be renamed afterwards.
+     *
+     * @param testCase the test case under construction
+     * @param sharedThrownExceptions the list of thrown exceptions shared (not copied) by the split test cases of the
+     *                               same original test case, if any
+     * @return the split test case
+     */
+    public static SplitTestCase cut(MethodDeclaration testCase, NodeList<ReferenceType> sharedThrownExceptions) {
+        BlockStmt testCaseBody = testCase.getBody().orElseThrow();
+        MethodDeclaration testCaseHeader = (MethodDeclaration) testCase.accept(new HeaderCloneVisitor(), testCaseBody);
+        if (testCase.getThrownExceptions() == sharedThrownExceptions) {
+            testCaseHeader.setThrownExceptions(sharedThrownExceptions);
+        }
+        // A body with comments cannot be rebuilt from its statements only, materialize the split test case immediately
+        if (testCaseBody.getComment().isPresent() || !testCaseBody.getOrphanComments().isEmpty()) {
+            testCaseHeader.setBody(testCaseBody.clone());
+            return new SplitTestCase(testCaseHeader);
+        }
+        SplitTestCase splitTestCase = new SplitTestCase(testCaseHeader, testCaseBody, testCaseBody.getStatements().size());
+        PendingCuts.of(testCaseBody).add(splitTestCase);
+        return splitTestCase;
+    }
+
+    /**
+     * Get the method of the split test case, materializing it the first time.
+     *
+     * @return the method of the split test case
+     */
+    public MethodDeclaration getMethod() {
+        if (method == null) {
+            materialize();
+        }
+        return method;
+    }
+
+    /**
+     * Check if the body of the split test case is equal to the given body. If the given body is the body shared by
+     * the split test case, the bodies are compared without materializing the split test case (the shared body can only
+     * be extended by appending statements, as long as the split test case is not materialized).
+     *
+     * @param otherBody the body to compare
+     * @return true if the body of the split test case is equal to the given body, false otherwise
+     */
+    public boolean hasBody(BlockStmt otherBody) {
+        if (method == null && otherBody == body) {
+            return body.getStatements().size() == cut;
+        }
+        return getMethod().getBody().get().equals(otherBody);
+    }
+
+    /**
+     * Materialize the split test case, cloning the statements of the shared body it includes into its own body.
+     */
+    private void materialize() {
+        NodeList<Statement> statements = new NodeList<>();
+        for (int i = 0; i < cut; i++) {
+            statements.add(body.getStatement(i).clone());
+        }
+        header.setBody(new BlockStmt(statements));
+        method = header;
+        header = null;
+        body = null;
+    }
+
+    /**
+     * The visitor cloning a method without the statements of its body (the body passed as argument).
+     */
+    private static class HeaderCloneVisitor extends CloneVisitor {
+
+        @Override
+        public Visitable visit(BlockStmt n, Object arg) {
+            return n == arg ? new BlockStmt() : super.visit(n, arg);
+        }
+    }
+
+    /**
+     * The split test cases sharing a body and not materialized yet. The pending split test cases are materialized as
+     * soon as the body changes in a way other than a statement appended at its end.
+     */
+    private static class PendingCuts extends PropagatingAstObserver {
+
+        /* The body shared by the split test cases. */
+        private final BlockStmt body;
+        /* The split test cases not materialized yet, in the order they have been cut. */
+        private final List<SplitTestCase> pending = new ArrayList<>();
+
+        private PendingCuts(BlockStmt body) {
+            this.body = body;
+        }
+
+        /**
+         * Get the pending split test cases of a body, observing the body the first time. The pending split test cases
+         * in the data of a clone of the body are ignored.
+         *
+         * @param body the body shared by the split test cases
+         * @return the pending split test cases of the body
+         */
+        private static PendingCuts of(BlockStmt body) {
+            if (body.containsData(PENDING_CUTS_KEY) && body.getData(PENDING_CUTS_KEY).body == body) {
+                return body.getData(PENDING_CUTS_KEY);
+            }
+            PendingCuts pendingCuts = new PendingCuts(body);
+            body.setData(PENDING_CUTS_KEY, pendingCuts);
+            body.registerForSubtree(pendingCuts);
+            return pendingCuts;
+        }
+
+        private void add(SplitTestCase splitTestCase) {
+            pending.add(splitTestCase);
+        }
+
+        /**
+         * Materialize all the pending split test cases (the observers are notified before the change takes effect).
+         */
+        private void materializeAll() {
+            for (SplitTestCase splitTestCase : pending) {
+                if (splitTestCase.method == null) {
+                    splitTestCase.materialize();
+                }
+            }
+            pending.clear();
+        }
+
+        @Override
+        public void concretePropertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+            materializeAll();
+        }
+
+        @Override
+        public void concreteListChange(NodeList<?> observedNode, ListChangeType type, int index, Node nodeAddedOrRemoved) {
+            // The statements appended at the end of the body are not included by the pending split test cases
+            if (observedNode == body.getStatements() && type == ListChangeType.ADDITION && index == observedNode.size()) {
+                return;
+            }
+            materializeAll();
+        }
+
+        @Override
+        public void concreteListReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+            materializeAll();
+        }
+
+        @Override
+        public void parentChange(Node observedNode, Node previousParent, Node newParent) {
+            // The statements appended at the end of the body are observed before being attached to it
+            if (newParent == body && observedNode.getParentNode().orElse(null) != body) {
+                return;
+            }
+            materializeAll();
+        }
+    }
+}
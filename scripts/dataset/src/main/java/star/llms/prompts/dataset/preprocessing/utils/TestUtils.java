@@ -22,19 +22,18 @@ import org.slf4j.LoggerFactory;
 import star.llms.prompts.dataset.data.enums.*;
 import star.llms.prompts.dataset.data.exceptions.*;
 import star.llms.prompts.dataset.data.records.OraclesDatasetConfig;
-import star.llms.prompts.dataset.data.records.RepositoryTrack;
 import star.llms.prompts.dataset.preprocessing.builders.*;
 import star.llms.prompts.dataset.preprocessing.components.*;
 import star.llms.prompts.dataset.preprocessing.components.Type;
 import star.llms.prompts.dataset.utils.FilesUtils;
 import star.llms.prompts.dataset.utils.javaParser.JavaParserUtils;
+import star.llms.prompts.dataset.utils.javaParser.MethodAstIndex;
+import star.llms.prompts.dataset.utils.javaParser.TestProcessingContext;
+import star.llms.prompts.dataset.utils.javaParser.TypeHierarchyService;
 import star.llms.prompts.dataset.utils.javaParser.visitors.declarations.FieldDeclarationVisitor;
-import star.llms.prompts.dataset.utils.javaParser.visitors.expressions.MethodCallExprVisitor;
 import star.llms.prompts.dataset.utils.javaParser.visitors.expressions.NameExprVisitor;
 import star.llms.prompts.dataset.utils.javaParser.visitors.expressions.VariableDeclarationExprVisitor;
-import star.llms.prompts.dataset.utils.javaParser.visitors.statements.AssertStmtVisitor;
 import star.llms.prompts.dataset.utils.javaParser.visitors.statements.ExpressionStmtVisitor;
-import star.llms.prompts.dataset.utils.javaParser.visitors.statements.ReturnStmtVisitor;
 import star.llms.prompts.dataset.utils.javaParser.visitors.statements.helper.StmtVisitorHelper;
 
 import javax.swing.plaf.nimbus.State;
@@ -54,9 +53,6 @@ import java.util.stream.Collectors;
  */
 public class TestUtils {
 
-    /* A unique id for placeholder variable names when inserting oracles. */
-    private static int variableID = 0;
-
     /* The logger for the class. */
     private static final Logger logger = LoggerFactory.getLogger(TestUtils.class);
     /* helper labels to identify fake elements added to avoid JavaParser parsing problems, like in try-catch statements */
@@ -80,6 +76,20 @@ public class TestUtils {
      */
     private static MethodDeclaration initializeSplitTestCase(MethodDeclaration originalTestMethod, String testCaseName, NodeList<ReferenceType> exceptionsToThrow, int idx) {
         MethodDeclaration splitTestCase = originalTestMethod.clone();
+        renameSplitTestCase(splitTestCase, testCaseName, exceptionsToThrow, idx);
+        return splitTestCase;
+    }
+
+    /**
+     * Rename a split test case with the index of the split test case, and set the exceptions that could be thrown by
+     * the split test case.
+     *
+     * @param splitTestCase the split test case to rename
+     * @param testCaseName the name of the test case
+     * @param exceptionsToThrow the list of exceptions that could be thrown by the split test case
+     * @param idx the index of the split test case
+     */
+    private static void renameSplitTestCase(MethodDeclaration splitTestCase, String testCaseName, NodeList<ReferenceType> exceptionsToThrow, int idx) {
         String delimiter = "_split_";
         int delimiterPosition = testCaseName.indexOf("_split_");
         if (delimiterPosition != -1) {
@@ -91,7 +101,22 @@ public class TestUtils {
         if (exceptionsToThrow != null && !exceptionsToThrow.isEmpty()) {
             splitTestCase.setThrownExceptions(exceptionsToThrow);
         }
-        return splitTestCase;
+    }
+
+    /**
+     * Complete the current split test case: add to the list of split test cases the current state of the split test
+     * case (sharing its body, see {@link SplitTestCase}), and rename the current split test case with the given index,
+     * to continue the next split test case from the same body.
+     *
+     * @param splitTestCases the list of split test cases
+     * @param splitTestCase the current split test case
+     * @param testCaseName the name of the test case
+     * @param exceptionsToThrow the list of exceptions that could be thrown by the split test case
+     * @param idx the index of the next split test case
+     */
+    private static void completeSplitTestCase(List<SplitTestCase> splitTestCases, MethodDeclaration splitTestCase, String testCaseName, NodeList<ReferenceType> exceptionsToThrow, int idx) {
+        splitTestCases.add(SplitTestCase.cut(splitTestCase, exceptionsToThrow));
+        renameSplitTestCase(splitTestCase, testCaseName, exceptionsToThrow, idx);
     }
 
     /**
@@ -145,57 +170,96 @@ public class TestUtils {
      * Check if the test case is in the filter list collected during the tracking of repositories.
      *
      * @param originalTestCase the test case in the test class
-     * @param testCaseFilterList the list of test cases collected during the tracking of repositories
+     * @param trackedTestCases the test cases collected during the tracking of repositories, for the test class
      * @return true if the test case is in the filter list and the body coincides with the test case, false otherwise
      */
-    private static boolean matchTestCaseWithRepoTrackTestCase(MethodDeclaration originalTestCase, List<RepositoryTrack.TestCase> testCaseFilterList) {
+    private static boolean matchTestCaseWithRepoTrackTestCase(MethodDeclaration originalTestCase, RepositoryTrackIndex.TrackedTestCases trackedTestCases) {
         // Check if the test case is in the filter list
-        if (testCaseFilterList != null && !testCaseFilterList.isEmpty()) {
-            String testCaseName = originalTestCase.getNameAsString();
-            String testCaseSignature = originalTestCase.getSignature().toString();
-            boolean found = false;
-            for (RepositoryTrack.TestCase testCaseFilter : testCaseFilterList) {
-                if (testCaseName.equals(testCaseFilter.name())) {
-                    // Check if the test case signature is in the filter list
-                    if (testCaseFilter.signature().replaceAll("\\s+", "").contains(testCaseSignature.replaceAll("\\s+", ""))) {
-                        // Check if the body coincides with the test case
-                        if (testCaseFilter.body() != null) {
-                            Optional<BlockStmt> testCaseBody = originalTestCase.getBody();
-                            if (testCaseBody.isPresent()) {
-                                // Check if the body of the test case is in the filter list
-                                String testCaseBodyString = testCaseBody.get().toString();
-                                String testCaseBodyNormalized = testCaseBodyString.replaceAll("\\s+", " ").trim();
-                                String testCaseFilterBodyNormalized = testCaseFilter.body().replaceAll("\\s+", " ").trim();
-                                if (testCaseBodyNormalized.equals(testCaseFilterBodyNormalized)) {
-                                    found = true;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            return found;
+        if (trackedTestCases != null && !trackedTestCases.isEmpty()) {
+            Optional<BlockStmt> testCaseBody = originalTestCase.getBody();
+            // Check if the name, the signature, and the body of the test case are in the filter list
+            return testCaseBody.isPresent() && trackedTestCases.contains(
+                    originalTestCase.getNameAsString(),
+                    originalTestCase.getSignature().toString(),
+                    testCaseBody.get().toString()
+            );
         }
         return false;
     }
 
     /**
-     * Process the test class and integrate additional assertion in auxiliary methods, if present.
+     * Process the test class and integrate additional assertion in auxiliary methods, if present, within the given
+     * test processing context.
      *
+     * @param context the test processing context of the repository
      * @param config the configuration options for the dataset to generate
      * @param repoRootPath the path to the root of the repository
      * @param testFilePath the path to the test class file
      * @param outputPath the path to the normalized test class file
-     * @param testCaseFilterList the list of test cases to process in the class
+     * @param trackedTestCases the test cases to process in the class
      * @return the path to the normalized test class file
      */
     public static Pair<Path, List<TestStats>> normalizeTest(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            Path repoRootPath,
+            Path testFilePath,
+            Path outputPath,
+            RepositoryTrackIndex.TrackedTestCases trackedTestCases
+    ) {
+        return context.call(() -> normalizeTest(config, repoRootPath, testFilePath, Optional.empty(), outputPath, trackedTestCases, true));
+    }
+
+    /**
+     * Process the test class and integrate additional assertion in auxiliary methods, if present, within the given
+     * test processing context. The test class is not parsed from the test file, but the given compilation unit is
+     * normalized in place, so that it can be carried to the next steps of the processing without re-parsing it.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration options for the dataset to generate
+     * @param repoRootPath the path to the root of the repository
+     * @param testFilePath the path to the test class file
+     * @param cu the compilation unit of the test class (normalized in place)
+     * @param outputPath the path to the normalized test class file
+     * @param trackedTestCases the test cases to process in the class
+     * @param writeIntermediateFiles whether to write the normalized test class to the output paths (regular and
+     *                               test repository)
+     * @return the path to the normalized test class file (even if not written)
+     */
+    public static Pair<Path, List<TestStats>> normalizeTest(
+            TestProcessingContext context,
             OraclesDatasetConfig config,
             Path repoRootPath,
             Path testFilePath,
+            CompilationUnit cu,
             Path outputPath,
-            List<RepositoryTrack.TestCase> testCaseFilterList
+            RepositoryTrackIndex.TrackedTestCases trackedTestCases,
+            boolean writeIntermediateFiles
+    ) {
+        return context.call(() -> normalizeTest(config, repoRootPath, testFilePath, Optional.of(cu), outputPath, trackedTestCases, writeIntermediateFiles));
+    }
+
+    /**
+     * Process the test class and integrate additional assertion in auxiliary methods, if present.
+     *
+     * @param config the configuration options for the dataset to generate
+     * @param repoRootPath the path to the root of the repository
+     * @param testFilePath the path to the test class file
+     * @param testCompilationUnit the compilation unit of the test class. If empty, the test class is parsed from the
+     *                            test file
+     * @param outputPath the path to the normalized test class file
+     * @param trackedTestCases the test cases to process in the class
+     * @param writeIntermediateFiles whether to write the normalized test class to the output paths
+     * @return the path to the normalized test class file
+     */
+    private static Pair<Path, List<TestStats>> normalizeTest(
+            OraclesDatasetConfig config,
+            Path repoRootPath,
+            Path testFilePath,
+            Optional<CompilationUnit> testCompilationUnit,
+            Path outputPath,
+            RepositoryTrackIndex.TrackedTestCases trackedTestCases,
+            boolean writeIntermediateFiles
     ) {
         // Instantiate the list of test statistics
         List<TestStats> testStatsList = new ArrayList<>();
@@ -210,8 +274,8 @@ public class TestUtils {
         // Create a list to store the normalized test cases generated from the original test cases of the given test class
         List<MethodDeclaration> normalizedTestCases = new ArrayList<>();
         try {
-            // Parse the test class
-            CompilationUnit cu = JavaParserUtils.getCompilationUnit(testFilePath);
+            // Parse the test class (if not already provided)
+            CompilationUnit cu = testCompilationUnit.isPresent() ? testCompilationUnit.get() : JavaParserUtils.getCompilationUnit(testFilePath);
             // Set the methods of the test case to the normalized test methods
             TypeDeclaration testClass = cu.getPrimaryType().get();
             // Get junit version used in the test class
@@ -253,7 +317,7 @@ public class TestUtils {
             // Iterate over the original test cases
             for (MethodDeclaration originalTestCase : originalTestCases) {
                 // Check if the test case is in the filter list
-                if (!matchTestCaseWithRepoTrackTestCase(originalTestCase, testCaseFilterList)) {
+                if (!matchTestCaseWithRepoTrackTestCase(originalTestCase, trackedTestCases)) {
                     if (junitVersion == JUnitVersion.JUNIT4) {
                         boolean hasIgnore = originalTestCase.getAnnotations().stream().anyMatch(a -> a.getNameAsString().equals("Ignore"));
                         if (!hasIgnore) {
@@ -323,15 +387,15 @@ public class TestUtils {
                 testStatsBuilder.setSignature(originalTestCase.getSignature().toString());
                 testStatsBuilder.setClassIdentifier(testClass.getNameAsString());
                 testStatsBuilder.setFilePath(testFilePath.toString());
+                // Index the body of the test once, for all the following queries
+                MethodAstIndex normalizedTestCaseIndex = MethodAstIndex.of(normalizedTestCaseBody);
                 testStatsBuilder.setNumberOfAssertions(getNumberOfAssertions(normalizedTestCaseBody.getStatements()));
                 testStatsBuilder.setTestLength(normalizedTestCaseBody.toString().length());
                 testStatsBuilder.setAssertionsDistribution(getAssertionsDistribution(normalizedTestCaseBody.getStatements()));
                 // Count the number of methods found in the test
                 int methodCalls = 0;
                 for (Statement statement : normalizedTestCaseBody.getStatements()) {
-                    MethodCallExprVisitor methodCallExprCollector = new MethodCallExprVisitor();
-                    List<MethodCallExpr> methodCallExprs = methodCallExprCollector.visit(statement);
-                    methodCalls += methodCallExprs.size();
+                    methodCalls += normalizedTestCaseIndex.findAll(statement, MethodCallExpr.class).size();
                 }
                 testStatsBuilder.setNumberOfMethodCalls(methodCalls);
                 VariableDeclarationExprVisitor variableDeclarationExprCollector = new VariableDeclarationExprVisitor();
@@ -369,8 +433,7 @@ public class TestUtils {
             for (MethodDeclaration normalizedTestCase : normalizedTestCases) {
                 for (AnnotationExpr annotation : normalizedTestCase.getAnnotations()) {
                     if (annotation.getNameAsString().equals("Override")) {
-                        MethodCallExprVisitor methodCallExprVisitor = new MethodCallExprVisitor();
-                        List<MethodCallExpr> methodCallExprs = methodCallExprVisitor.visit(normalizedTestCase);
+                        List<MethodCallExpr> methodCallExprs = MethodAstIndex.of(normalizedTestCase).findAll(MethodCallExpr.class);
                         for (MethodCallExpr methodCallExpr : methodCallExprs) {
                             if (methodCallExpr.getNameAsString().equals("super")) {
                                 hasSuper = true;
@@ -382,15 +445,82 @@ public class TestUtils {
                 testClass.addMember(normalizedTestCase);
             }
 
-            // Save the split test class to the output paths (regular and test repository)
-            FilesUtils.writeJavaFile(regularOutputPath, cu);
-            FilesUtils.writeJavaFile(testRepoOutputPath, cu);
+            // Save the normalized test class to the output paths (regular and test repository)
+            if (writeIntermediateFiles) {
+                FilesUtils.writeJavaFile(regularOutputPath, cu);
+                FilesUtils.writeJavaFile(testRepoOutputPath, cu);
+            }
+            // Register the generated test class, to resolve its symbols in the following steps without rebuilding the symbol solver
+            TestProcessingContext.current().registerGeneratedCompilationUnit(testRepoOutputPath, cu);
         } catch (IOException e) {
             logger.error("Error reading file: " + testFilePath);
         }
         return new Pair<>(testRepoOutputPath, testStatsList);
     }
 
+    /**
+     * Split the test cases in the test class, according to the strategy, within the given test processing context.
+     * See {@link #splitTest(OraclesDatasetConfig, Path, Path, Optional, Path, boolean)} for the details of the split
+     * strategies.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration options for the dataset to generate
+     * @param repoRootPath the path to the root of the repository
+     * @param testFilePath the path to the test class file
+     * @param outputPath the path to the split test class file
+     * @throws IllegalStateException if no JUnit version is found in the imports and the test class cannot include
+     * assertions
+     * @return the path to the split test class file
+     */
+    public static Path splitTest(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            Path repoRootPath,
+            Path testFilePath,
+            Path outputPath
+    ) throws IllegalStateException, UnsupportedOperationException {
+        return context.call(() -> {
+            // Reset the placeholder variables counter for the current test class
+            context.resetVariableID();
+            return splitTest(config, repoRootPath, testFilePath, Optional.empty(), outputPath, true);
+        });
+    }
+
+    /**
+     * Split the test cases in the test class, according to the strategy, within the given test processing context.
+     * The normalized test class is not parsed from the test file, but the given compilation unit is split in place,
+     * so that it can be carried to the next steps of the processing without re-parsing it.
+     * See {@link #splitTest(OraclesDatasetConfig, Path, Path, Optional, Path, boolean)} for the details of the split
+     * strategies.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration options for the dataset to generate
+     * @param repoRootPath the path to the root of the repository
+     * @param testFilePath the path to the normalized test class file
+     * @param cu the compilation unit of the normalized test class (split in place)
+     * @param outputPath the path to the split test class file
+     * @param writeIntermediateFiles whether to write the split test class to the output paths (regular and test
+     *                               repository)
+     * @throws IllegalStateException if no JUnit version is found in the imports and the test class cannot include
+     * assertions
+     * @return the path to the split test class file (even if not written)
+     */
+    public static Path splitTest(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            Path repoRootPath,
+            Path testFilePath,
+            CompilationUnit cu,
+            Path outputPath,
+            boolean writeIntermediateFiles
+    ) throws IllegalStateException, UnsupportedOperationException {
+        return context.call(() -> {
+            // Reset the placeholder variables counter for the current test class
+            context.resetVariableID();
+            return splitTest(config, repoRootPath, testFilePath, Optional.of(cu), outputPath, writeIntermediateFiles);
+        });
+    }
+
     /**
      * Split the test cases in the test class, according to the strategy.
      *
@@ -474,16 +604,21 @@ public class TestUtils {
      * @param config the configuration options for the dataset to generate
      * @param repoRootPath the path to the root of the repository
      * @param testFilePath the path to the test class file
+     * @param testCompilationUnit the compilation unit of the test class. If empty, the test class is parsed from the
+     *                            test file
      * @param outputPath the path to the split test class file
+     * @param writeIntermediateFiles whether to write the split test class to the output paths
      * @throws IllegalStateException if no JUnit version is found in the imports and the test class cannot include
      * assertions
      * @return the path to the split test class file
      */
-    public static Path splitTest(
+    private static Path splitTest(
             OraclesDatasetConfig config,
             Path repoRootPath,
             Path testFilePath,
-            Path outputPath
+            Optional<CompilationUnit> testCompilationUnit,
+            Path outputPath,
+            boolean writeIntermediateFiles
     ) throws IllegalStateException, UnsupportedOperationException {
         String testFileRelativePath = testFilePath.toString().replace(repoRootPath.getParent().toString(), "");
         // Regular output path for report analysis
@@ -493,10 +628,10 @@ public class TestUtils {
         // Test repository output path for further processing
         Path testRepoOutputPath = Paths.get(testFilePath.toString().replace(NamingConvention.NORMALIZED_TEST_FILE.getConventionName(), NamingConvention.TEST_SPLIT_FILE.getConventionName()));
         // Create a list to store the split test cases generated from the original test cases of the given test class
-        List<MethodDeclaration> splitTestCases = new ArrayList<>();
+        List<SplitTestCase> splitTestCases = new ArrayList<>();
         try {
-            // Parse the test class
-            CompilationUnit cu = JavaParserUtils.getCompilationUnit(testFilePath);
+            // Parse the test class (if not already provided)
+            CompilationUnit cu = testCompilationUnit.isPresent() ? testCompilationUnit.get() : JavaParserUtils.getCompilationUnit(testFilePath);
             TypeDeclaration testClass = cu.getPrimaryType().get();
             // Get Junit version
             JUnitVersion junitVersion = TestUtils.getJunitVersion(cu.getImports());
@@ -541,19 +676,18 @@ public class TestUtils {
                 }
                 // If the test case is annotated with @Ignore, skip it
                 if (isIgnore) {
-                    splitTestCases.add(originalTestCase);
+                    splitTestCases.add(SplitTestCase.of(originalTestCase));
                     continue;
                 }
 
                 if (isOverride) {
                     if (!originalTestCase.getType().isVoidType() || originalTestCase.getParameters().size() > 0) {
                         logger.warn("Test case annotated with @Override but not a void method or has parameters. Unable to process it: " + originalTestCase.getNameAsString());
-                        splitTestCases.add(originalTestCase);
+                        splitTestCases.add(SplitTestCase.of(originalTestCase));
                         continue;
                     }
                     MethodDeclaration overrideSupportTestCase = originalTestCase.clone();
-                    MethodCallExprVisitor methodCallExprVisitor = new MethodCallExprVisitor();
-                    List<MethodCallExpr> methodCallExprs = methodCallExprVisitor.visit(originalTestCase);
+                    List<MethodCallExpr> methodCallExprs = MethodAstIndex.of(originalTestCase).findAll(MethodCallExpr.class);
                     boolean foundSuper = false;
                     for (MethodCallExpr methodCallExpr : methodCallExprs) {
                         if (methodCallExpr.getNameAsString().equals("super")) {
@@ -591,7 +725,7 @@ public class TestUtils {
                     if (foundSuper && !removedSuper) {
                         logger.warn("Super statement found in the original test case, but unable to remove it: " + originalTestCase.getNameAsString());
                         originalTestCase.setBody(originalTestCaseBodyClone);
-                        splitTestCases.add(originalTestCase);
+                        splitTestCases.add(SplitTestCase.of(originalTestCase));
                         continue;
                     }
                     if (overrideTestCaseBody.getStatements().isEmpty()) {
@@ -604,7 +738,7 @@ public class TestUtils {
                         ExpressionStmt stmt = new ExpressionStmt(call);
                         overrideTestCaseBody.getStatements().add(0, stmt);
                     }
-                    splitTestCases.add(overrideSupportTestCase);
+                    splitTestCases.add(SplitTestCase.of(overrideSupportTestCase));
                 }
 
                 // Get the list of statements within the original test case
@@ -615,7 +749,7 @@ public class TestUtils {
                     MethodDeclaration testCaseMold = originalTestCase.clone();
                     testCaseMold.setBody(new BlockStmt());
                     // Parse the statements of the original test case and split it into multiple test cases
-                    Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                    Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                             config,
                             junitVersion,
                             originalTestCaseStatements,
@@ -660,12 +794,17 @@ public class TestUtils {
             for (MethodDeclaration originalTestCase : originalTestCases) {
                 testClass.remove(originalTestCase);
             }
-            for (MethodDeclaration splitTestCase : splitTestCases) {
-                testClass.addMember(splitTestCase);
+            // Materialize the split test cases (sharing the bodies of the test cases under construction)
+            for (SplitTestCase splitTestCase : splitTestCases) {
+                testClass.addMember(splitTestCase.getMethod());
             }
             // Save the split test class to the output paths (regular and test repository)
-            FilesUtils.writeJavaFile(regularOutputPath, cu);
-            FilesUtils.writeJavaFile(testRepoOutputPath, cu);
+            if (writeIntermediateFiles) {
+                FilesUtils.writeJavaFile(regularOutputPath, cu);
+                FilesUtils.writeJavaFile(testRepoOutputPath, cu);
+            }
+            // Register the generated test class, to resolve its symbols in the following steps without rebuilding the symbol solver
+            TestProcessingContext.current().registerGeneratedCompilationUnit(testRepoOutputPath, cu);
         } catch (IOException e) {
             logger.error("Error reading file: " + testFilePath);
         }
@@ -698,7 +837,7 @@ public class TestUtils {
      * @return the pair of the last split test case generated and the list of split test cases
      * @throws IllegalStateException if an error occurs while parsing the statements of the block
      */
-    private static Pair<MethodDeclaration, List<MethodDeclaration>> parseSplitTestStatementsBlock(
+    private static Pair<MethodDeclaration, List<SplitTestCase>> parseSplitTestStatementsBlock(
             OraclesDatasetConfig config,
             JUnitVersion junitVersion,
             List<Statement> statements,
@@ -710,7 +849,7 @@ public class TestUtils {
             int recursionLevel
     ) throws IllegalStateException {
         // Create a list to store the split test cases generated from the given block of statements of the original test case
-        List<MethodDeclaration> splitTestCases = new ArrayList<>();
+        List<SplitTestCase> splitTestCases = new ArrayList<>();
         // Get the number of assertions in the test case
         int numberOfAssertions = getNumberOfAssertions(statements);
         // Initialize the index of the split test cases (incremental index to name the split test cases)
@@ -742,7 +881,7 @@ public class TestUtils {
                 //    splitTestCase = newSplitTestCase;
                 //}
                 // Parse the statements of the do body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         statement.asBlockStmt().getStatements(),
@@ -770,7 +909,7 @@ public class TestUtils {
                 // Add the cloned do statement to the current split test case body
                 addStatement(doStmtClone, splitTestCaseBody, blockStatementsType);
                 // Parse the statements of the do body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         new ArrayList<>(Arrays.asList(doStmtBody)),
@@ -850,14 +989,8 @@ public class TestUtils {
                                         exprStmt.setExpression(lambdaSingleExpr.clone());
                                         addStatement(exprStmt, splitTestCaseBody, blockStatementsType);
                                         if (JUnitAssertionType.isJUnitAssertion(lambdaSingleExpr.asMethodCallExpr().getNameAsString()) || config.splitStrategy() == SplitStrategyType.STATEMENT) {
-                                            // Initialize a new split test case, starting from the body of the previous one
-                                            MethodDeclaration newSplitTestCase = initializeSplitTestCase(splitTestCase, testCasePrefixName, exceptionsToThrow, ++idx);
-                                            // Add the split test case to the list
-                                            splitTestCases.add(splitTestCase);
-                                            // Update the split test case with the new one
-                                            splitTestCase = newSplitTestCase;
-                                            // Get the body of the new split test case
-                                            splitTestCaseBody = splitTestCase.getBody().orElseThrow();
+                                            // Add the split test case to the list and continue a new split test case from the same body
+                                            completeSplitTestCase(splitTestCases, splitTestCase, testCasePrefixName, exceptionsToThrow, ++idx);
                                         }
                                     } else {
                                         throw new IllegalStateException("Unexpected assertThrows lambda expression with non-method call expression");
@@ -867,7 +1000,7 @@ public class TestUtils {
                                     Statement lambdaStmt = lambdaExpr.getBody();
                                     if (lambdaStmt.isBlockStmt()) {
                                         BlockStmt blockStmt = lambdaStmt.asBlockStmt();
-                                        Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                                        Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                                                 config,
                                                 junitVersion,
                                                 blockStmt.getStatements(),
@@ -895,7 +1028,7 @@ public class TestUtils {
                             Statement fakeStmt = new ExpressionStmt(new MethodCallExpr("fail", new StringLiteralExpr(THROW_EXCEPTION_LABEL)));
                             fakeStmt.addOrphanComment(new LineComment(THROW_EXCEPTION_LABEL));
                             addStatement(fakeStmt, splitTestCaseBody, blockStatementsType);
-                            splitTestCases.add(splitTestCase);
+                            splitTestCases.add(SplitTestCase.of(splitTestCase));
                             MethodDeclaration newSplitTestCase = initializeSplitTestCase(splitTestCase, testCasePrefixName, exceptionsToThrow, ++idx);
                             newSplitTestCase.setBody(newSplitTestCaseBody);
                             // Initialize a new split test case, starting from the body of the previous one
@@ -934,7 +1067,7 @@ public class TestUtils {
                         lambdaExprClone.setParameters(new NodeList<>(lambdaExpr.getParameters()));
                         ExpressionStmt lambdaExprStmt = new ExpressionStmt(lambdaExpr.clone());
                         addStatement(lambdaExprStmt, splitTestCaseBody, blockStatementsType);
-                        Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(lambdaBody)),
@@ -979,7 +1112,7 @@ public class TestUtils {
                         }
                         stmtClone.findAll(BlockStmt.class).get(0).setStatements(new NodeList<>());
                         addStatement(stmtClone, splitTestCaseBody, blockStatementsType);
-                        Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 blockStmt.getStatements(),
@@ -1009,7 +1142,7 @@ public class TestUtils {
                 // Add the cloned for each statement to the current split test case body
                 addStatement(forEachStmtClone, splitTestCaseBody, blockStatementsType);
                 // Parse the statements of the for each body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         new ArrayList<>(Arrays.asList(forEachStmtBody)),
@@ -1037,7 +1170,7 @@ public class TestUtils {
                 // Add the cloned for statement to the current split test case body
                 addStatement(forStmtClone, splitTestCaseBody, blockStatementsType);
                 // Parse the statements of the for body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         new ArrayList<>(Arrays.asList(forStmtBody)),
@@ -1092,7 +1225,7 @@ public class TestUtils {
                         lastIfStmt.setElseStmt(new BlockStmt());
                     }
                     // Parse the statements of the if body and split it into multiple test cases
-                    Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                    Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                             config,
                             junitVersion,
                             new ArrayList<>(Arrays.asList(ifStmtBody)),
@@ -1127,7 +1260,7 @@ public class TestUtils {
                 // Add the cloned synchronized statement to the current split test case body
                 addStatement(synchronizedStmtClone, splitTestCaseBody, blockStatementsType);
                 // Parse the statements of the synchronized body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         new ArrayList<>(Arrays.asList(synchronizedStmtBody)),
@@ -1163,7 +1296,7 @@ public class TestUtils {
                 //     // Add the cloned switch statement to the current split test case body
                 //     addStatement(switchStmtClone, splitTestCaseBody, blockStatementsType);
                 //     // Parse the statements of the switch entry and split it into multiple test cases
-                //     Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                //     Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                 //             config,
                 //             junitVersion,
                 //             switchEntry.getStatements(),
@@ -1202,7 +1335,7 @@ public class TestUtils {
                     // Flatten the try statement into a block statement
                     BlockStmt flatTryStmt = flatTryStmt(junitVersion, tryStmt);
                     // Parse the statements of the synchronized body and split it into multiple test cases
-                    Pair<MethodDeclaration, List<MethodDeclaration>> resultTry = parseSplitTestStatementsBlock(
+                    Pair<MethodDeclaration, List<SplitTestCase>> resultTry = parseSplitTestStatementsBlock(
                             config,
                             junitVersion,
                             new ArrayList<>(flatTryStmt.getStatements()),
@@ -1234,7 +1367,7 @@ public class TestUtils {
                         catchClauseClone.setBody(new BlockStmt());
                         addCatchClause(catchClauseClone, splitTestCaseBody);
                         // Parse the statements of the catch body and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> resultCatch = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> resultCatch = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(catchStmtBody)),
@@ -1259,7 +1392,7 @@ public class TestUtils {
                         // Add the cloned while statement to the current split test case body
                         addStatement(new BlockStmt(), splitTestCaseBody, BlockStatementsType.FINALLY);
                         // Parse the statements of the try block and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(tryStmt.getFinallyBlock().get())),
@@ -1347,7 +1480,7 @@ public class TestUtils {
                         }
 
                         // Parse the statements of the try block and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> resultTry = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> resultTry = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(tryStmtFilteredStmtClone.getTryBlock().getStatements()),
@@ -1368,8 +1501,8 @@ public class TestUtils {
                         idx += resultTry.getValue1().size();
                         if (resultTry.getValue1().size() > 0) {
                             if (config.splitStrategy() == SplitStrategyType.STATEMENT && splitTestCases.size() > 0) {
-                                MethodDeclaration lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
-                                if (lastAddedSplitTestCase.getBody().get().equals(splitTestCaseBody)) {
+                                SplitTestCase lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
+                                if (lastAddedSplitTestCase.hasBody(splitTestCaseBody)) {
                                     continue;
                                 }
                             }
@@ -1385,7 +1518,7 @@ public class TestUtils {
                         // Add the cloned while statement to the current split test case body
                         addStatement(tryStmtClone, splitTestCaseBody, blockStatementsType);
                         // Parse the statements of the try block and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> resultTry = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> resultTry = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(tryStmtBody)),
@@ -1416,7 +1549,7 @@ public class TestUtils {
                         catchClauseClone.setBody(new BlockStmt());
                         addCatchClause(catchClauseClone, splitTestCaseBody);
                         // Parse the statements of the catch body and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> resultCatch = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> resultCatch = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(catchStmtBody)),
@@ -1441,7 +1574,7 @@ public class TestUtils {
                         // Add the cloned while statement to the current split test case body
                         addStatement(new BlockStmt(), splitTestCaseBody, BlockStatementsType.FINALLY);
                         // Parse the statements of the try block and split it into multiple test cases
-                        Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                        Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                                 config,
                                 junitVersion,
                                 new ArrayList<>(Arrays.asList(tryStmt.getFinallyBlock().get())),
@@ -1471,7 +1604,7 @@ public class TestUtils {
                 // Add the cloned while statement to the current split test case body
                 addStatement(whileStmtClone, splitTestCaseBody, blockStatementsType);
                 // Parse the statements of the while body and split it into multiple test cases
-                Pair<MethodDeclaration, List<MethodDeclaration>> result = parseSplitTestStatementsBlock(
+                Pair<MethodDeclaration, List<SplitTestCase>> result = parseSplitTestStatementsBlock(
                         config,
                         junitVersion,
                         new ArrayList<>(Arrays.asList(whileStmtBody)),
@@ -1497,14 +1630,11 @@ public class TestUtils {
             }
             if ((isAssertion && config.splitStrategy() == SplitStrategyType.ASSERTION) || config.splitStrategy() == SplitStrategyType.STATEMENT) {
                 if (splitTestCases.size() > 0) {
-                    MethodDeclaration lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
-                    if(lastAddedSplitTestCase.getBody().get().equals(splitTestCaseBody)) {
+                    SplitTestCase lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
+                    if(lastAddedSplitTestCase.hasBody(splitTestCaseBody)) {
                         continue;
                     }
                 }
-                // Initialize a new split test case, starting from the body of the previous one
-                MethodDeclaration newSplitTestCase = initializeSplitTestCase(splitTestCase, testCasePrefixName, exceptionsToThrow, ++idx);
-
                 // List<Comment> comments = newSplitTestCase.getAllContainedComments();
                 // for (Comment comment : comments) {
                 //     if (comment.isLineComment()) {
@@ -1514,12 +1644,8 @@ public class TestUtils {
                 //         }
                 //     }
                 // }
-                // Add the split test case to the list
-                splitTestCases.add(splitTestCase);
-                // Update the split test case with the new one
-                splitTestCase = newSplitTestCase;
-                // Get the body of the new split test case
-                splitTestCaseBody = splitTestCase.getBody().orElseThrow();
+                // Add the split test case to the list and continue a new split test case from the same body
+                completeSplitTestCase(splitTestCases, splitTestCase, testCasePrefixName, exceptionsToThrow, ++idx);
             }
         }
         // Check if the number of split test cases generated is equal to the number of assertions in the original test case
@@ -1534,10 +1660,10 @@ public class TestUtils {
         }
         // Check if the current split test case has more statements than the last split test case added to the list
         if (splitTestCases.size() > 0 && recursionLevel == 0 && config.keepStatementsAfterLastAssertion()) {
-            MethodDeclaration lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
-            if(!lastAddedSplitTestCase.getBody().get().equals(splitTestCaseBody)) {
+            SplitTestCase lastAddedSplitTestCase = splitTestCases.get(splitTestCases.size() - 1);
+            if(!lastAddedSplitTestCase.hasBody(splitTestCaseBody)) {
                 // Add the last split test case to the list
-                splitTestCases.add(splitTestCase);
+                splitTestCases.add(SplitTestCase.of(splitTestCase));
             }
         }
         // Return the list of split test cases generated
@@ -1871,23 +1997,6 @@ public class TestUtils {
         return thrownedException;
     }
 
-    /**
-     * Given a BlockStmt representing the body of a method, and the mapping of the parameters to replace in the block of
-     * statements, replace the parameters with the actual arguments in the block of statements.
-     * @param blockStmt the body of the method to process
-     * @param paramMapping the mapping of the parameters to replace in the block of statements
-     */
-    private static void replaceParams(BlockStmt blockStmt, Map<String, Expression> paramMapping) {
-        NameExprVisitor nameExprCollector = new NameExprVisitor();
-        List<NameExpr> nameExprs = nameExprCollector.visit(blockStmt);
-        nameExprs.forEach(nameExpr -> {
-            String varName = nameExpr.getNameAsString();
-            if (paramMapping.containsKey(varName)) {
-                nameExpr.replace(paramMapping.get(varName).clone());
-            }
-        });
-    }
-
     /**
      * Given a BlockStmt representing the body of a method, and the mapping of the variables to replace in the block of
      * statements, replace the variables with the renamed names in the block of statements.
@@ -1951,36 +2060,14 @@ public class TestUtils {
         }
         if (auxiliaryMethods.containsKey(methodSignature)) {
             MethodDeclaration auxiliaryMethodDeclaration = auxiliaryMethods.get(methodSignature);
-
-            if (auxiliaryMethodDeclaration.getTypeParameters().size() > 0) {
-                logger.error("Auxiliary method with type parameters is not supported.");
-                return Optional.empty();
-            }
-
-            BlockStmt auxBody = auxiliaryMethodDeclaration.getBody().get();
-            ReturnStmtVisitor returnStmtCollector = new ReturnStmtVisitor();
-            List<ReturnStmt> returnStmts = returnStmtCollector.visit(auxBody);
-            if (returnStmts.size() > 1) {
-                logger.error("Multiple return statements in the auxiliary method.");
+            // Get the template of the auxiliary method (validated only the first time it is integrated)
+            AuxiliaryMethodTemplate auxiliaryMethodTemplate = AuxiliaryMethodTemplate.of(auxiliaryMethodDeclaration);
+            if (auxiliaryMethodTemplate.getError().isPresent()) {
+                logger.error(auxiliaryMethodTemplate.getError().get());
                 return Optional.empty();
             }
-            if (returnStmts.size() == 1) {
-                ReturnStmt returnStmt = returnStmts.get(0);
-                Optional<Expression> returnExpr = returnStmt.getExpression();
-                if (returnExpr.isEmpty()) {
-                    logger.error("Empty return statement in the auxiliary method.");
-                    return Optional.empty();
-                }
-                if (!(auxBody.getStatements().getLast().get() == returnStmt)) {
-                    logger.error("Return statement not at the end of the auxiliary method.");
-                    return Optional.empty();
-                }
-                auxBody.getStatements().remove(returnStmt);
-                ExpressionStmt returnExprStmt = new ExpressionStmt(returnExpr.get());
-                auxBody.addStatement(returnExprStmt);
-            }
-            // Clone and modify the auxiliary method body to replace variables
-            BlockStmt clonedAuxBody = auxBody.clone();
+            // Statements to add at the beginning of the cloned auxiliary method body
+            List<Statement> auxAddedStatements = new ArrayList<>();
             // Map parameters from the method call to actual arguments
             Map<String, Expression> paramMapping = new HashMap<>();
             // Map variables defined both in the auxiliary method and in the main method
@@ -2031,7 +2118,7 @@ public class TestUtils {
                     AssignExpr executableVarDeclExprAssign = new AssignExpr();
                     executableVarDeclExprAssign.setTarget(executableVarDeclExpr);
                     executableVarDeclExprAssign.setValue(arguments.get(i));
-                    clonedAuxBody.addStatement(0, executableVarDeclExprAssign);
+                    auxAddedStatements.add(0, new ExpressionStmt(executableVarDeclExprAssign));
                     paramMapping.put(parameters.get(i).getNameAsString(), new NameExpr(executableVarName));
                 } else {
                     if (!parameters.get(i).isVarArgs()) {
@@ -2041,24 +2128,20 @@ public class TestUtils {
             }
             // Map the original variables containing the same name of the variables
             // defined in the auxiliary method
-            VariableDeclarationExprVisitor varDeclarationExprCollector = new VariableDeclarationExprVisitor();
-            List<VariableDeclarationExpr> auxVarDeclarationExprs = varDeclarationExprCollector.visit(auxBody);
-            auxVarDeclarationExprs.forEach(auxVarDecl -> {
-                auxVarDecl.getVariables().forEach(auxVar -> {
-                    if (existingVariables.contains(auxVar.getNameAsString())) {
-                        int i = 0;
-                        while (existingVariables.contains(auxVar.getNameAsString() + "_" + i)) {
-                            i++;
-                        }
-                        varMapping.put(auxVar.getNameAsString(), auxVar.getNameAsString() + "_" + i);
-                        existingVariables.add(auxVar.getNameAsString() + "_" + i);
-                    } else {
-                        existingVariables.add(auxVar.getNameAsString());
+            for (String auxVarName : auxiliaryMethodTemplate.getDeclaredVariables()) {
+                if (existingVariables.contains(auxVarName)) {
+                    int i = 0;
+                    while (existingVariables.contains(auxVarName + "_" + i)) {
+                        i++;
                     }
-                });
-            });
-            replaceParams(clonedAuxBody, paramMapping);
-            replaceVariables(clonedAuxBody, varMapping);
+                    varMapping.put(auxVarName, auxVarName + "_" + i);
+                    existingVariables.add(auxVarName + "_" + i);
+                } else {
+                    existingVariables.add(auxVarName);
+                }
+            }
+            // Clone the auxiliary method body, replacing parameters and variables
+            BlockStmt clonedAuxBody = auxiliaryMethodTemplate.instantiate(auxAddedStatements, paramMapping, varMapping);
             // Add the cloned auxiliary method body to the main method body
             currentBlockStmt.getStatements().addAll(clonedAuxBody.getStatements());
             return Optional.of(auxiliaryMethodDeclaration);
@@ -2201,19 +2284,11 @@ public class TestUtils {
     private static int getNumberOfAssertions(List<Statement> statements) {
         int assertionCounter = 0;
         for (Statement statement : statements) {
-            MethodCallExprVisitor methodCallExprCollector = new MethodCallExprVisitor();
-            List<MethodCallExpr> methodCallExprs = methodCallExprCollector.visit(statement);
-            for(MethodCallExpr methodCallExpr : methodCallExprs) {
-                if (JUnitAssertionType.isJUnitAssertion(methodCallExpr.getNameAsString())) {
-                    assertionCounter++;
-                } else {
-                    // TODO: Check if the statement is a method call expression that refers to an auxiliary method
-                    //       (defined or inherited) with assertions
-                }
-            }
-            AssertStmtVisitor assertStmtCollector = new AssertStmtVisitor();
-            List<AssertStmt> assertStmts = assertStmtCollector.visit(statement);
-            assertionCounter += assertStmts.size();
+            MethodAstIndex index = MethodAstIndex.of(statement);
+            // TODO: Check if the statement is a method call expression that refers to an auxiliary method
+            //       (defined or inherited) with assertions
+            assertionCounter += index.getAssertions(statement).size();
+            assertionCounter += index.findAll(statement, AssertStmt.class).size();
         }
         return assertionCounter;
     }
@@ -2225,19 +2300,13 @@ public class TestUtils {
         }
 
         for (Statement statement : statements) {
-            MethodCallExprVisitor methodCallExprCollector = new MethodCallExprVisitor();
-            List<MethodCallExpr> methodCallExprs = methodCallExprCollector.visit(statement);
-            for(MethodCallExpr methodCallExpr : methodCallExprs) {
-                if (JUnitAssertionType.isJUnitAssertion(methodCallExpr.getNameAsString())) {
-                    assertionDistribution.put(methodCallExpr.getNameAsString(), assertionDistribution.get(methodCallExpr.getNameAsString()) + 1);
-                } else {
-                    // TODO: Check if the statement is a method call expression that refers to an auxiliary method
-                    //       (defined or inherited) with assertions
-                }
+            MethodAstIndex index = MethodAstIndex.of(statement);
+            // TODO: Check if the statement is a method call expression that refers to an auxiliary method
+            //       (defined or inherited) with assertions
+            for (MethodCallExpr methodCallExpr : index.getAssertions(statement)) {
+                assertionDistribution.put(methodCallExpr.getNameAsString(), assertionDistribution.get(methodCallExpr.getNameAsString()) + 1);
             }
-            AssertStmtVisitor assertStmtCollector = new AssertStmtVisitor();
-            List<AssertStmt> assertStmts = assertStmtCollector.visit(statement);
-            assertionDistribution.put("assert", assertStmts.size());
+            assertionDistribution.put("assert", index.findAll(statement, AssertStmt.class).size());
         }
         return assertionDistribution;
     }
@@ -2408,7 +2477,7 @@ public class TestUtils {
             assertThrowsCall.setArguments(arguments);
             VariableDeclarator variableDeclarator = new VariableDeclarator(
                     new ClassOrInterfaceType(null, exceptionClass.asString()),
-                    "e" + variableID++,
+                    "e" + TestProcessingContext.current().nextVariableID(),
                     assertThrowsCall
             );
             VariableDeclarationExpr variableDeclarationExpr = new VariableDeclarationExpr(variableDeclarator);
@@ -2463,21 +2532,172 @@ public class TestUtils {
         return Optional.empty();
     }
 
+    /**
+     * Process the test class of a given repository to generate all the oracles datapoints {@link TestClazzOracleDatapoints}
+     * from its test cases, within the given test processing context.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration of the oracles dataset
+     * @param testFilePath the path to the test class to process
+     * @param sourceFilePath the path to the corresponding source file, if available
+     * @param repoRootPath the path to the root of the repository
+     * @return the list of oracle datapoints generated from the test cases of the test class and a hashmap containing
+     * the logs of the errors encountered when processing each test cases
+     */
+    public static Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processSplitTestClass(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            Path testFilePath,
+            Path sourceFilePath,
+            Path repoRootPath
+    ) {
+        return context.call(() -> processSplitTestClass(config, testFilePath, Optional.empty(), sourceFilePath, repoRootPath));
+    }
+
+    /**
+     * Process the test class of a given repository to generate all the oracles datapoints {@link TestClazzOracleDatapoints}
+     * from its test cases, within the given test processing context. The split test class is not parsed from the test
+     * file, but the given compilation unit is processed directly.
+     *
+     * @param context the test processing context of the repository
+     * @param config the configuration of the oracles dataset
+     * @param testFilePath the path to the split test class
+     * @param cuTestClass the compilation unit of the split test class
+     * @param sourceFilePath the path to the corresponding source file, if available
+     * @param repoRootPath the path to the root of the repository
+     * @return the list of oracle datapoints generated from the test cases of the test class and a hashmap containing
+     * the logs of the errors encountered when processing each test cases
+     */
+    public static Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processSplitTestClass(
+            TestProcessingContext context,
+            OraclesDatasetConfig config,
+            Path testFilePath,
+            CompilationUnit cuTestClass,
+            Path sourceFilePath,
+            Path repoRootPath
+    ) {
+        return context.call(() -> processSplitTestClass(config, testFilePath, Optional.of(cuTestClass), sourceFilePath, repoRootPath));
+    }
+
+    /**
+     * Collect the files the oracles datapoints of a test class depend on: the test class itself, the focal class, the
+     * classes of the repository referenced by the test class (like the types of its fields, variables and object
+     * creations), whose invoked methods are embedded in the oracles datapoints, and the classes extended or implemented
+     * (iteratively) by all of them, as retrieved by {@link #getRelatedTypeDeclarations(TypeDeclaration, Path)}. A
+     * change in any of these files can change the oracles datapoints generated from the test class.
+     *
+     * @param context the test processing context of the repository
+     * @param testFilePath the path to the original test class
+     * @param sourceFilePath the path to the corresponding source file, if available
+     * @param repoRootPath the path to the root of the repository
+     * @return the paths of the files the test class depends on (including the test class itself)
+     */
+    public static List<Path> collectTestClassDependencies(
+            TestProcessingContext context,
+            Path testFilePath,
+            Optional<Path> sourceFilePath,
+            Path repoRootPath
+    ) {
+        // Define the set of dependencies, preserving the order of discovery
+        Set<Path> dependencies = new LinkedHashSet<>();
+        dependencies.add(testFilePath);
+        context.run(() -> {
+            // Collect the test class, the focal class (if available), and the classes referenced by the test class
+            List<Path> classFilePaths = new ArrayList<>();
+            classFilePaths.add(testFilePath);
+            sourceFilePath.ifPresent(classFilePaths::add);
+            List<TypeDeclaration<?>> typeDeclarations = new ArrayList<>();
+            for (Path classFilePath : classFilePaths) {
+                dependencies.add(classFilePath);
+                try {
+                    Optional<TypeDeclaration<?>> primaryType = JavaParserUtils.getCachedCompilationUnit(classFilePath).getPrimaryType();
+                    if (primaryType.isPresent()) {
+                        typeDeclarations.add(primaryType.get());
+                        if (classFilePath.equals(testFilePath)) {
+                            typeDeclarations.addAll(getReferencedTypeDeclarations(primaryType.get()));
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.error("Error reading file: " + classFilePath);
+                }
+            }
+            // Collect the files of the classes, and of the classes related to them
+            for (TypeDeclaration<?> typeDeclaration : typeDeclarations) {
+                Optional<CompilationUnit> cu = typeDeclaration.findCompilationUnit();
+                if (cu.isEmpty() || cu.get().getStorage().isEmpty()) {
+                    continue;
+                }
+                Path classFilePath = cu.get().getStorage().get().getPath();
+                dependencies.add(classFilePath);
+                // The related classes are retrieved for the top level classes only (as for the invoked methods)
+                Optional<TypeDeclaration<?>> primaryType = cu.get().getPrimaryType();
+                if (!typeDeclaration.isTopLevelType() || primaryType.isEmpty() || primaryType.get().getFullyQualifiedName().isEmpty()) {
+                    continue;
+                }
+                // Get the path of the source directory containing the class
+                Path classSourcePath = Path.of(classFilePath.toString().replace(FilesUtils.getFQNPath(primaryType.get().getFullyQualifiedName().get()).toString(), ""));
+                for (TypeDeclaration relatedTypeDeclaration : getRelatedTypeDeclarations(typeDeclaration, classSourcePath)) {
+                    Optional<CompilationUnit> relatedCu = relatedTypeDeclaration.findCompilationUnit();
+                    if (relatedCu.isPresent() && relatedCu.get().getStorage().isPresent()) {
+                        dependencies.add(relatedCu.get().getStorage().get().getPath());
+                    }
+                }
+            }
+        });
+        // Keep only the dependencies within the repository
+        return dependencies.stream().filter(dependency -> dependency.startsWith(repoRootPath)).collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieve the type declarations of the repository referenced by a test class (like the types of its fields, of
+     * its variables, and of its object creations), which are the classes whose methods invoked by the test cases are
+     * processed by {@link #processInvokedMethods}. The types that cannot be resolved, or that are declared outside the
+     * java sources (like the ones of the jar libraries), are ignored.
+     *
+     * @param testClass the test class
+     * @return the list of the referenced type declarations, without duplicates
+     */
+    private static List<TypeDeclaration<?>> getReferencedTypeDeclarations(TypeDeclaration<?> testClass) {
+        Set<String> typeNames = new HashSet<>();
+        Set<String> qualifiedNames = new HashSet<>();
+        List<TypeDeclaration<?>> referencedTypeDeclarations = new ArrayList<>();
+        for (ClassOrInterfaceType type : testClass.findAll(ClassOrInterfaceType.class)) {
+            if (!typeNames.add(type.getNameWithScope())) {
+                continue;
+            }
+            try {
+                ResolvedType resolvedType = type.resolve();
+                if (resolvedType.isReferenceType() && qualifiedNames.add(resolvedType.asReferenceType().getQualifiedName())) {
+                    Optional<Node> typeNode = resolvedType.asReferenceType().getTypeDeclaration().flatMap(ResolvedReferenceTypeDeclaration::toAst);
+                    if (typeNode.isPresent() && typeNode.get() instanceof TypeDeclaration<?> typeDeclaration) {
+                        referencedTypeDeclarations.add(typeDeclaration);
+                    }
+                }
+            } catch (Exception e) {
+                // Ignore the types that cannot be resolved
+            }
+        }
+        return referencedTypeDeclarations;
+    }
+
     /**
      * Process the test class of a given repository to generate all the oracles datapoints {@link TestClazzOracleDatapoints}
      * from its test cases.
      *
      * @param config the configuration of the oracles dataset
      * @param testFilePath the path to the test class to process
+     * @param testCompilationUnit the compilation unit of the test class. If empty, the test class is parsed from the
+     *                            test file
      * @param sourceFilePath the path to the corresponding source file, if available
      * @param repoRootPath the path to the root of the repository
      * @return the list of oracle datapoints generated from the test cases of the test class and a hashmap containing
      * the logs of the errors encountered when processing each test cases (which invoked methods cannot be processed
      * in each test case of the test class)
      */
-    public static Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processSplitTestClass(
+    private static Pair<TestClazzOracleDatapoints, HashMap<String, HashMap<String, List<String>>>> processSplitTestClass(
             OraclesDatasetConfig config,
             Path testFilePath,
+            Optional<CompilationUnit> testCompilationUnit,
             Path sourceFilePath,
             Path repoRootPath
     ) {
@@ -2491,7 +2711,7 @@ public class TestUtils {
         // Process the test class and generate the corresponding oracles datapoints
         try {
             // Parse the test class and focal classes
-            CompilationUnit cuTestClass = JavaParserUtils.getCompilationUnit(testFilePath);
+            CompilationUnit cuTestClass = testCompilationUnit.isPresent() ? testCompilationUnit.get() : JavaParserUtils.getCompilationUnit(testFilePath);
             CompilationUnit cuFocalClass = JavaParserUtils.getCompilationUnit(sourceFilePath);
             // Get the primary type of the test and focal classes
             TypeDeclaration testClass = cuTestClass.getPrimaryType().orElseThrow(() -> new IllegalStateException("Primary type not found in test class: " + testFilePath));
@@ -3141,72 +3361,15 @@ public class TestUtils {
     }
 
     /**
-     * Process a type declaration to retrieve the list of related type declarations (extended and implemented classes), iteratively.
+     * Process a type declaration to retrieve the list of related type declarations (extended and implemented classes), iteratively,
+     * through the {@link TypeHierarchyService} of the context bound to the current thread.
      *
      * @param referenceTypeDeclaration the reference type declaration to analyze
      * @param repoSourcePath the root path of the repository where the type declaration is located
      * @return the list of related type declarations (extended and implemented classes) of the reference type declaration
      */
-    private static List<TypeDeclaration> getRelatedTypeDeclarations(TypeDeclaration referenceTypeDeclaration, Path repoSourcePath, Set<String> visited) {
-        // Define the list of related type declarations to return. Initially empty.
-        List<TypeDeclaration> relatedTypeDeclarations = new ArrayList<>();
-        // Define the list of extended and implemented types of the reference type declaration
-        List<ClassOrInterfaceType> extendedAndImplementedTypes = new ArrayList<>();
-        // Check if the reference type declaration is a class or interface declaration. In this case, retrieve the
-        // extended and implemented types.
-        if (referenceTypeDeclaration instanceof ClassOrInterfaceDeclaration) {
-            extendedAndImplementedTypes.addAll(((ClassOrInterfaceDeclaration) referenceTypeDeclaration).getExtendedTypes());
-            extendedAndImplementedTypes.addAll(((ClassOrInterfaceDeclaration) referenceTypeDeclaration).getImplementedTypes());
-        } else {
-            // Not a class or interface declaration. No extended or implemented types to retrieve. Return an empty list.
-            return relatedTypeDeclarations;
-        }
-        // Retrieve the compilation unit of the reference type declaration
-        CompilationUnit referenceTypeCu = (CompilationUnit) referenceTypeDeclaration.getParentNode().orElse(null);
-        // Retrieve the list of imports of the reference type compilation unit
-        NodeList<ImportDeclaration> referenceTypeImports = referenceTypeCu != null ? referenceTypeCu.getImports() : new NodeList<>();
-        // Retrieve the package of the reference type declaration
-        PackageDeclaration referenceTypePackage = referenceTypeCu != null ? referenceTypeCu.getPackageDeclaration().orElse(null) : null;
-        // Iterate over the extended and implemented types of the reference type declaration
-        // to collect the related type declarations (iteratively)
-        for (ClassOrInterfaceType extendedOrImplementedType : extendedAndImplementedTypes) {
-            // Retrieve the name of the extended or implemented type
-            String extendedOrImplementedTypeName = extendedOrImplementedType.getNameAsString();
-            // Define the fully qualified name of the extended or implemented type to resolve. Initially null.
-            String fqn = null;
-            // Check if the extended or implemented type is imported in the reference type compilation unit
-            for (ImportDeclaration referenceTypeImport : referenceTypeImports) {
-                String importName = referenceTypeImport.getNameAsString();
-                // Check if the import name ends with the name of the extended or implemented type
-                if (importName.endsWith(extendedOrImplementedTypeName)) {
-                    // Set the fully qualified name of the extended or implemented type and break the loop. The reference
-                    // type declaration is found in the imports.
-                    fqn = importName;
-                    break;
-                }
-            }
-            // Check if the fully qualified name of the extended or implemented type is still null. In this case, if
-            // the package of the reference type declaration is not null, set the fully qualified name of the extended
-            // or implemented type by concatenating the package name and the name of the extended or implemented type.
-            // The reference type can lie in the same package of the reference type declaration.
-            if (fqn == null && referenceTypePackage != null) {
-                fqn = referenceTypePackage.getNameAsString().concat("." + extendedOrImplementedTypeName);
-            }
-
-            if (fqn != null && !visited.contains(fqn)) {
-                visited.add(fqn);
-                try {
-                    Optional<TypeDeclaration> relatedTypeDeclaration = JavaParserUtils.retrieveTypeDeclarationFromFullyQualifiedName(fqn, repoSourcePath);
-                    if (relatedTypeDeclaration.isPresent()) {
-                        relatedTypeDeclarations.add(relatedTypeDeclaration.get());
-                        relatedTypeDeclarations.addAll(getRelatedTypeDeclarations(relatedTypeDeclaration.get(), repoSourcePath, visited));
-                    }
-                } catch (Exception e) {
-                    logger.error("Error retrieving related type declaration: " + fqn);
-                }
-            }
-        }
-        return relatedTypeDeclarations;
+    private static List<TypeDeclaration> getRelatedTypeDeclarations(TypeDeclaration<?> referenceTypeDeclaration, Path repoSourcePath) {
+        return TestProcessingContext.current().getTypeHierarchyService().getRelatedTypeDeclarations(referenceTypeDeclaration, repoSourcePath);
     }
 
     private static Pair<Callable,List<Callable>> processInvokedMethods(Path repoSourcePath, TypeDeclaration focalClass, TypeDeclaration testClass, MethodDeclaration testCase, HashMap<String, HashMap<String, List<String>>> testsProcessingErrors, OraclesDatasetConfig config) {
@@ -3330,7 +3493,7 @@ public class TestUtils {
                             }
                             // If the focal method is still not found, search it within the inherited methods of the focal class
                             if (invokedMethod == null) {
-                                List<TypeDeclaration> relatedTypeDeclarations = getRelatedTypeDeclarations(invokedClass, repoSourcePath, new HashSet<>());
+                                List<TypeDeclaration> relatedTypeDeclarations = getRelatedTypeDeclarations(invokedClass, repoSourcePath);
                                 relatedTypeDeclarations.add(0, invokedClass);
                                 for (TypeDeclaration relatedTypeDeclaration : relatedTypeDeclarations) {
                                     invokedClass = relatedTypeDeclaration;
@@ -0,0 +1,204 @@
+package star.llms.prompts.dataset.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.NamingConvention;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An immutable index of the files of a repository, collected with a single (parallel) walk of its file tree. The index
+ * is shared by all the steps that need to know the files of the repository (the collection of the java files, the
+ * cleaning of the files generated by a previous execution, the search of the decompiled libraries, and the search of
+ * the source roots of the projects), so that the file tree is walked only once.
+ * <p>
+ * The java files within the decompiled libraries folders ({@link NamingConvention#DECOMPILED_LIB_FOLDER}) and the test
+ * classes generated by a previous execution ({@link NamingConvention#NORMALIZED_TEST_FILE} and
+ * {@link NamingConvention#TEST_SPLIT_FILE}) are not indexed as java files of the repository, but separately from the
+ * other java files. All the lists follow the order of a sequential walk of the file tree, regardless of the parallelism
+ * of the walk.
+ */
+public class RepositoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryIndex.class);
+
+    /* The paths (relative to a directory) identifying the source roots of a Java project, in order of priority. */
+    private static final List<String> SOURCE_ROOT_PATTERNS = List.of(
+            "src/main/java", "src/java/main", "src/java", "src/source", "src", "code", "source", "java",
+            "src/test/java", "src/tests/java", "src/java/test", "src/test", "test/java", "test", "unittest"
+    );
+
+    /* The path to the root of the repository. */
+    private final Path repoRootPath;
+    /* The java files of the repository (excluding the decompiled libraries and the generated test classes). */
+    private final List<Path> javaFilePaths;
+    /* The java files within the decompiled libraries folders. */
+    private final List<Path> decompiledJavaFilePaths;
+    /* The test classes generated by a previous execution. */
+    private final List<Path> generatedFilePaths;
+    /* The folders of the decompiled libraries. */
+    private final List<Path> decompiledLibrariesPaths;
+    /* The source roots of the Java projects within the repository (and the root of the repository, as last element). */
+    private final List<Path> sourceRootPaths;
+
+    private RepositoryIndex(Path repoRootPath, List<Path> javaFilePaths, List<Path> decompiledJavaFilePaths, List<Path> generatedFilePaths, List<Path> decompiledLibrariesPaths, List<Path> sourceRootPaths) {
+        this.repoRootPath = repoRootPath;
+        this.javaFilePaths = List.copyOf(javaFilePaths);
+        this.decompiledJavaFilePaths = List.copyOf(decompiledJavaFilePaths);
+        this.generatedFilePaths = List.copyOf(generatedFilePaths);
+        this.decompiledLibrariesPaths = List.copyOf(decompiledLibrariesPaths);
+        this.sourceRootPaths = List.copyOf(sourceRootPaths);
+    }
+
+    /**
+     * Walk the file tree of a repository (in parallel) and build its index. The directories that cannot be read are
+     * skipped.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @return the index of the repository
+     */
+    public static RepositoryIndex scan(Path repoRootPath) {
+        List<ScanEntry> scanEntries = ForkJoinPool.commonPool().invoke(new ScanTask(repoRootPath, false));
+        List<Path> javaFilePaths = new ArrayList<>();
+        List<Path> decompiledJavaFilePaths = new ArrayList<>();
+        List<Path> generatedFilePaths = new ArrayList<>();
+        List<Path> decompiledLibrariesPaths = new ArrayList<>();
+        List<Path> directories = new ArrayList<>();
+        for (ScanEntry scanEntry : scanEntries) {
+            String pathStr = scanEntry.path().toString();
+            if (scanEntry.directory()) {
+                directories.add(scanEntry.path());
+                if (pathStr.endsWith(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
+                    decompiledLibrariesPaths.add(scanEntry.path());
+                }
+            } else if (scanEntry.decompiled()) {
+                decompiledJavaFilePaths.add(scanEntry.path());
+            } else {
+                if (pathStr.endsWith(NamingConvention.TEST_SPLIT_FILE.getConventionName()) || pathStr.endsWith(NamingConvention.NORMALIZED_TEST_FILE.getConventionName())) {
+                    generatedFilePaths.add(scanEntry.path());
+                } else {
+                    javaFilePaths.add(scanEntry.path());
+                }
+            }
+        }
+        return new RepositoryIndex(repoRootPath, javaFilePaths, decompiledJavaFilePaths, generatedFilePaths, decompiledLibrariesPaths, findSourceRootPaths(repoRootPath, directories));
+    }
+
+    /**
+     * Find the source roots of the Java projects, matching the directories of the file tree against the common patterns
+     * identifying Java projects (both to source and test files). For each directory, only the first pattern matched is
+     * considered.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param directories the directories of the file tree
+     * @return the list of the source roots, followed by the root of the repository
+     */
+    private static List<Path> findSourceRootPaths(Path repoRootPath, List<Path> directories) {
+        Set<Path> directoriesSet = new HashSet<>(directories);
+        List<Path> sourceRootPaths = new ArrayList<>();
+        for (Path directory : directories) {
+            for (String sourceRootPattern : SOURCE_ROOT_PATTERNS) {
+                Path sourceRootPath = directory.resolve(sourceRootPattern);
+                if (directoriesSet.contains(sourceRootPath)) {
+                    sourceRootPaths.add(sourceRootPath);
+                    break;
+                }
+            }
+        }
+        sourceRootPaths.add(repoRootPath);
+        return sourceRootPaths;
+    }
+
+    public Path getRepoRootPath() {
+        return repoRootPath;
+    }
+
+    public List<Path> getJavaFilePaths() {
+        return javaFilePaths;
+    }
+
+    public List<Path> getDecompiledJavaFilePaths() {
+        return decompiledJavaFilePaths;
+    }
+
+    public List<Path> getGeneratedFilePaths() {
+        return generatedFilePaths;
+    }
+
+    public List<Path> getDecompiledLibrariesPaths() {
+        return decompiledLibrariesPaths;
+    }
+
+    public List<Path> getSourceRootPaths() {
+        return sourceRootPaths;
+    }
+
+    /**
+     * An entry of the file tree: a directory or a java file.
+     *
+     * @param path the path of the entry
+     * @param directory true if the entry is a directory
+     * @param decompiled true if the entry is within a decompiled library folder
+     */
+    private record ScanEntry(Path path, boolean directory, boolean decompiled) {}
+
+    /**
+     * The task walking a directory of the file tree. The subdirectories are walked by subtasks, and their entries are
+     * merged in the order of a sequential walk. The tasks are never serialized (although every ForkJoinTask is
+     * serializable), so the path they walk is not required to be serializable.
+     */
+    @SuppressWarnings("serial")
+    private static class ScanTask extends RecursiveTask<List<ScanEntry>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /* The directory to walk. */
+        private final Path directory;
+        /* True if the directory is within a decompiled library folder. */
+        private final boolean decompiled;
+
+        ScanTask(Path directory, boolean parentDecompiled) {
+            this.directory = directory;
+            this.decompiled = parentDecompiled || directory.toString().contains(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName());
+        }
+
+        @Override
+        protected List<ScanEntry> compute() {
+            // Each part is either an entry of the directory or the task walking one of its subdirectories
+            List<Object> parts = new ArrayList<>();
+            parts.add(new ScanEntry(directory, true, decompiled));
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        ScanTask subtask = new ScanTask(entry, decompiled);
+                        subtask.fork();
+                        parts.add(subtask);
+                    } else if (entry.toString().endsWith(".java")) {
+                        parts.add(new ScanEntry(entry, false, decompiled));
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Unable to read the directory {}, skipping it.", directory, e);
+            }
+            List<ScanEntry> scanEntries = new ArrayList<>();
+            for (Object part : parts) {
+                if (part instanceof ScanTask subtask) {
+                    scanEntries.addAll(subtask.join());
+                } else {
+                    scanEntries.add((ScanEntry) part);
+                }
+            }
+            return scanEntries;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.ast.Node;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A cache of the resolutions of the callable expressions (method calls and object creations) of a repository. The
+ * same callable expressions (like the invocations of the focal methods, or the assertions) are resolved over and over
+ * across the test cases of a test class (and the split test cases multiply them), while the result of a resolution
+ * only depends on the type receiving the call, the name of the callable, and the types of its arguments.
+ * <p>
+ * The cache memoizes both the positive and the negative results: the declarations resolved by the symbol solver (or
+ * their absence), and the outcomes of the heuristic searches of the candidate callables (including the exceptions
+ * raised when no candidate, or multiple candidates, are found). The declarations are held through weak references, so
+ * that the cache does not keep alive the compilation units of the test classes already processed. The outcomes of the
+ * searches are held through soft references, and their number is bounded, so that they are released under memory
+ * pressure.
+ * <p>
+ * The cache is safe for concurrent use. Each thread has its own cache, since the declarations (and the methods found by
+ * the searches) are backed by the ASTs of the thread resolving them, which must not be handed to other threads. The
+ * metrics are collected across all the threads.
+ */
+public class CallResolutionCache {
+
+    /* The value cached for the callable expressions that the symbol solver cannot resolve to a declaration. */
+    private static final Object UNSOLVED = new Object();
+    /* The maximum number of outcomes of the searches cached by each thread. */
+    private static final int MAX_SEARCH_OUTCOMES = 10_000;
+
+    /* The declarations resolved by the symbol solver (or UNSOLVED) of each thread, by callable expression. */
+    private final ReleasableThreadLocal<Cache<CallKey, Object>> resolvedCalls = new ReleasableThreadLocal<>(() -> CacheBuilder.newBuilder().weakValues().build());
+    /* The outcomes of the searches of the candidate callables of each thread, by callable expression. */
+    private final ReleasableThreadLocal<Cache<CallKey, Outcome>> searchOutcomes = new ReleasableThreadLocal<>(() -> CacheBuilder.newBuilder().maximumSize(MAX_SEARCH_OUTCOMES).softValues().build());
+    /* The number of resolutions served by the cache. */
+    private final LongAdder hits = new LongAdder();
+    /* The number of resolutions computed (and cached). */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Get the declaration of a callable expression resolved by the symbol solver, resolving it only the first time
+     * (within the current thread).
+     *
+     * @param key the key of the callable expression
+     * @param resolver the resolution of the callable expression (empty if the symbol solver cannot resolve it)
+     * @return the declaration of the callable expression, or empty if the symbol solver cannot resolve it
+     */
+    public Optional<Node> resolve(CallKey key, Supplier<Optional<Node>> resolver) {
+        Cache<CallKey, Object> threadResolvedCalls = resolvedCalls.get();
+        Object cached = threadResolvedCalls.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached == UNSOLVED ? Optional.empty() : Optional.of((Node) cached);
+        }
+        misses.increment();
+        Optional<Node> resolved = resolver.get();
+        threadResolvedCalls.put(key, resolved.isPresent() ? resolved.get() : UNSOLVED);
+        return resolved;
+    }
+
+    /**
+     * Get the outcome of a search of the candidate callables of a callable expression, searching them only the first
+     * time (within the current thread). If the search raised an exception, the same exception is thrown again.
+     *
+     * @param key the key of the callable expression
+     * @param search the search of the candidate callables
+     * @return the result of the search
+     * @param <T> the type of the result of the search
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T search(CallKey key, Supplier<T> search) {
+        Cache<CallKey, Outcome> threadSearchOutcomes = searchOutcomes.get();
+        Outcome outcome = threadSearchOutcomes.getIfPresent(key);
+        if (outcome != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            try {
+                outcome = new Outcome(search.get(), null);
+            } catch (RuntimeException e) {
+                outcome = new Outcome(null, e);
+            }
+            threadSearchOutcomes.put(key, outcome);
+        }
+        if (outcome.failure() != null) {
+            throw outcome.failure();
+        }
+        return (T) outcome.result();
+    }
+
+    /**
+     * Release the resolutions cached by all the threads, once the cache is not used anymore.
+     */
+    public void release() {
+        resolvedCalls.release();
+        searchOutcomes.release();
+    }
+
+    /**
+     * Get the metrics of the cache, collected across all the threads.
+     *
+     * @return the number of hits and misses of the cache
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum());
+    }
+
+    /**
+     * The key of a callable expression.
+     *
+     * @param kind the kind of the resolution (for example, the resolution of a method call, or the search of a candidate
+     *             constructor)
+     * @param receiverType the type receiving the call (the fully qualified name, or the description of the type)
+     * @param name the name of the callable
+     * @param argumentTypes the descriptions of the types of the arguments
+     */
+    public record CallKey(String kind, String receiverType, String name, List<String> argumentTypes) {}
+
+    /**
+     * The outcome of a search: either a result (possibly null) or the exception raised.
+     *
+     * @param result the result of the search
+     * @param failure the exception raised by the search (null if the search completed)
+     */
+    private record Outcome(Object result, RuntimeException failure) {}
+
+    /**
+     * The metrics of the cache.
+     *
+     * @param hits the number of resolutions served by the cache
+     * @param misses the number of resolutions computed
+     */
+    public record Stats(long hits, long misses) {
+
+        /**
+         * Get the ratio of the resolutions served by the cache.
+         *
+         * @return the hit rate (0 if the cache has not been used)
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hit-rate=%.2f", hits, misses, hitRate());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the compilation units parsed from the java files of a repository, keyed by the path of the file
+ * and validated against its last modified time and size (a file changed on disk is parsed again). The cache is
+ * bounded by an estimate of the memory retained by the compilation units (proportional to the size of the source
+ * files), and evicts the least recently used compilation units once the ceiling is reached.
+ * <p>
+ * Each thread has its own cache, filled by the JavaParser of the thread, and the ceiling is split among the threads
+ * using the cache: the symbol solver writes the data of the AST nodes while resolving them (for example, the resolved
+ * types of the expressions), so a compilation unit is never handed to a thread other than the one that parsed it. The
+ * metrics are collected across all the threads. The cached compilation units are reused by the following requests of
+ * the same thread, so their structure must not be modified: the compilation units that are modified must be parsed
+ * from scratch instead (see {@link JavaParserUtils#getCompilationUnit(Path)}).
+ */
+public class CompilationUnitCache {
+
+    /* The default ceiling of the memory retained by the cached compilation units, in megabytes. */
+    public static final int DEFAULT_MAX_MEMORY_MB = 512;
+    /* The estimated heap retained by a compilation unit, for each byte of its source file (measured on the sources of
+       this project, where a compilation unit retains about 63 bytes for each byte of source). */
+    public static final int ESTIMATED_HEAP_BYTES_PER_SOURCE_BYTE = 64;
+
+    /* The JavaParser of the current thread, used to parse the files not cached. */
+    private final Supplier<JavaParser> javaParser;
+    /* The cached compilation units of each thread, by path of the file. */
+    private final ReleasableThreadLocal<Cache<Path, CachedCompilationUnit>> compilationUnits;
+    /* The number of requests served by the cache. */
+    private final LongAdder hits = new LongAdder();
+    /* The number of requests that required to parse the file (not cached, or changed on disk). */
+    private final LongAdder misses = new LongAdder();
+    /* The number of compilation units evicted to stay below the memory ceiling. */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache of compilation units.
+     *
+     * @param javaParser the supplier of the JavaParser of the current thread, used to parse the files not cached
+     * @param maxMemoryMb the ceiling of the (estimated) memory retained by the cached compilation units of all the
+     *                    threads, in megabytes. The cache is disabled if the ceiling is 0.
+     * @param threads the number of threads using the cache concurrently, among which the ceiling is split
+     * @throws IllegalArgumentException if the number of threads is not greater than 0
+     */
+    public CompilationUnitCache(Supplier<JavaParser> javaParser, int maxMemoryMb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be greater than 0. Found: " + threads);
+        }
+        this.javaParser = javaParser;
+        // The weights are expressed in kilobytes, to fit large ceilings in the int weights of the cache
+        long maxThreadWeight = (long) maxMemoryMb * 1024 / threads;
+        this.compilationUnits = new ReleasableThreadLocal<>(() -> CacheBuilder.newBuilder()
+                .maximumWeight(maxThreadWeight)
+                .weigher((Path path, CachedCompilationUnit cached) -> (int) Math.min(Integer.MAX_VALUE, Math.max(1, cached.size() * ESTIMATED_HEAP_BYTES_PER_SOURCE_BYTE / 1024)))
+                .removalListener(notification -> {
+                    if (notification.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build());
+    }
+
+    /**
+     * Get the compilation unit of a java file from the cache of the current thread, parsing the file only if it is not
+     * cached or it changed since it was cached. The compilation unit must not be modified, nor used by other threads.
+     *
+     * @param path the path to the java file
+     * @return the compilation unit of the file
+     * @throws IOException if an error occurs while reading the file
+     * @throws java.util.NoSuchElementException if the file cannot be parsed
+     */
+    public CompilationUnit get(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Cache<Path, CachedCompilationUnit> threadCompilationUnits = compilationUnits.get();
+        CachedCompilationUnit cached = threadCompilationUnits.getIfPresent(path);
+        if (cached != null && cached.lastModified() == lastModified && cached.size() == attributes.size()) {
+            hits.increment();
+            return cached.compilationUnit();
+        }
+        misses.increment();
+        CompilationUnit cu = javaParser.get().parse(path).getResult().orElseThrow();
+        threadCompilationUnits.put(path, new CachedCompilationUnit(cu, lastModified, attributes.size()));
+        return cu;
+    }
+
+    /**
+     * Release the compilation units cached by all the threads, once the cache is not used anymore.
+     */
+    public void release() {
+        compilationUnits.release();
+    }
+
+    /**
+     * Get the metrics of the cache, collected across all the threads.
+     *
+     * @return the number of hits, misses and evictions of the cache
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * A compilation unit in the cache, with the last modified time and the size of its file when it was parsed.
+     *
+     * @param compilationUnit the compilation unit
+     * @param lastModified the last modified time of the file (in milliseconds)
+     * @param size the size of the file (in bytes)
+     */
+    private record CachedCompilationUnit(CompilationUnit compilationUnit, long lastModified, long size) {}
+
+    /**
+     * The metrics of the cache.
+     *
+     * @param hits the number of requests served by the cache
+     * @param misses the number of requests that required to parse the file
+     * @param evictions the number of compilation units evicted to stay below the memory ceiling
+     */
+    public record Stats(long hits, long misses, long evictions) {
+
+        /**
+         * Get the ratio of the requests served by the cache.
+         *
+         * @return the hit rate (0 if the cache has not been used)
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, hit-rate=%.2f", hits, misses, evictions, hitRate());
+        }
+    }
+}
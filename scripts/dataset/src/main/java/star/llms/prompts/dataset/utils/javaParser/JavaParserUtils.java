@@ -18,8 +18,8 @@ import com.github.javaparser.ast.type.ReferenceType;
 import com.github.javaparser.ast.type.TypeParameter;
 import com.github.javaparser.resolution.MethodUsage;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
-import com.github.javaparser.resolution.declarations.ResolvedParameterDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedTypeParameterDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
@@ -29,8 +29,6 @@ import com.github.javaparser.symbolsolver.javaparsermodel.declarations.JavaParse
 import com.github.javaparser.symbolsolver.javassistmodel.JavassistMethodDeclaration;
 import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionMethodDeclaration;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import org.javatuples.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,12 +40,19 @@ import star.llms.prompts.dataset.data.exceptions.CandidateCallableMethodUsageNot
 import star.llms.prompts.dataset.data.exceptions.MultipleCandidatesException;
 import star.llms.prompts.dataset.data.exceptions.UnrecognizedExprException;
 import star.llms.prompts.dataset.utils.FilesUtils;
+import star.llms.prompts.dataset.utils.RepositoryIndex;
+import star.llms.prompts.dataset.utils.javaParser.solvers.IndexedJarTypeSolver;
+import star.llms.prompts.dataset.utils.javaParser.solvers.SharedTypeSolver;
+import star.llms.prompts.dataset.utils.javaParser.solvers.SourceFileCache;
+import star.llms.prompts.dataset.utils.javaParser.solvers.SourceRootsTypeSolver;
+import star.llms.prompts.dataset.utils.javaParser.solvers.ThreadConfinedCombinedTypeSolver;
 import star.llms.prompts.dataset.utils.javaParser.visitors.statements.helper.StmtVisitorHelper;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -60,7 +65,6 @@ import static org.plumelib.util.CollectionsPlume.mapList;
  */
 public class JavaParserUtils {
 
-    private static JavaParser javaParser;
     private static final Logger logger = LoggerFactory.getLogger(JavaParserUtils.class);
     /** Regex to match the Javadoc of a class or method. */
     private static final Pattern javadocPattern = Pattern.compile("/\\*\\*(.*?)\\*/", Pattern.DOTALL);
@@ -97,31 +101,136 @@ public class JavaParserUtils {
      *                  classpath is separated by a ":")
      * @return the corresponding JavaParser
      */
-    public static JavaParser setRepoJavaParser(Path repoRootPath, String classpath) {
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+    public static JavaParser createRepoJavaParser(Path repoRootPath, String classpath) {
+        return createJavaParser(createRepoTypeSolver(repoRootPath, classpath));
+    }
+
+    /**
+     * Creates a JavaParser object resolving the symbols with the given type solver.
+     *
+     * @param typeSolver the type solver used to resolve the symbols
+     * @return the corresponding JavaParser
+     */
+    public static JavaParser createJavaParser(TypeSolver typeSolver) {
+        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
+        ParserConfiguration parserConfiguration = new ParserConfiguration().setSymbolResolver(symbolSolver);
+        return new JavaParser(parserConfiguration);
+    }
+
+    /**
+     * Creates a type solver capable of resolving symbols from a given source
+     * directory (like a java repository) and from the given classpath.
+     *
+     * @param repoRootPath the path to a Java repository (containing a single or multiple Java projects)
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the
+     *                  classpath is separated by a ":")
+     * @return the corresponding type solver
+     */
+    public static CombinedTypeSolver createRepoTypeSolver(Path repoRootPath, String classpath) {
+        return createRepoTypeSolver(RepositoryIndex.scan(repoRootPath), classpath);
+    }
+
+    /**
+     * Creates a type solver capable of resolving symbols from the source roots of the given repository index and from
+     * the given classpath.
+     *
+     * @param repositoryIndex the index of a Java repository (containing a single or multiple Java projects)
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the
+     *                  classpath is separated by a ":")
+     * @return the corresponding type solver
+     */
+    public static CombinedTypeSolver createRepoTypeSolver(RepositoryIndex repositoryIndex, String classpath) {
+        return createRepoTypeSolver(repositoryIndex, classpath, null);
+    }
+
+    /**
+     * Creates a type solver capable of resolving symbols from the source roots of the given repository index, from a
+     * type solver shared with other repositories (like the one of the JDK libraries), and from the given classpath.
+     *
+     * @param repositoryIndex the index of a Java repository (containing a single or multiple Java projects)
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the
+     *                  classpath is separated by a ":")
+     * @param sharedTypeSolver the type solver shared with other repositories (see
+     *                         {@link #createClasspathTypeSolver(String)}). Can be null.
+     * @return the corresponding type solver
+     */
+    public static ThreadConfinedCombinedTypeSolver createRepoTypeSolver(RepositoryIndex repositoryIndex, String classpath, TypeSolver sharedTypeSolver) {
+        return createRepoTypeSolver(repositoryIndex, classpath, sharedTypeSolver, new SourceFileCache());
+    }
+
+    /**
+     * Creates a type solver capable of resolving symbols from the source roots of the given repository index, from a
+     * type solver shared with other repositories (like the one of the JDK libraries), and from the given classpath,
+     * keeping the compilation units parsed from the source roots (of the repository and of the source libraries of the
+     * classpath) in the given cache.
+     *
+     * @param repositoryIndex the index of a Java repository (containing a single or multiple Java projects)
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the
+     *                  classpath is separated by a ":")
+     * @param sharedTypeSolver the type solver shared with other repositories (see
+     *                         {@link #createClasspathTypeSolver(String)}). Can be null.
+     * @param sourceFileCache the cache of the compilation units parsed from the source roots
+     * @return the corresponding type solver
+     */
+    public static ThreadConfinedCombinedTypeSolver createRepoTypeSolver(RepositoryIndex repositoryIndex, String classpath, TypeSolver sharedTypeSolver, SourceFileCache sourceFileCache) {
+        ThreadConfinedCombinedTypeSolver typeSolver = new ThreadConfinedCombinedTypeSolver();
         // TODO: Verify code without ReflectionTypeSolver and using java source code libraries
         // typeSolver.add(new ReflectionTypeSolver());
-        List<Path> repoProjectsPaths = findPotentialProjectsRoots(repoRootPath);
-        for(Path projectPath : repoProjectsPaths) {
-            typeSolver.add(new JavaParserTypeSolver(projectPath.toFile()));
+        // A single type solver for all the (overlapping) source roots of the repository
+        typeSolver.add(createSourceRootsTypeSolver(repositoryIndex, repositoryIndex.getSourceRootPaths(), sourceFileCache));
+        if (sharedTypeSolver != null) {
+            typeSolver.add(new SharedTypeSolver(sharedTypeSolver));
         }
+        addClasspathTypeSolvers(typeSolver, classpath, sourceFileCache);
+        return typeSolver;
+    }
+
+    /**
+     * Creates a type solver capable of resolving symbols from the given classpath only. The type solver is safe for
+     * concurrent use and has no parent, so that it can be shared by the type solvers of multiple repositories (see
+     * {@link #createRepoTypeSolver(RepositoryIndex, String, TypeSolver)}), loading the libraries of the classpath
+     * (like the JDK libraries) only once.
+     *
+     * @param classpath a string containing the paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     * @return the corresponding type solver
+     */
+    public static CombinedTypeSolver createClasspathTypeSolver(String classpath) {
+        CombinedTypeSolver typeSolver = new ThreadConfinedCombinedTypeSolver();
+        addClasspathTypeSolvers(typeSolver, classpath, new SourceFileCache());
+        return typeSolver;
+    }
+
+    /**
+     * Add to the given combined type solver a type solver for each element of the classpath: a jar, a folder of
+     * jars, or a folder of source code. The jars are solved through their persistent indexes (see
+     * {@link IndexedJarTypeSolver}), so that they are opened only when one of their classes is requested.
+     *
+     * @param typeSolver the combined type solver
+     * @param classpath a string containing the paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     * @param sourceFileCache the cache of the compilation units parsed from the folders of source code
+     */
+    private static void addClasspathTypeSolvers(CombinedTypeSolver typeSolver, String classpath, SourceFileCache sourceFileCache) {
         String[] classpathElements = classpath.split(":");
         for (String classPathElement : classpathElements) {
+            if (classPathElement.isEmpty()) {
+                continue;
+            }
             if (classPathElement.endsWith(".jar")) {
                 try {
-                    typeSolver.add(new JarTypeSolver(classPathElement));
+                    typeSolver.add(IndexedJarTypeSolver.open(Path.of(classPathElement)));
                 } catch (IOException e) {
                     throw new Error("Unable to resolve jar " + classPathElement, e);
                 }
             } else {
                 Path startPath = Paths.get(classPathElement);
                 try {
-                    List<Path> libraryRootPaths = findPotentialProjectsRoots(Path.of(classPathElement));
+                    RepositoryIndex libraryIndex = RepositoryIndex.scan(startPath);
+                    List<Path> libraryRootPaths = findPotentialProjectsRoots(libraryIndex);
 
                     if (!libraryRootPaths.isEmpty()) {
-                        for(Path libraryRootPath : libraryRootPaths) {
-                            typeSolver.add(new JavaParserTypeSolver(libraryRootPath.toFile()));
-                        }
+                        typeSolver.add(createSourceRootsTypeSolver(libraryIndex, libraryRootPaths, sourceFileCache));
                     } else {
                         boolean jarFilesFolder = false;
                         try (DirectoryStream<Path> stream = Files.newDirectoryStream(startPath, "*.jar")) {
@@ -137,7 +246,7 @@ public class JavaParserUtils {
                                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                                     // Check if the file is a .jar file
                                     if (file.toString().endsWith(".jar")) {
-                                        typeSolver.add(new JarTypeSolver(file));
+                                        typeSolver.add(IndexedJarTypeSolver.open(file));
                                     }
                                     return FileVisitResult.CONTINUE;
                                 }
@@ -149,25 +258,50 @@ public class JavaParserUtils {
                 }
             }
         }
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-        ParserConfiguration parserConfiguration = new ParserConfiguration().setSymbolResolver(symbolSolver);
-        javaParser = new JavaParser(parserConfiguration);
-        return javaParser;
     }
 
     /**
-     * Gets a compilation unit from a Java file path.
+     * Creates a single type solver for the given source roots, indexing the java files of the given index (including
+     * the decompiled ones).
+     *
+     * @param index the index containing the source roots
+     * @param sourceRootPaths the source roots, in order of priority
+     * @param sourceFileCache the cache of the compilation units parsed from the source roots
+     * @return the corresponding type solver
+     */
+    private static SourceRootsTypeSolver createSourceRootsTypeSolver(RepositoryIndex index, List<Path> sourceRootPaths, SourceFileCache sourceFileCache) {
+        List<Path> javaFilePaths = new ArrayList<>(index.getJavaFilePaths());
+        javaFilePaths.addAll(index.getDecompiledJavaFilePaths());
+        return new SourceRootsTypeSolver(sourceRootPaths, javaFilePaths, sourceFileCache);
+    }
+
+    /**
+     * Gets a compilation unit from a Java file path, using the JavaParser of the
+     * {@link TestProcessingContext} bound to the current thread.
      *
      * @param path a Java file
      * @return the corresponding JavaParser compilation unit. Returns
      * {@code Optional.empty()} if an error occurs while attempting to parse
      * the file.
+     * @throws IllegalStateException if no context is bound to the current thread
      */
     public static CompilationUnit getCompilationUnit(Path path) throws IOException {
-        if (javaParser == null) {
-            throw new IllegalStateException("JavaParser must be set with a repository root path, before calling this method.");
-        }
-        return javaParser.parse(path).getResult().orElseThrow();
+        return TestProcessingContext.current().getJavaParser().parse(path).getResult().orElseThrow();
+    }
+
+    /**
+     * Gets a compilation unit from a Java file path, from the cache of the {@link TestProcessingContext} bound to the
+     * current thread (parsing the file only if it is not cached or it changed on disk). The compilation unit is reused
+     * by the following requests of the current thread and must not be modified, nor handed to other threads: use
+     * {@link #getCompilationUnit(Path)} to get a compilation unit to modify.
+     *
+     * @param path a Java file
+     * @return the corresponding JavaParser compilation unit
+     * @throws IOException if an error occurs while reading the file
+     * @throws IllegalStateException if no context is bound to the current thread
+     */
+    public static CompilationUnit getCachedCompilationUnit(Path path) throws IOException {
+        return TestProcessingContext.current().getCompilationUnitCache().get(path);
     }
 
     /**
@@ -517,16 +651,25 @@ public class JavaParserUtils {
      * @param fqName fully qualified name, e.g., {@code java.util.List}
      */
     public static ResolvedType getResolvedType(String fqName) throws UnsupportedOperationException {
-        CompilationUnit cu = javaParser.parse(SYNTHETIC_CLASS_SOURCE).getResult().get();
+        TestProcessingContext context = TestProcessingContext.current();
+        // Check if the type has already been resolved within the current context
+        Optional<ResolvedType> cachedResolvedType = context.getCachedResolvedType(fqName);
+        if (cachedResolvedType.isPresent()) {
+            return cachedResolvedType.get();
+        }
+        CompilationUnit cu = context.getJavaParser().parse(SYNTHETIC_CLASS_SOURCE).getResult().get();
         BlockStmt syntheticMethodBody = getClassOrInterface(cu, SYNTHETIC_CLASS_NAME).addMethod(SYNTHETIC_METHOD_NAME).getBody().get();
         syntheticMethodBody.addStatement(fqName + " type1Var;");
-        return getClassOrInterface(cu, SYNTHETIC_CLASS_NAME)
+        ResolvedType resolvedType = getClassOrInterface(cu, SYNTHETIC_CLASS_NAME)
                 .getMethodsByName(SYNTHETIC_METHOD_NAME).get(0)
                 .getBody().get()
                 .getStatements().getLast().get()
                 .asExpressionStmt().getExpression()
                 .asVariableDeclarationExpr().getVariables().get(0)
                 .resolve().getType();
+        // Cache the resolved type for the next requests
+        context.cacheResolvedType(fqName, resolvedType);
+        return resolvedType;
     }
 
     /**
@@ -595,67 +738,18 @@ public class JavaParserUtils {
     /**
      * Navigate the directories from the root of a given repository and find all the paths that matches
      * the common patterns identifying Java projects (both to source and test files) within it.
-     * @param rootPath the path to a Java repository (containing a single or multiple Java projects) or to a container of
-     *                 Java libraries (jars or source code)
+     * @param rootIndex the index of a Java repository (containing a single or multiple Java projects) or of a container
+     *                  of Java libraries (jars or source code)
      * @return a list of paths to the source code and the test code of the Java projects found within
      * the given repository.
      */
-    private static List<Path> findPotentialProjectsRoots(Path rootPath) {
-        // Define the list of potential projects roots and initialize it with an empty list
-        List<Path> potentialProjectsRoots = new ArrayList<>();
-
+    private static List<Path> findPotentialProjectsRoots(RepositoryIndex rootIndex) {
+        Path rootPath = rootIndex.getRepoRootPath();
         if (rootPath.endsWith(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())) {
             return FilesUtils.listDirectories(rootPath);
         }
-
-        // Walk the repository root path and find potential projects roots
-        // Filter the paths contain the common patterns identifying Java projects
-        // Collect the paths to the source code and the test code of the Java projects found
-        try {
-            potentialProjectsRoots = Files.walk(rootPath)
-                    .filter(Files::isDirectory)
-                    .map(path -> {
-                        if(Files.exists(path.resolve("src/main/java"))) {
-                            return path.resolve("src/main/java");
-                        } else if (Files.exists(path.resolve("src/java/main"))) {
-                            return path.resolve("src/java/main");
-                        } else if (Files.exists(path.resolve("src/java"))) {
-                            return path.resolve("src/java");
-                        } else if (Files.exists(path.resolve("src/source"))) {
-                            return path.resolve("src/source");
-                        } else if (Files.exists(path.resolve("src"))) {
-                            return path.resolve("src");
-                        } else if (Files.exists(path.resolve("code"))) {
-                            return path.resolve("code");
-                        } else if (Files.exists(path.resolve("source"))) {
-                            return path.resolve("source");
-                        } else if (Files.exists(path.resolve("java"))) {
-                            return path.resolve("java");
-                        } else if (Files.exists(path.resolve("src/test/java"))) {
-                            return path.resolve("src/test/java");
-                        } else if (Files.exists(path.resolve("src/tests/java"))) {
-                            return path.resolve("src/tests/java");
-                        } else if (Files.exists(path.resolve("src/java/test"))) {
-                            return path.resolve("src/java/test");
-                        } else if (Files.exists(path.resolve("src/test"))) {
-                            return path.resolve("src/test");
-                        } else if (Files.exists(path.resolve("test/java"))) {
-                            return path.resolve("test/java");
-                        } else if (Files.exists(path.resolve("test"))) {
-                            return path.resolve("test");
-                        } else if (Files.exists(path.resolve("unittest"))) {
-                            return path.resolve("unittest");
-                        }
-                        return null;
-                    })
-                    .filter(path -> path != null)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            logger.error("Error while trying to find potential projects roots in repository path {}: ", rootPath, e);
-        }
-        potentialProjectsRoots.add(rootPath);
-        // Return the list of potential projects roots found within the repository
-        return potentialProjectsRoots;
+        // The directories matching the common patterns identifying Java projects
+        return rootIndex.getSourceRootPaths();
     }
 
     /**
@@ -697,7 +791,7 @@ public class JavaParserUtils {
             if (exprType == CallableExprType.METHOD) {
                 // Try to resolve the method call expression to a method declaration
                 MethodCallExpr methodCallExpr = callExpr.asMethodCallExpr();
-                Node resolvedCallExpr = methodCallExpr.resolve().toAst().orElseThrow(() -> new UnsolvedSymbolException(methodCallExpr.getNameAsString()));
+                Node resolvedCallExpr = resolveCallExpressionToAst(callExpr, exprType).orElseThrow(() -> new UnsolvedSymbolException(methodCallExpr.getNameAsString()));
                 if (resolvedCallExpr instanceof MethodDeclaration) {
                     focalMethod = (MethodDeclaration) resolvedCallExpr;
                     // Retrieve the method within the type declaration to avoid to lose the symbol solver functionality
@@ -712,7 +806,7 @@ public class JavaParserUtils {
             } else if (exprType == CallableExprType.CONSTRUCTOR) {
                 // Try to resolve the constructor call expression to a constructor declaration
                 ObjectCreationExpr constructorCallExpr = callExpr.asObjectCreationExpr();
-                focalMethod = (ConstructorDeclaration) constructorCallExpr.resolve().toAst().orElseThrow(() -> new UnsolvedSymbolException(constructorCallExpr.getTypeAsString()));
+                focalMethod = (ConstructorDeclaration) resolveCallExpressionToAst(callExpr, exprType).orElseThrow(() -> new UnsolvedSymbolException(constructorCallExpr.getTypeAsString()));
                 // Retrieve the method within the type declaration to avoid to lose the symbol solver functionality
                 for (ConstructorDeclaration c : (List<ConstructorDeclaration>) typeDeclaration.getConstructors()) {
                     if (c.getDeclarationAsString(true, true, true).equals(focalMethod.getDeclarationAsString(true, true, true))) {
@@ -737,6 +831,124 @@ public class JavaParserUtils {
         return focalMethod;
     }
 
+    /**
+     * Resolve a callable expression to its declaration with the symbol solver, through the {@link CallResolutionCache}
+     * of the context bound to the current thread. The callable expressions that cannot be keyed (see
+     * {@link #getCallKey(Expression, CallableExprType)}) are resolved without the cache.
+     *
+     * @param callExpr the callable expression to resolve
+     * @param exprType the type of the callable expression (i.e. method or constructor)
+     * @return the AST node of the declaration of the callable expression, or empty if the symbol solver cannot resolve
+     * it (or the declaration has no AST, like the declarations of the libraries)
+     */
+    private static Optional<Node> resolveCallExpressionToAst(Expression callExpr, CallableExprType exprType) {
+        Supplier<Optional<Node>> resolver = () -> {
+            try {
+                return exprType == CallableExprType.METHOD ? callExpr.asMethodCallExpr().resolve().toAst() : callExpr.asObjectCreationExpr().resolve().toAst();
+            } catch (UnsolvedSymbolException e) {
+                return Optional.empty();
+            }
+        };
+        Optional<CallResolutionCache.CallKey> callKey = getCallKey(callExpr, exprType);
+        return callKey.isPresent() ? TestProcessingContext.current().getCallResolutionCache().resolve(callKey.get(), resolver) : resolver.get();
+    }
+
+    /**
+     * Get the key of a callable expression in the {@link CallResolutionCache}: the type receiving the call (the type of
+     * the scope, the enclosing type if the call has no scope, or the type instantiated), the name of the callable, and
+     * the types of the arguments. The callable expressions whose resolution may depend on more than these elements have
+     * no key: the calls within anonymous classes, the instantiations of inner classes, the calls involving type variables,
+     * lambdas or method references, and the calls whose scope or arguments cannot be typed.
+     *
+     * @param callExpr the callable expression
+     * @param exprType the type of the callable expression (i.e. method or constructor)
+     * @return the key of the callable expression, or empty if the callable expression cannot be keyed
+     */
+    private static Optional<CallResolutionCache.CallKey> getCallKey(Expression callExpr, CallableExprType exprType) {
+        if (callExpr.findAncestor(o -> o.getAnonymousClassBody().isPresent(), ObjectCreationExpr.class).isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            String receiverType;
+            String name;
+            NodeList<Expression> arguments;
+            if (exprType == CallableExprType.METHOD) {
+                MethodCallExpr methodCallExpr = callExpr.asMethodCallExpr();
+                if (methodCallExpr.getScope().isPresent()) {
+                    ResolvedType scopeType = methodCallExpr.getScope().get().calculateResolvedType();
+                    if (containsTypeVariable(scopeType)) {
+                        return Optional.empty();
+                    }
+                    receiverType = scopeType.describe();
+                } else {
+                    // The call refers to a method of the enclosing type (or to a method imported statically)
+                    Optional<String> enclosingType = callExpr.findAncestor(TypeDeclaration.class).flatMap(t -> (Optional<String>) t.getFullyQualifiedName());
+                    if (enclosingType.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    receiverType = enclosingType.get();
+                }
+                name = methodCallExpr.getNameAsString();
+                arguments = methodCallExpr.getArguments();
+            } else {
+                ObjectCreationExpr objectCreationExpr = callExpr.asObjectCreationExpr();
+                if (objectCreationExpr.getScope().isPresent() || objectCreationExpr.getAnonymousClassBody().isPresent()) {
+                    return Optional.empty();
+                }
+                ResolvedType createdType = objectCreationExpr.getType().resolve();
+                if (containsTypeVariable(createdType)) {
+                    return Optional.empty();
+                }
+                receiverType = createdType.describe();
+                name = objectCreationExpr.getTypeAsString();
+                arguments = objectCreationExpr.getArguments();
+            }
+            List<String> argumentTypes = new ArrayList<>();
+            for (Expression argument : arguments) {
+                // The types of lambdas and method references depend on the callable they are passed to
+                if (argument.isLambdaExpr() || argument.isMethodReferenceExpr()) {
+                    return Optional.empty();
+                }
+                ResolvedType argumentType = argument.calculateResolvedType();
+                if (containsTypeVariable(argumentType)) {
+                    return Optional.empty();
+                }
+                argumentTypes.add(argumentType.describe());
+            }
+            return Optional.of(new CallResolutionCache.CallKey("resolve-" + exprType.name(), receiverType, name, argumentTypes));
+        } catch (RuntimeException e) {
+            // The scope or the arguments cannot be typed, the callable expression is resolved without the cache
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Check if a resolved type refers to a type variable (directly, or as component or type argument). The names of
+     * the type variables are not unique within a repository, so the types referring to them cannot be used as keys.
+     *
+     * @param type the resolved type
+     * @return true if the type refers to a type variable, false otherwise
+     */
+    private static boolean containsTypeVariable(ResolvedType type) {
+        if (type.isTypeVariable()) {
+            return true;
+        }
+        if (type.isArray()) {
+            return containsTypeVariable(type.asArrayType().getComponentType());
+        }
+        if (type.isWildcard()) {
+            return type.asWildcard().isBounded() && containsTypeVariable(type.asWildcard().getBoundedType());
+        }
+        if (type.isReferenceType()) {
+            for (ResolvedType typeParameterValue : type.asReferenceType().typeParametersValues()) {
+                if (containsTypeVariable(typeParameterValue)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Search the method declaration corresponding to a given callable expression, by comparing the method call expression
      * with the list of methods in the class file where the callable declaration is supposed to be defined (analyzing the
@@ -800,11 +1012,43 @@ public class JavaParserUtils {
             focalMethod = candidatesCallables.get(0);
         } else {
             List<ResolvedType> focalMethodResolvedTypes = focalMethodArgs.stream().map(a -> a.calculateResolvedType()).collect(Collectors.toList());
-            focalMethod = matchCallableDeclaration(focalMethodResolvedTypes, candidatesCallables);
+            Optional<String> typeName = typeDeclaration.getFullyQualifiedName();
+            if (typeName.isEmpty() || focalMethodResolvedTypes.stream().anyMatch(JavaParserUtils::containsTypeVariable)) {
+                focalMethod = matchCallableDeclaration(focalMethodResolvedTypes, candidatesCallables);
+            } else {
+                // The match depends only on the candidates (identified by the type and its number of callables) and on
+                // the types of the arguments: the position of the matched candidate is cached
+                CallResolutionCache.CallKey callKey = new CallResolutionCache.CallKey(
+                        "candidate-" + exprType.name(),
+                        typeName.get() + "#" + classCallableList.size(),
+                        focalMethodName,
+                        focalMethodResolvedTypes.stream().map(ResolvedType::describe).toList()
+                );
+                int candidateIndex = TestProcessingContext.current().getCallResolutionCache().search(callKey, () -> indexOfIdentity(candidatesCallables, matchCallableDeclaration(focalMethodResolvedTypes, candidatesCallables)));
+                focalMethod = candidatesCallables.get(candidateIndex);
+            }
         }
         return focalMethod;
     }
 
+    /**
+     * Get the position of an element in a list, comparing the elements by identity (the AST nodes are compared by
+     * structure by {@link Object#equals(Object)}).
+     *
+     * @param list the list
+     * @param element the element to search
+     * @return the position of the element in the list
+     * @throws IllegalStateException if the element is not in the list
+     */
+    private static <T> int indexOfIdentity(List<T> list, T element) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == element) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Element not found in the list.");
+    }
+
 
     /**
      * Search the resolved method declaration corresponding to a given callable expression, by comparing the method call expression
@@ -822,40 +1066,21 @@ public class JavaParserUtils {
      *                                                       expression cannot be found and no candidates are available
      */
     public static ResolvedMethodDeclaration searchCandidateResolvedMethodDeclaration(ResolvedReferenceType resolvedReferenceType, MethodCallExpr methodCallExpr) throws MultipleCandidatesException, CandidateCallableDeclarationNotFoundException {
-        // Define the list of arguments of the focal method. Initially empty.
-        NodeList<Expression> focalMethodArgs = new NodeList<>();
         // Define the focal method. Initially null.
         ResolvedMethodDeclaration focalMethod = null;
-        // Define a list of candidate methods/constructors (methods/constructors with the same name and number of parameters).
-        // Initially empty.
-        List<ResolvedMethodDeclaration> candidates = new ArrayList<>();
-
-        List<ResolvedMethodDeclaration> classMethodsList = resolvedReferenceType.getAllMethods();
+        // Get the table of the overloads of the methods of the type (collected only once for each type)
+        CallResolutionCache.CallKey callKey = new CallResolutionCache.CallKey("overload-table", resolvedReferenceType.getQualifiedName(), "", List.of());
+        OverloadTable overloadTable = TestProcessingContext.current().getCallResolutionCache().search(callKey, () -> new OverloadTable(resolvedReferenceType.getAllMethods()));
         String focalMethodName = methodCallExpr.getNameAsString();
-        focalMethodArgs = methodCallExpr.getArguments();
-        // Iterate over the list of methods/constructors in the class file
-        for (ResolvedMethodDeclaration m : classMethodsList) {
-            // Check if the method/constructor name is the same
-            if (m.getName().equals(focalMethodName)) {
-                // Check if the number of parameters is the same
-                if (m.getNumberOfParams() == focalMethodArgs.size()) {
-                    // Add method/constructor to candidates if the previous conditions are satisfied
-                    candidates.add(m);
-                } else if (m.getNumberOfParams() > 0) {
-                    // Check if the number of parameters is the same, but the method/constructor is a varargs
-                    ResolvedParameterDeclaration lastCandidateParam = m.getParam(m.getNumberOfParams() - 1);
-                    if (lastCandidateParam.isVariadic() && m.getNumberOfParams() <= focalMethodArgs.size()) {
-                        candidates.add(m);
-                    }
-                }
-            }
-        }
+        NodeList<Expression> focalMethodArgs = methodCallExpr.getArguments();
+        // Get the list of candidate methods (methods with the same name and number of parameters)
+        List<OverloadTable.Candidate> candidates = overloadTable.getCandidates(focalMethodName, focalMethodArgs.size());
         // If no candidate methods are found, throw an exception (focal method not found)
         if (candidates.size() == 0) {
             return focalMethod;
         } else if (candidates.size() == 1) {
             // If only one candidate method/constructor is found, set the focal method to the candidate method/constructor
-            focalMethod = candidates.get(0);
+            focalMethod = candidates.get(0).getMethod();
         } else {
             List<ResolvedType> focalMethodResolvedTypes = focalMethodArgs.stream().map(a -> a.calculateResolvedType()).collect(Collectors.toList());
             focalMethod = matchResolvedMethodDeclaration(focalMethodResolvedTypes, candidates);
@@ -871,14 +1096,14 @@ public class JavaParserUtils {
      * methods/constructors in the resolved class.
      *
      * @param focalMethodArgs the list of types of the arguments of the callable expression
-     * @param candidates the list of candidate methods/constructors in the class file
+     * @param candidates the list of candidate methods in the overload table of the resolved class
      * @return the most similar candidate method/constructor to the method call expression in the class file
      * @throws CandidateCallableDeclarationNotFoundException if no candidate method/constructor fully match the signature
      *                                                       of the callable expression
      * @throws MultipleCandidatesException if multiple candidate methods/constructors are found, and it is impossible to
      *                                     discern the focal method
      */
-    private static ResolvedMethodDeclaration matchResolvedMethodDeclaration(List<ResolvedType> focalMethodArgs, List<ResolvedMethodDeclaration> candidates) throws CandidateCallableDeclarationNotFoundException, MultipleCandidatesException {
+    private static ResolvedMethodDeclaration matchResolvedMethodDeclaration(List<ResolvedType> focalMethodArgs, List<OverloadTable.Candidate> candidates) throws CandidateCallableDeclarationNotFoundException, MultipleCandidatesException {
         // Define the focal method.
         ResolvedMethodDeclaration focalMethod;
         // Initialize the number of parameters in common to -1 (no parameters in common)
@@ -888,8 +1113,12 @@ public class JavaParserUtils {
         boolean multipleCandidates = false;
         // Initialize the most similar candidate method to null
         ResolvedMethodDeclaration mostSimilar = null;
+        // Get the types of the arguments of the focal method call in the test (their names and ancestors are computed
+        // once, and compared with all the candidates)
+        List<OverloadTable.ParameterType> focalMethodArgTypes = focalMethodArgs.stream().map(OverloadTable.ParameterType::new).toList();
         // Iterate over the list of candidate methods/constructors
-        for (ResolvedMethodDeclaration candidate : candidates) {
+        for (OverloadTable.Candidate overload : candidates) {
+            ResolvedMethodDeclaration candidate = overload.getMethod();
             // Initialize the number of parameters in common with the current candidate to 0
             int paramsTypesInCommon = 0;
             // Iterate over the list of parameters of the current candidate method/constructor
@@ -897,49 +1126,47 @@ public class JavaParserUtils {
                 // Get the i-th parameter of the current candidate method/constructor (or the last parameter if the
                 // number of parameters of the candidate method/constructor is less than the number of parameters of
                 // the method call expression because the last param of the candidate method/constructor is a varargs)
-                ResolvedParameterDeclaration param = i < candidate.getNumberOfParams() ? candidate.getParam(i) : candidate.getLastParam();
+                OverloadTable.ParameterType param = overload.getParameterType(i);
                 // Get the type of the i-th parameter of the focal method call in the test
-                ResolvedType focalMethodArg = focalMethodArgs.get(i);
-                String focalMethodTypeName = focalMethodArgs.get(i).describe();
+                OverloadTable.ParameterType focalMethodArg = focalMethodArgTypes.get(i);
+                OverloadTable.TypeName focalMethodTypeName = focalMethodArg.getName();
                 // Perform preliminary checks to avoid comparing incompatible types
-                if (!param.getType().describe().equals("java.lang.Object") && !param.getType().isTypeVariable()) {
-                    if (focalMethodArg.isArray() && !param.getType().isArray()) {
+                if (!param.getName().name().equals("java.lang.Object") && !param.getType().isTypeVariable()) {
+                    if (focalMethodArg.getType().isArray() && !param.getType().isArray()) {
                         continue;
                     }
-                    if (!focalMethodArg.isArray() && param.getType().isArray()) {
+                    if (!focalMethodArg.getType().isArray() && param.getType().isArray()) {
                         continue;
                     }
-                    if (focalMethodArg.describe().startsWith("java.util.List") && !param.getType().describe().startsWith("List")) {
+                    if (focalMethodTypeName.name().startsWith("java.util.List") && !param.getName().name().startsWith("List")) {
                         continue;
                     }
-                    if (!focalMethodArg.describe().startsWith("java.util.List") && param.getType().describe().startsWith("List")) {
+                    if (!focalMethodTypeName.name().startsWith("java.util.List") && param.getName().name().startsWith("List")) {
                         continue;
                     }
-                    if (focalMethodArg.isArray() && (param.getType().isArray())) {
-                        if (focalMethodArg.asArrayType().arrayLevel() != param.getType().asArrayType().arrayLevel()) {
+                    if (focalMethodArg.getType().isArray() && (param.getType().isArray())) {
+                        if (focalMethodArg.getType().asArrayType().arrayLevel() != param.getType().asArrayType().arrayLevel()) {
                             continue;
                         }
                     }
-                    // Get the type of the i-th parameter of the current candidate method, as a string
-                    String paramTypeName = param.getType().describe();
+                    // Get the type of the i-th parameter of the current candidate method
+                    OverloadTable.TypeName paramTypeName = param.getName();
                     boolean matchFound = false;
                     // Compare the parameters type names
-                    if (focalMethodTypeName.contains(paramTypeName.replaceAll("<.*?>|List|\\[\\]|<|>", ""))) {
+                    if (focalMethodTypeName.name().contains(paramTypeName.erased())) {
                         matchFound = true;
                     } else {
-                        if (param.getType().isReferenceType() && focalMethodArg.isReferenceType()) {
-                            List<String> paramAncestors = param.getType().asReferenceType().getAllAncestors().stream().map(ResolvedReferenceType::describe).collect(Collectors.toList());
-                            for (String ancestor : paramAncestors) {
-                                if (focalMethodTypeName.contains(ancestor.replaceAll("<.*?>|List|\\[\\]|<|>", ""))) {
+                        if (param.getType().isReferenceType() && focalMethodArg.getType().isReferenceType()) {
+                            for (OverloadTable.TypeName ancestor : param.getAncestors()) {
+                                if (focalMethodTypeName.name().contains(ancestor.erased())) {
                                     paramTypeName = ancestor;
                                     matchFound = true;
                                     break;
                                 }
                             }
                             if (!matchFound) {
-                                List<String> focalAncestors = focalMethodArg.asReferenceType().getAllAncestors().stream().map(ResolvedReferenceType::describe).collect(Collectors.toList());
-                                for (String ancestor : focalAncestors) {
-                                    if (paramTypeName.contains(ancestor.replaceAll("<.*?>|List|\\[\\]|<|>", ""))) {
+                                for (OverloadTable.TypeName ancestor : focalMethodArg.getAncestors()) {
+                                    if (paramTypeName.name().contains(ancestor.erased())) {
                                         focalMethodTypeName = ancestor;
                                         matchFound = true;
                                         break;
@@ -950,18 +1177,14 @@ public class JavaParserUtils {
                     }
 
                     if (matchFound) {
-                        // Pattern to capture content within < and >
-                        Pattern pattern = Pattern.compile("<(.*?)>");
-                        Matcher matcherFocalMethod = pattern.matcher(focalMethodTypeName);
-                        if (matcherFocalMethod.find()) {
-                            String genericTypeFocalMethod = matcherFocalMethod.group(1); // Save the captured content
-                            Matcher matcherParam = pattern.matcher(paramTypeName);
-
+                        // Compare the content within < and > of the type names
+                        String genericTypeFocalMethod = focalMethodTypeName.typeArguments();
+                        if (genericTypeFocalMethod != null) {
                             if (genericTypeFocalMethod.equals("?") || genericTypeFocalMethod.length() == 1) {
                                 paramsTypesInCommon += 1;
                             } else {
-                                if (matcherParam.find()) {
-                                    String genericTypeParam = matcherParam.group(1);
+                                String genericTypeParam = paramTypeName.typeArguments();
+                                if (genericTypeParam != null) {
                                     if (genericTypeParam.equals("?") || genericTypeParam.length() == 1 || genericTypeFocalMethod.equals(genericTypeParam)) {
                                         paramsTypesInCommon += 1;
                                     }
@@ -1047,6 +1270,9 @@ public class JavaParserUtils {
         boolean multipleCandidates = false;
         // Initialize the most similar candidate method to null
         CallableDeclaration mostSimilar = null;
+        // Get the names of the types of the arguments of the focal method call in the test (computed once, and
+        // compared with all the candidates)
+        List<OverloadTable.TypeName> focalMethodTypeNames = focalMethodArgs.stream().map(a -> new OverloadTable.TypeName(a.describe())).toList();
         // Iterate over the list of candidate methods/constructors
         for (CallableDeclaration callable : candidatesCallables) {
             // Get the list of parameters of the candidate method/constructor
@@ -1061,8 +1287,9 @@ public class JavaParserUtils {
                 com.github.javaparser.ast.body.Parameter param = i < paramsList.size() ? paramsList.get(i) : paramsList.getLast().get();
                 // Get the type of the i-th parameter of the focal method call in the test
                 ResolvedType focalMethodArg = focalMethodArgs.get(i);
-                String focalMethodTypeName = focalMethodArgs.get(i).describe();
-                if (!param.getType().resolve().describe().equals("java.lang.Object") || !param.getType().resolve().isTypeVariable()) {
+                OverloadTable.TypeName focalMethodTypeName = focalMethodTypeNames.get(i);
+                ResolvedType resolvedParamType = param.getType().resolve();
+                if (!resolvedParamType.describe().equals("java.lang.Object") || !resolvedParamType.isTypeVariable()) {
                     // Perform preliminary checks to avoid comparing incompatible types
                     if (focalMethodArg.isArray() && !(param.getType().isArrayType() || param.isVarArgs())) {
                         continue;
@@ -1070,10 +1297,10 @@ public class JavaParserUtils {
                     if (!focalMethodArg.isArray() && (param.getType().isArrayType())) {
                         continue;
                     }
-                    if (focalMethodArg.describe().startsWith("java.util.List") && !param.getTypeAsString().startsWith("List")) {
+                    if (focalMethodTypeName.name().startsWith("java.util.List") && !param.getTypeAsString().startsWith("List")) {
                         continue;
                     }
-                    if (!focalMethodArg.describe().startsWith("java.util.List") && param.getTypeAsString().startsWith("List")) {
+                    if (!focalMethodTypeName.name().startsWith("java.util.List") && param.getTypeAsString().startsWith("List")) {
                         continue;
                     }
                     if (focalMethodArg.isArray() && (param.getType().isArrayType())) {
@@ -1087,19 +1314,15 @@ public class JavaParserUtils {
                     // Get the type of the i-th parameter of the current candidate method, as a string
                     String paramTypeName = param.getTypeAsString();
                     // Compare the parameters type names
-                    if (focalMethodTypeName.contains(paramTypeName.replaceAll("<.*?>|List|\\[\\]|<|>", ""))) {
-                        // Pattern to capture content within < and >
-                        Pattern pattern = Pattern.compile("<(.*?)>");
-                        Matcher matcherFocalMethod = pattern.matcher(focalMethodTypeName);
-                        if (matcherFocalMethod.find()) {
-                            String genericTypeFocalMethod = matcherFocalMethod.group(1); // Save the captured content
-                            Matcher matcherParam = pattern.matcher(paramTypeName);
-
+                    if (focalMethodTypeName.name().contains(OverloadTable.erase(paramTypeName))) {
+                        // Compare the content within < and > of the type names
+                        String genericTypeFocalMethod = focalMethodTypeName.typeArguments();
+                        if (genericTypeFocalMethod != null) {
                             if (genericTypeFocalMethod.equals("?") || genericTypeFocalMethod.length() == 1) {
                                 paramsTypesInCommon += 1;
                             } else {
-                                if (matcherParam.find()) {
-                                    String genericTypeParam = matcherParam.group(1);
+                                String genericTypeParam = OverloadTable.getTypeArguments(paramTypeName);
+                                if (genericTypeParam != null) {
                                     if (genericTypeParam.equals("?") || genericTypeParam.length() == 1 || genericTypeFocalMethod.equals(genericTypeParam)) {
                                         paramsTypesInCommon += 1;
                                     }
@@ -1173,13 +1396,34 @@ public class JavaParserUtils {
      */
     public static MethodUsage searchCandidateMethodUsage(TypeDeclaration typeDeclaration, Expression expr) throws CandidateCallableMethodUsageNotFoundException, MultipleCandidatesException {
         try {
-            return iterateOverCandidatesMethodUsage(typeDeclaration.resolve().getAllMethods(), expr.asMethodCallExpr());
+            Optional<String> typeName = typeDeclaration.getFullyQualifiedName();
+            if (typeName.isEmpty()) {
+                return iterateOverCandidatesMethodUsage(typeDeclaration.resolve().getAllMethods(), expr.asMethodCallExpr(), null);
+            }
+            // The methods of the type (including the inherited ones) are collected only once for each type
+            CallResolutionCache.CallKey callKey = new CallResolutionCache.CallKey("all-methods", typeName.get(), "", List.of());
+            Set<MethodUsage> methods = TestProcessingContext.current().getCallResolutionCache().search(callKey, () -> typeDeclaration.resolve().getAllMethods());
+            return iterateOverCandidatesMethodUsage(methods, expr.asMethodCallExpr(), typeName.get());
         } catch (CandidateCallableMethodUsageNotFoundException | UnsolvedSymbolException | IllegalStateException e) {
             return null;
         }
     }
 
-    private static MethodUsage iterateOverCandidatesMethodUsage(Set<MethodUsage> methods, MethodCallExpr methodCallExpr) throws CandidateCallableMethodUsageNotFoundException, MultipleCandidatesException {
+    /**
+     * Search the {@link MethodUsage} corresponding to a given method call expression among the given methods (only the
+     * methods without AST, declared in the libraries, are considered).
+     *
+     * @param methods the methods where to search the method of the method call expression
+     * @param methodCallExpr the method call expression to resolve
+     * @param typeName the fully qualified name of the type declaring the methods, used to cache the match among
+     *                 multiple candidates. Can be null (the match is not cached).
+     * @return the corresponding {@link MethodUsage} of the method call expression
+     * @throws CandidateCallableMethodUsageNotFoundException if the method corresponding to the method call expression
+     *                                                       cannot be found and no candidates are available
+     * @throws MultipleCandidatesException if multiple candidates are found for the method call expression and the method
+     *                                     cannot be resolved uniquely
+     */
+    private static MethodUsage iterateOverCandidatesMethodUsage(Set<MethodUsage> methods, MethodCallExpr methodCallExpr, String typeName) throws CandidateCallableMethodUsageNotFoundException, MultipleCandidatesException {
         List<MethodUsage> methodNotConverted = new ArrayList<>();
         List<MethodDeclaration> methodConverted = new ArrayList<>();
         // Define the focal method. Initially null.
@@ -1227,68 +1471,98 @@ public class JavaParserUtils {
             // If multiple candidate methods are found, try to discern the focal method by analyzing
             // the types of the parameters of the focal method call expression and the parameters of the
             // candidate methods/constructors.
-            // Initialize the number of parameters in common to -1 (no parameters in common)
-            int bestParamsTypesInCommon = -1;
-            // Initialize the boolean flag multipleCandidates to false (only one candidate method/constructor is
-            // the most similar to the method call expression)
-            boolean multipleCandidates = false;
-            // Initialize the most similar candidate method/constructor to null
-            MethodUsage mostSimilar = null;
-            // Iterate over the list of candidate methods/constructors
-            for (MethodUsage candidate : candidatesMethodUsage) {
-                // Get the list of parameters of the candidate method/constructor
-                List<ResolvedType> paramsTypeList = candidate.getParamTypes();
-                // Initialize the number of parameters in common with the current candidate to 0
-                int paramsTypesInCommon = 0;
-                // Iterate over the list of parameters of the current candidate method/constructor
-                for (int i = 0; i < focalMethodArgs.size(); i++) {
-                    // Get the i-th parameter of the current candidate method/constructor or the last parameter if the
-                    // number of parameters of the current candidate method/constructor is less than the number of parameters
-                    // of the focal method call expression (this happens when the last parameter is a varargs)
-                    ResolvedType paramType = i < paramsTypeList.size() ? paramsTypeList.get(i) : paramsTypeList.get(paramsTypeList.size() - 1);
-                    // Get the type of the i-th parameter of the focal method call in the test
-                    // prefix, as a string
-                    String focalMethodTypeName = focalMethodArgs.get(i).calculateResolvedType().describe();
-                    // Get the type of the i-th parameter of the current candidate method, as a string
-                    String paramTypeName = paramType.describe();
-                    // Compare the parameters type names
-                    if (focalMethodTypeName.endsWith(paramTypeName) || paramTypeName.endsWith("Object") || paramType.isTypeVariable()) {
-                        // If the type names corresponds or the candidate param type is Object,
-                        // increment the number of parameters in common (any type inherits from Object)
-                        paramsTypesInCommon += 1;
-                    }
+            List<ResolvedType> focalMethodResolvedTypes = focalMethodArgs.stream().map(a -> a.calculateResolvedType()).toList();
+            if (typeName == null || focalMethodResolvedTypes.stream().anyMatch(JavaParserUtils::containsTypeVariable)) {
+                focalMethod = matchMethodUsage(focalMethodResolvedTypes, candidatesMethodUsage);
+            } else {
+                CallResolutionCache.CallKey callKey = new CallResolutionCache.CallKey(
+                        "candidate-method-usage",
+                        typeName,
+                        focalMethodName,
+                        focalMethodResolvedTypes.stream().map(ResolvedType::describe).toList()
+                );
+                focalMethod = TestProcessingContext.current().getCallResolutionCache().search(callKey, () -> matchMethodUsage(focalMethodResolvedTypes, candidatesMethodUsage));
+            }
+        }
+        return focalMethod;
+    }
+
+    /**
+     * Match the {@link MethodUsage} with the most similar signature to the types of the arguments of a method call
+     * expression, among multiple candidates with the same name and number of parameters.
+     *
+     * @param focalMethodArgs the list of types of the arguments of the method call expression
+     * @param candidatesMethodUsage the list of candidate methods
+     * @return the most similar candidate method to the method call expression
+     * @throws CandidateCallableMethodUsageNotFoundException if no candidate method fully match the signature of the
+     *                                                       method call expression
+     * @throws MultipleCandidatesException if multiple candidate methods are found, and it is impossible to discern the
+     *                                     focal method
+     */
+    private static MethodUsage matchMethodUsage(List<ResolvedType> focalMethodArgs, List<MethodUsage> candidatesMethodUsage) throws CandidateCallableMethodUsageNotFoundException, MultipleCandidatesException {
+        // Define the focal method. Initially null.
+        MethodUsage focalMethod;
+        // Initialize the number of parameters in common to -1 (no parameters in common)
+        int bestParamsTypesInCommon = -1;
+        // Initialize the boolean flag multipleCandidates to false (only one candidate method/constructor is
+        // the most similar to the method call expression)
+        boolean multipleCandidates = false;
+        // Initialize the most similar candidate method/constructor to null
+        MethodUsage mostSimilar = null;
+        // Iterate over the list of candidate methods/constructors
+        for (MethodUsage candidate : candidatesMethodUsage) {
+            // Get the list of parameters of the candidate method/constructor
+            List<ResolvedType> paramsTypeList = candidate.getParamTypes();
+            // Initialize the number of parameters in common with the current candidate to 0
+            int paramsTypesInCommon = 0;
+            // Iterate over the list of parameters of the current candidate method/constructor
+            for (int i = 0; i < focalMethodArgs.size(); i++) {
+                // Get the i-th parameter of the current candidate method/constructor or the last parameter if the
+                // number of parameters of the current candidate method/constructor is less than the number of parameters
+                // of the focal method call expression (this happens when the last parameter is a varargs)
+                ResolvedType paramType = i < paramsTypeList.size() ? paramsTypeList.get(i) : paramsTypeList.get(paramsTypeList.size() - 1);
+                // Get the type of the i-th parameter of the focal method call in the test
+                // prefix, as a string
+                String focalMethodTypeName = focalMethodArgs.get(i).describe();
+                // Get the type of the i-th parameter of the current candidate method, as a string
+                String paramTypeName = paramType.describe();
+                // Compare the parameters type names
+                if (focalMethodTypeName.endsWith(paramTypeName) || paramTypeName.endsWith("Object") || paramType.isTypeVariable()) {
+                    // If the type names corresponds or the candidate param type is Object,
+                    // increment the number of parameters in common (any type inherits from Object)
+                    paramsTypesInCommon += 1;
                 }
-                // If the number of parameters in common with the current candidate method/constructor is
-                // greater or equal to the best number of parameters in common found so far, update the best
-                // number of parameters in common and assign the current candidate method/constructor to the
-                // most similar candidate method/constructor
-                if (paramsTypesInCommon >= bestParamsTypesInCommon) {
-                    if (paramsTypesInCommon == bestParamsTypesInCommon) {
-                        if (mostSimilar.getDeclaration().isAbstract() && !candidate.getDeclaration().isAbstract()) {
-                            mostSimilar = candidate;
-                        } else if (mostSimilar.getDeclaration().isAbstract() && candidate.getDeclaration().isAbstract()) {
-                            multipleCandidates = true;
-                        }
-                    } else {
-                        bestParamsTypesInCommon = paramsTypesInCommon;
-                        multipleCandidates = false;
+            }
+            // If the number of parameters in common with the current candidate method/constructor is
+            // greater or equal to the best number of parameters in common found so far, update the best
+            // number of parameters in common and assign the current candidate method/constructor to the
+            // most similar candidate method/constructor
+            if (paramsTypesInCommon >= bestParamsTypesInCommon) {
+                if (paramsTypesInCommon == bestParamsTypesInCommon) {
+                    if (mostSimilar.getDeclaration().isAbstract() && !candidate.getDeclaration().isAbstract()) {
                         mostSimilar = candidate;
+                    } else if (mostSimilar.getDeclaration().isAbstract() && candidate.getDeclaration().isAbstract()) {
+                        multipleCandidates = true;
                     }
+                } else {
+                    bestParamsTypesInCommon = paramsTypesInCommon;
+                    multipleCandidates = false;
+                    mostSimilar = candidate;
                 }
             }
-            // If only one candidate method/constructor is the most similar to the focal method call expression, set
-            // the focal method to the most similar candidate method
-            if (!(multipleCandidates || mostSimilar == null)) {
-                focalMethod = mostSimilar;
-                if (bestParamsTypesInCommon < focalMethodArgs.size()) {
-                    // If the number of parameters in common is less than the number of parameters of
-                    // the method call expression, log a warning
-                    throw new CandidateCallableMethodUsageNotFoundException("[WARNING] - No candidate method fully match the signature of the callable expression. No focal method found.");
-                }
-            } else {
-                // Multiple candidates, impossible to discern
-                throw new MultipleCandidatesException("[WARNING] - Multiple candidate methods/constructors found. Impossible to discern the focal method.");
+        }
+        // If only one candidate method/constructor is the most similar to the focal method call expression, set
+        // the focal method to the most similar candidate method
+        if (!(multipleCandidates || mostSimilar == null)) {
+            focalMethod = mostSimilar;
+            if (bestParamsTypesInCommon < focalMethodArgs.size()) {
+                // If the number of parameters in common is less than the number of parameters of
+                // the method call expression, log a warning
+                throw new CandidateCallableMethodUsageNotFoundException("[WARNING] - No candidate method fully match the signature of the callable expression. No focal method found.");
             }
+        } else {
+            // Multiple candidates, impossible to discern
+            throw new MultipleCandidatesException("[WARNING] - Multiple candidate methods/constructors found. Impossible to discern the focal method.");
         }
         return focalMethod;
     }
@@ -1311,7 +1585,7 @@ public class JavaParserUtils {
      *                                     cannot be resolved uniquely
      */
     public static MethodUsage searchCandidateMethodUsage(ResolvedReferenceType resolvedReferenceType, Expression expr) throws CandidateCallableMethodUsageNotFoundException, MultipleCandidatesException {
-        return iterateOverCandidatesMethodUsage(resolvedReferenceType.getDeclaredMethods(), expr.asMethodCallExpr());
+        return iterateOverCandidatesMethodUsage(resolvedReferenceType.getDeclaredMethods(), expr.asMethodCallExpr(), null);
     }
 
     /**
@@ -1406,8 +1680,7 @@ public class JavaParserUtils {
      * @return the last statement in the method declaration
      */
     public static Statement getLastStatementInMethodDeclaration(MethodDeclaration callableDeclaration) {
-        List<Statement> statements = callableDeclaration.getBody().get().findAll(Statement.class);
-        return statements.get(statements.size() - 1);
+        return MethodAstIndex.of(callableDeclaration).getLastStatement(callableDeclaration.getBody().get());
     }
 
     /**
@@ -1433,11 +1706,12 @@ public class JavaParserUtils {
      */
     public static Optional<Statement> getLastAssertionInMethodDeclaration(MethodDeclaration callableDeclaration) throws IllegalStateException {
         // TODO: Check if assert stmt and expression stmt inteleave in the same nested block
-        Statement lastStmt = getLastStatementInMethodDeclaration(callableDeclaration);
+        MethodAstIndex index = MethodAstIndex.of(callableDeclaration);
+        Statement lastStmt = index.getLastStatement(callableDeclaration.getBody().get());
         if (lastStmt.isAssertStmt()) {
             return Optional.of(lastStmt);
         }
-        Optional<Statement> exprStmt = getLastStatementTypeOccurrence(lastStmt,ExpressionStmt.class);
+        Optional<Statement> exprStmt = index.getLastStatementOccurrence(lastStmt, ExpressionStmt.class);
         if (exprStmt.isPresent()) {
             // Get the expression from the statement
             Expression currentExpr = exprStmt.get().asExpressionStmt().getExpression();
@@ -1482,39 +1756,10 @@ public class JavaParserUtils {
      * @param repoSourcePath the root path of the repository where the class should be located
      * @return the type declaration of the class corresponding to the fully qualified name or an empty optional if the class
      *        cannot be found
+     * @throws IllegalStateException if no context is bound to the current thread
+     * @see TypeHierarchyService#findTypeDeclaration(String, Path)
      */
     public static Optional<TypeDeclaration> retrieveTypeDeclarationFromFullyQualifiedName(String fqn, Path repoSourcePath) {
-        Path fqnPath = FilesUtils.getFQNPath(fqn);
-        Path referencePath = repoSourcePath;
-        List<Path> candidatePrefixPaths = new ArrayList<>();
-        candidatePrefixPaths.add(repoSourcePath);
-        boolean hasLibFolder = FilesUtils.hasChildDirectory(referencePath, NamingConvention.LIB_FOLDER.getConventionName());
-        while(!hasLibFolder && !(referencePath.getParent() == null)) {
-            referencePath = referencePath.getParent();
-            hasLibFolder = FilesUtils.hasChildDirectory(referencePath, NamingConvention.LIB_FOLDER.getConventionName());
-        }
-        if (hasLibFolder) {
-            candidatePrefixPaths = FilesUtils.listDirectories(
-                    referencePath.resolve(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName())
-            );
-        }
-        candidatePrefixPaths.add(repoSourcePath);
-        for(Path candidatePrefixPath : candidatePrefixPaths) {
-            Path classFilePath = candidatePrefixPath.resolve(fqnPath);
-            if (Files.exists(classFilePath)) {
-                try {
-                    CompilationUnit cu = JavaParserUtils.getCompilationUnit(classFilePath);
-                    if (cu.getPrimaryType().isPresent()) {
-                        return Optional.of(cu.getPrimaryType().get());
-                    } else {
-                        return Optional.empty();
-                    }
-                } catch (IOException e) {
-                    logger.error("Error reading file: " + classFilePath);
-                    return Optional.empty();
-                }
-            }
-        }
-        return Optional.empty();
+        return TestProcessingContext.current().getTypeHierarchyService().findTypeDeclaration(fqn, repoSourcePath);
     }
 }
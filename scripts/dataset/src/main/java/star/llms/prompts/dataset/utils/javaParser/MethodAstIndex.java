@@ -0,0 +1,599 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.observer.AstObserver;
+import com.github.javaparser.ast.observer.AstObserverAdapter;
+import com.github.javaparser.ast.observer.Observable;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import star.llms.prompts.dataset.data.enums.JUnitAssertionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An index of the statements, method call expressions and object creation expressions within a statement (typically,
+ * the body of a test case), built with a single traversal of its AST. The index replaces the visitors collecting the
+ * nodes of a given type (see {@link star.llms.prompts.dataset.utils.javaParser.visitors}), which traverse the AST again
+ * for every query: the nodes are recorded in the same order the visitors collect them, together with the range of the
+ * descendants of each statement, so that the nodes of a type within any indexed statement are found with a binary
+ * search.
+ * <p>
+ * The index is stored in the data of its root statement and reused by the following queries on the root, or on any
+ * statement within it. Any change to the AST of the root (like the statements added to a block while splitting a test
+ * case) invalidates the index, and the following query builds a new one. An invalidated index unregisters its observer
+ * from the AST of the root, and the copies of the index in the data of the cloned nodes are discarded, so that a clone
+ * does not keep the original AST alive. The index must be used by the thread owning the AST.
+ */
+public class MethodAstIndex {
+
+    /* The key of the index in the data of its root statement. */
+    private static final DataKey<MethodAstIndex> INDEX_KEY = new DataKey<>() {};
+    /* The observer invalidating the indexes containing a node that changes. */
+    private static final AstObserver INVALIDATION_OBSERVER = new AstObserverAdapter() {
+        @Override
+        public void propertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+            invalidate(observedNode, observedNode);
+        }
+
+        @Override
+        public void listChange(NodeList<?> observedNode, ListChangeType type, int index, Node nodeAddedOrRemoved) {
+            observedNode.getParentNode().ifPresent(node -> invalidate(node, observedNode));
+        }
+
+        @Override
+        public void listReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+            observedNode.getParentNode().ifPresent(node -> invalidate(node, observedNode));
+        }
+    };
+    /* The types of statements that can be queried. */
+    private static final Set<Class<? extends Statement>> STATEMENT_TYPES = Set.of(
+            AssertStmt.class, BlockStmt.class, BreakStmt.class, ContinueStmt.class, DoStmt.class, EmptyStmt.class,
+            ExplicitConstructorInvocationStmt.class, ExpressionStmt.class, ForEachStmt.class, ForStmt.class,
+            IfStmt.class, LabeledStmt.class, LocalClassDeclarationStmt.class, LocalRecordDeclarationStmt.class,
+            ReturnStmt.class, SwitchStmt.class, SynchronizedStmt.class, ThrowStmt.class, TryStmt.class,
+            UnparsableStmt.class, WhileStmt.class, YieldStmt.class
+    );
+    /* The types of expressions that can be queried. */
+    private static final Set<Class<? extends Expression>> EXPRESSION_TYPES = Set.of(MethodCallExpr.class, ObjectCreationExpr.class);
+
+    /* The root statement of the index. */
+    private final Statement root;
+    /* The nodes indexed, in the order they are collected by the visitors (pre-order). */
+    private final List<Node> nodes = new ArrayList<>();
+    /* The position of each node indexed (the nodes are compared by identity). */
+    private final Map<Node, Integer> positions = new IdentityHashMap<>();
+    /* The position following the last descendant of each node indexed, by position of the node. */
+    private int[] ends = new int[16];
+    /* The (sorted) positions of the nodes of each type. */
+    private final Map<Class<?>, int[]> positionsByType = new HashMap<>();
+    /* The (sorted) positions of the JUnit assertions (method call expressions). */
+    private final int[] assertionPositions;
+    /* The last statement within each statement (in the order of the child nodes), computed the first time it is
+       requested. */
+    private final Map<Statement, Statement> lastStatements = new IdentityHashMap<>();
+    /* False once the AST of the root has changed. */
+    private boolean valid = true;
+
+    /**
+     * Builds the index of a statement, traversing its AST once.
+     *
+     * @param root the root statement of the index
+     */
+    private MethodAstIndex(Statement root) {
+        this.root = root;
+        root.accept(new IndexVisitor(), null);
+        // Group the positions of the nodes by type
+        Map<Class<?>, List<Integer>> typePositions = new HashMap<>();
+        List<Integer> assertions = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            typePositions.computeIfAbsent(node.getClass(), k -> new ArrayList<>()).add(i);
+            if (node instanceof MethodCallExpr methodCallExpr && JUnitAssertionType.isJUnitAssertion(methodCallExpr.getNameAsString())) {
+                assertions.add(i);
+            }
+        }
+        typePositions.forEach((type, typeNodePositions) -> positionsByType.put(type, toArray(typeNodePositions)));
+        assertionPositions = toArray(assertions);
+        // Invalidate the index when the AST changes
+        registerObserver(root);
+    }
+
+    /**
+     * Get the index containing a statement: the valid index of the statement itself, or of one of its ancestors. If no
+     * index contains the statement, a new index rooted at the statement is built.
+     *
+     * @param statement the statement to query
+     * @return the index containing the statement
+     */
+    public static MethodAstIndex of(Statement statement) {
+        for (Node node = statement; node != null; node = node.getParentNode().orElse(null)) {
+            if (node.containsData(INDEX_KEY)) {
+                MethodAstIndex index = node.getData(INDEX_KEY);
+                if (index.root != node) {
+                    // The data of a node is copied to its clones: discard the index of the original node
+                    node.removeData(INDEX_KEY);
+                } else if (index.valid && index.positions.containsKey(statement)) {
+                    return index;
+                }
+            }
+        }
+        MethodAstIndex index = new MethodAstIndex(statement);
+        statement.setData(INDEX_KEY, index);
+        return index;
+    }
+
+    /**
+     * Get the index of the body of a method declaration.
+     *
+     * @param methodDeclaration the method declaration
+     * @return the index of the body of the method declaration
+     * @throws java.util.NoSuchElementException if the method declaration has no body
+     */
+    public static MethodAstIndex of(MethodDeclaration methodDeclaration) {
+        return of(methodDeclaration.getBody().orElseThrow());
+    }
+
+    /**
+     * Get the last occurrence of a type of statement within a statement, in the order the statements are collected by
+     * the visitors. The statement itself is the last occurrence if it has the given type and contains no other
+     * occurrence.
+     *
+     * @param statement the statement to query (the root of the index, or a statement within it)
+     * @param type the type of statement to find
+     * @return the last occurrence of the type of statement, or an empty optional if the statement contains no
+     * occurrence
+     * @throws IllegalStateException if the type is not a type of statement
+     */
+    public Optional<Statement> getLastStatementOccurrence(Statement statement, Class<? extends Statement> type) {
+        if (!STATEMENT_TYPES.contains(type)) {
+            throw new IllegalStateException("Unexpected block statement type");
+        }
+        return getLastOccurrence(statement, type).map(Statement.class::cast);
+    }
+
+    /**
+     * Get the last occurrence of a type of expression within a statement, in the order the expressions are collected
+     * by the visitors.
+     *
+     * @param statement the statement to query (the root of the index, or a statement within it)
+     * @param type the type of expression to find ({@link MethodCallExpr} or {@link ObjectCreationExpr})
+     * @return the last occurrence of the type of expression, or an empty optional if the statement contains no
+     * occurrence
+     * @throws IllegalStateException if the type is not a type of expression indexed
+     */
+    public Optional<Expression> getLastExprInStmt(Statement statement, Class<?> type) {
+        if (!EXPRESSION_TYPES.contains(type)) {
+            throw new IllegalStateException("Unexpected expression type");
+        }
+        return getLastOccurrence(statement, type).map(Expression.class::cast);
+    }
+
+    /**
+     * Get all the occurrences of a type of node within a statement (including the statement itself), in the order the
+     * nodes are collected by the visitors.
+     *
+     * @param statement the statement to query (the root of the index, or a statement within it)
+     * @param type the type of node to find (a type of statement, {@link MethodCallExpr} or {@link ObjectCreationExpr})
+     * @return the occurrences of the type of node (a new list, that can be modified by the caller)
+     * @param <N> the type of node to find
+     * @throws IllegalStateException if the type is not a type of node indexed
+     */
+    public <N extends Node> List<N> findAll(Statement statement, Class<N> type) {
+        if (!STATEMENT_TYPES.contains(type) && !EXPRESSION_TYPES.contains(type)) {
+            throw new IllegalStateException("Unexpected node type");
+        }
+        int[] typePositions = positionsByType.getOrDefault(type, new int[0]);
+        int position = getPosition(statement);
+        List<N> occurrences = new ArrayList<>();
+        for (int i = lowerBound(typePositions, position); i < typePositions.length && typePositions[i] < ends[position]; i++) {
+            occurrences.add(type.cast(nodes.get(typePositions[i])));
+        }
+        return occurrences;
+    }
+
+    /**
+     * Get all the occurrences of a type of node within the root of the index.
+     *
+     * @param type the type of node to find (a type of statement, {@link MethodCallExpr} or {@link ObjectCreationExpr})
+     * @return the occurrences of the type of node (a new list, that can be modified by the caller)
+     * @param <N> the type of node to find
+     * @throws IllegalStateException if the type is not a type of node indexed
+     */
+    public <N extends Node> List<N> findAll(Class<N> type) {
+        return findAll(root, type);
+    }
+
+    /**
+     * Get all the JUnit assertions (see {@link JUnitAssertionType}) invoked within a statement, in the order the method
+     * call expressions are collected by the visitors.
+     *
+     * @param statement the statement to query (the root of the index, or a statement within it)
+     * @return the method call expressions invoking a JUnit assertion (a new list, that can be modified by the caller)
+     */
+    public List<MethodCallExpr> getAssertions(Statement statement) {
+        int position = getPosition(statement);
+        List<MethodCallExpr> assertions = new ArrayList<>();
+        for (int i = lowerBound(assertionPositions, position); i < assertionPositions.length && assertionPositions[i] < ends[position]; i++) {
+            assertions.add((MethodCallExpr) nodes.get(assertionPositions[i]));
+        }
+        return assertions;
+    }
+
+    /**
+     * Get the last statement within a statement, in the order of the child nodes of the AST (the last statement
+     * returned by {@code statement.findAll(Statement.class)}). The statement itself is returned if it contains no other
+     * statement.
+     *
+     * @param statement the statement to query (the root of the index, or a statement within it)
+     * @return the last statement within the statement
+     */
+    public Statement getLastStatement(Statement statement) {
+        getPosition(statement);
+        return lastStatements.computeIfAbsent(statement, s -> findLastStatement(s).orElse(s));
+    }
+
+    /**
+     * Get the last occurrence of a type of node within a statement.
+     *
+     * @param statement the statement to query
+     * @param type the type of node to find
+     * @return the last occurrence of the type of node, or an empty optional if the statement contains no occurrence
+     */
+    private Optional<Node> getLastOccurrence(Statement statement, Class<?> type) {
+        int[] typePositions = positionsByType.get(type);
+        if (typePositions == null) {
+            return Optional.empty();
+        }
+        int position = getPosition(statement);
+        // The last node of the type before the end of the descendants of the statement
+        int last = lowerBound(typePositions, ends[position]) - 1;
+        if (last >= 0 && typePositions[last] >= position) {
+            return Optional.of(nodes.get(typePositions[last]));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the position of an indexed statement.
+     *
+     * @param statement the statement
+     * @return the position of the statement
+     * @throws IllegalArgumentException if the statement is not within the root of the index
+     */
+    private int getPosition(Statement statement) {
+        Integer position = positions.get(statement);
+        if (position == null) {
+            throw new IllegalArgumentException("The statement is not within the root of the index.");
+        }
+        return position;
+    }
+
+    /**
+     * Record a node, before visiting its descendants.
+     *
+     * @param node the node to record
+     * @return the position of the node
+     */
+    private int enter(Node node) {
+        int position = nodes.size();
+        nodes.add(node);
+        positions.put(node, position);
+        if (position == ends.length) {
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        return position;
+    }
+
+    /**
+     * Record the end of the descendants of a node, after visiting them.
+     *
+     * @param position the position of the node
+     */
+    private void exit(int position) {
+        ends[position] = nodes.size();
+    }
+
+    /**
+     * Find the last statement within a node, in the order of the child nodes of the AST.
+     *
+     * @param node the node to search
+     * @return the last statement within the node (including the node itself), or an empty optional if the node
+     * contains no statement
+     */
+    private static Optional<Statement> findLastStatement(Node node) {
+        List<Node> childNodes = node.getChildNodes();
+        for (int i = childNodes.size() - 1; i >= 0; i--) {
+            Optional<Statement> lastStatement = findLastStatement(childNodes.get(i));
+            if (lastStatement.isPresent()) {
+                return lastStatement;
+            }
+        }
+        return node instanceof Statement statement ? Optional.of(statement) : Optional.empty();
+    }
+
+    /**
+     * Register the invalidation observer on all the nodes (and lists of nodes) of the AST of a node, once.
+     *
+     * @param node the root of the AST
+     */
+    private static void registerObserver(Node node) {
+        node.walk(n -> {
+            if (!n.isRegistered(INVALIDATION_OBSERVER)) {
+                n.register(INVALIDATION_OBSERVER);
+            }
+            for (PropertyMetaModel property : n.getMetaModel().getAllPropertyMetaModels()) {
+                if (property.isNodeList()) {
+                    NodeList<?> nodeList = (NodeList<?>) property.getValue(n);
+                    if (nodeList != null && !nodeList.isRegistered(INVALIDATION_OBSERVER)) {
+                        nodeList.register(INVALIDATION_OBSERVER);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Unregister the invalidation observer from all the nodes (and lists of nodes) of the AST of a node, except the
+     * ones within the valid indexes rooted at its descendants, and except the node (or list of nodes) notifying the
+     * change (its observers are being notified, so it keeps the observer until a following index registers it again).
+     *
+     * @param node the root of the AST
+     * @param notifying the node (or list of nodes) notifying the change
+     */
+    private static void unregisterObserver(Node node, Observable notifying) {
+        if (node.containsData(INDEX_KEY) && node.getData(INDEX_KEY).root == node && node.getData(INDEX_KEY).valid) {
+            return;
+        }
+        if (node != notifying) {
+            node.unregister(INVALIDATION_OBSERVER);
+        }
+        for (PropertyMetaModel property : node.getMetaModel().getAllPropertyMetaModels()) {
+            if (property.isNodeList()) {
+                NodeList<?> nodeList = (NodeList<?>) property.getValue(node);
+                if (nodeList != null && nodeList != notifying) {
+                    nodeList.unregister(INVALIDATION_OBSERVER);
+                }
+            }
+        }
+        for (Node childNode : node.getChildNodes()) {
+            unregisterObserver(childNode, notifying);
+        }
+    }
+
+    /**
+     * Invalidate the indexes containing a node (the indexes rooted at the node or at one of its ancestors), and
+     * unregister their observer.
+     *
+     * @param node the node changed
+     * @param notifying the node (or list of nodes) notifying the change
+     */
+    private static void invalidate(Node node, Observable notifying) {
+        for (Node n = node; n != null; n = n.getParentNode().orElse(null)) {
+            if (n.containsData(INDEX_KEY)) {
+                MethodAstIndex index = n.getData(INDEX_KEY);
+                n.removeData(INDEX_KEY);
+                // The index copied to a clone is still valid for its own root
+                if (index.root == n) {
+                    index.valid = false;
+                    unregisterObserver(n, notifying);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the position of the first element greater or equal than a value in a sorted array.
+     *
+     * @param sorted the sorted array
+     * @param value the value
+     * @return the position of the first element greater or equal than the value (the length of the array if all the
+     * elements are lower)
+     */
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The visitor recording the nodes of the index, in the same order of the visitors collecting the nodes of a type
+     * (each node is recorded before its descendants).
+     */
+    private class IndexVisitor extends VoidVisitorAdapter<Void> {
+
+        @Override
+        public void visit(AssertStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(BlockStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(BreakStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ContinueStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(DoStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(EmptyStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ExplicitConstructorInvocationStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ExpressionStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ForEachStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ForStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(IfStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(LabeledStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(LocalClassDeclarationStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(LocalRecordDeclarationStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ReturnStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(SwitchStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(SynchronizedStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ThrowStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(TryStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(UnparsableStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(WhileStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(YieldStmt n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(MethodCallExpr n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+
+        @Override
+        public void visit(ObjectCreationExpr n, Void arg) {
+            int position = enter(n);
+            super.visit(n, arg);
+            exit(position);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The table of the overloads of the methods of a resolved type, used to disambiguate the method invoked by a method
+ * call expression when the symbol solver cannot resolve it. The candidate methods of a call (the methods with the same
+ * name and a compatible number of parameters) are collected once for each name and arity, and the properties of the
+ * types of their parameters compared by the heuristics (the descriptions of the types, their erased names, their type
+ * arguments and their ancestors) are computed only the first time they are needed.
+ * <p>
+ * The table also exposes the precompiled patterns, and the helpers, used to compare the type names.
+ * <p>
+ * The table is safe for concurrent use.
+ */
+public class OverloadTable {
+
+    /* The pattern of the tokens removed from a type name to compare it with another one (type arguments, lists and
+       array brackets). */
+    private static final Pattern ERASED_TOKENS_PATTERN = Pattern.compile("<.*?>|List|\\[\\]|<|>");
+    /* The pattern capturing the content within the first pair of angle brackets of a type name. */
+    private static final Pattern TYPE_ARGUMENT_PATTERN = Pattern.compile("<(.*?)>");
+
+    /* The methods of the type, in the order returned by the symbol solver. */
+    private final List<ResolvedMethodDeclaration> methods;
+    /* The candidate methods, by name and number of arguments of the method call expression. */
+    private final Map<Arity, List<Candidate>> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new table of the overloads of the given methods.
+     *
+     * @param methods the methods of the type (including the inherited ones)
+     */
+    public OverloadTable(List<ResolvedMethodDeclaration> methods) {
+        this.methods = List.copyOf(methods);
+    }
+
+    /**
+     * Get the candidate methods of a method call expression: the methods with the same name and number of parameters,
+     * and the varargs methods accepting the number of arguments of the method call expression.
+     *
+     * @param name the name of the method invoked
+     * @param numberOfArguments the number of arguments of the method call expression
+     * @return the candidate methods, in the order of the methods of the type
+     */
+    public List<Candidate> getCandidates(String name, int numberOfArguments) {
+        return candidates.computeIfAbsent(new Arity(name, numberOfArguments), arity -> {
+            List<Candidate> arityCandidates = new ArrayList<>();
+            for (ResolvedMethodDeclaration m : methods) {
+                // Check if the method name is the same
+                if (m.getName().equals(name)) {
+                    // Check if the number of parameters is the same
+                    if (m.getNumberOfParams() == numberOfArguments) {
+                        arityCandidates.add(new Candidate(m));
+                    } else if (m.getNumberOfParams() > 0) {
+                        // Check if the number of parameters is the same, but the method is a varargs
+                        if (m.getParam(m.getNumberOfParams() - 1).isVariadic() && m.getNumberOfParams() <= numberOfArguments) {
+                            arityCandidates.add(new Candidate(m));
+                        }
+                    }
+                }
+            }
+            return List.copyOf(arityCandidates);
+        });
+    }
+
+    /**
+     * Remove the type arguments, the lists and the array brackets from a type name.
+     *
+     * @param typeName the type name
+     * @return the erased type name
+     */
+    public static String erase(String typeName) {
+        return ERASED_TOKENS_PATTERN.matcher(typeName).replaceAll("");
+    }
+
+    /**
+     * Get the content within the first pair of angle brackets of a type name.
+     *
+     * @param typeName the type name
+     * @return the type arguments of the type name, or null if the type name has no type arguments
+     */
+    public static String getTypeArguments(String typeName) {
+        Matcher matcher = TYPE_ARGUMENT_PATTERN.matcher(typeName);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * A candidate method, with the properties of the types of its parameters (computed when they are first needed).
+     */
+    public static class Candidate {
+
+        /* The candidate method. */
+        private final ResolvedMethodDeclaration method;
+        /* The types of the parameters of the method (null until computed). */
+        private final ParameterType[] parameterTypes;
+
+        private Candidate(ResolvedMethodDeclaration method) {
+            this.method = method;
+            this.parameterTypes = new ParameterType[method.getNumberOfParams()];
+        }
+
+        public ResolvedMethodDeclaration getMethod() {
+            return method;
+        }
+
+        /**
+         * Get the type of the parameter matched with the i-th argument of a method call expression: the i-th parameter,
+         * or the last one (the varargs parameter) if the method has fewer parameters.
+         *
+         * @param i the position of the argument of the method call expression
+         * @return the type of the parameter
+         */
+        public ParameterType getParameterType(int i) {
+            int position = Math.min(i, parameterTypes.length - 1);
+            ParameterType parameterType = parameterTypes[position];
+            if (parameterType == null) {
+                // Computed at most once per thread, the result is the same
+                parameterType = new ParameterType(method.getParam(position).getType());
+                parameterTypes[position] = parameterType;
+            }
+            return parameterType;
+        }
+    }
+
+    /**
+     * The type of a parameter of a candidate method, or of an argument of a method call expression, with the properties
+     * compared by the heuristics. The ancestors of the type are computed when they are first needed.
+     */
+    public static class ParameterType {
+
+        /* The resolved type. */
+        private final ResolvedType type;
+        /* The name of the type (its description). */
+        private final TypeName name;
+        /* The ancestors of the type (null until computed, empty if the type is not a reference type). */
+        private volatile List<TypeName> ancestors;
+
+        public ParameterType(ResolvedType type) {
+            this.type = type;
+            this.name = new TypeName(type.describe());
+        }
+
+        public ResolvedType getType() {
+            return type;
+        }
+
+        public TypeName getName() {
+            return name;
+        }
+
+        /**
+         * Get the names of all the ancestors of the type, computing them only the first time.
+         *
+         * @return the names of the ancestors of the type
+         * @throws com.github.javaparser.resolution.UnsolvedSymbolException if an ancestor cannot be resolved
+         */
+        public List<TypeName> getAncestors() {
+            List<TypeName> typeAncestors = ancestors;
+            if (typeAncestors == null) {
+                typeAncestors = type.isReferenceType()
+                        ? type.asReferenceType().getAllAncestors().stream().map(ResolvedReferenceType::describe).map(TypeName::new).toList()
+                        : List.of();
+                ancestors = typeAncestors;
+            }
+            return typeAncestors;
+        }
+    }
+
+    /**
+     * A type name, with its erased name and its type arguments.
+     *
+     * @param name the type name
+     * @param erased the type name without type arguments, lists and array brackets
+     * @param typeArguments the content within the first pair of angle brackets (null if the type name has no type
+     *                      arguments)
+     */
+    public record TypeName(String name, String erased, String typeArguments) {
+
+        public TypeName(String name) {
+            this(name, erase(name), getTypeArguments(name));
+        }
+    }
+
+    /**
+     * The name of a method and the number of arguments of a method call expression.
+     *
+     * @param name the name of the method
+     * @param numberOfArguments the number of arguments
+     */
+    private record Arity(String name, int numberOfArguments) {}
+}
@@ -0,0 +1,89 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A value kept separately for each thread (like a {@link ThreadLocal}), whose values can be released for all the threads
+ * at once. The values of a {@link ThreadLocal} are only removed by the thread owning them, so the values created by a
+ * pool of workers outlive the object owning the {@link ThreadLocal} (for example, the context of a repository) as long
+ * as the workers are alive, and keep alive the ASTs they reference.
+ * <p>
+ * Once released, the values are not retained anymore: each request creates a new value, discarded by the caller.
+ *
+ * @param <T> the type of the values
+ */
+public class ReleasableThreadLocal<T> {
+
+    /* The factory of the value of a thread. */
+    private final Supplier<T> initialValue;
+    /* The slots holding the values of all the threads. */
+    private final Set<Slot<T>> slots = ConcurrentHashMap.newKeySet();
+    /* The slot holding the value of each thread. */
+    private final ThreadLocal<Slot<T>> threadSlot = ThreadLocal.withInitial(() -> {
+        Slot<T> slot = new Slot<>();
+        slots.add(slot);
+        return slot;
+    });
+    /* True once the values have been released. */
+    private volatile boolean released = false;
+
+    /**
+     * Creates a new thread local value, creating the value of each thread on demand.
+     *
+     * @param initialValue the factory of the value of a thread
+     */
+    public ReleasableThreadLocal(Supplier<T> initialValue) {
+        this.initialValue = initialValue;
+    }
+
+    /**
+     * Get the value of the current thread, creating it the first time.
+     *
+     * @return the value of the current thread
+     */
+    public T get() {
+        if (released) {
+            return initialValue.get();
+        }
+        Slot<T> slot = threadSlot.get();
+        if (slot.value == null) {
+            slot.value = initialValue.get();
+        }
+        return slot.value;
+    }
+
+    /**
+     * Set the value of the current thread.
+     *
+     * @param value the value of the current thread
+     */
+    public void set(T value) {
+        if (!released) {
+            threadSlot.get().value = value;
+        }
+    }
+
+    /**
+     * Release the values of all the threads. The values must not be in use by other threads.
+     */
+    public void release() {
+        released = true;
+        for (Slot<T> slot : slots) {
+            slot.value = null;
+        }
+        slots.clear();
+        threadSlot.remove();
+    }
+
+    /**
+     * The holder of the value of a thread.
+     *
+     * @param <T> the type of the value
+     */
+    private static class Slot<T> {
+        /* The value of the thread (null if not created yet, or released). */
+        private volatile T value;
+    }
+}
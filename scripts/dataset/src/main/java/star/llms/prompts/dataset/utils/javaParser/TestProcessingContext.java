@@ -0,0 +1,350 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.types.ResolvedType;
+import star.llms.prompts.dataset.utils.RepositoryIndex;
+import star.llms.prompts.dataset.utils.javaParser.solvers.OverlayTypeSolver;
+import star.llms.prompts.dataset.utils.javaParser.solvers.SourceFileCache;
+import star.llms.prompts.dataset.utils.javaParser.solvers.ThreadConfinedCombinedTypeSolver;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The context of the processing of the test classes of a repository. The context owns the JavaParser (and its symbol
+ * solver) configured for the repository, the counters used to generate unique names within the test classes, and the
+ * caches shared while processing the test classes.
+ * <p>
+ * The static utilities of {@link JavaParserUtils} and of the test processing classes use the context bound to the
+ * current thread (see {@link #open()}, {@link #call(ScopedTask)} and {@link #run(ScopedAction)}). In this way, several
+ * contexts (for example, one for each repository) can be used side by side in the same JVM, and a single context can
+ * be shared by multiple threads processing different test classes of the same repository.
+ * <p>
+ * A JavaParser cannot be shared by concurrent parses, and the symbol solver writes the data of the AST nodes while
+ * resolving them, so each thread gets its own JavaParser, and the ASTs parsed by a thread (and the types resolved from
+ * them) are never handed to the other threads: the type solver parses the sources of the repository and caches the
+ * resolved types separately for each thread. The state kept for each thread is released when the context is closed
+ * (see {@link #close()}), so that the threads outliving the context (like the workers of a pool shared by several
+ * repositories) do not keep alive the ASTs of the repository.
+ */
+public final class TestProcessingContext implements AutoCloseable {
+
+    /* The context bound to the current thread. */
+    private static final ThreadLocal<TestProcessingContext> currentContext = new ThreadLocal<>();
+
+    /* The path to the root of the repository. */
+    private final Path repoRootPath;
+    /* The classpath of the repository (each element is separated by a ":"). */
+    private final String classpath;
+    /* The type solver of the repository (without the test classes generated during the processing). */
+    private final ThreadConfinedCombinedTypeSolver repoTypeSolver;
+    /* The type solver of the repository, overlaying the test classes generated during the processing. */
+    private final OverlayTypeSolver typeSolver;
+    /* The compilation units registered in the type solver, by path of the generated test class. */
+    private final Map<Path, CompilationUnit> generatedCompilationUnits = new ConcurrentHashMap<>();
+    /* The JavaParser of each thread, configured to resolve the symbols of the repository. */
+    private final ReleasableThreadLocal<JavaParser> javaParser;
+    /* A unique id for placeholder variable names. The counter is kept per thread, since each thread processes a
+       different test class and the names generated must not depend on the processing order. */
+    private final ReleasableThreadLocal<Integer> variableID = new ReleasableThreadLocal<>(() -> 0);
+    /* The cache of the compilation units of the repository, kept per thread. */
+    private final CompilationUnitCache compilationUnitCache;
+    /* The service retrieving the type declarations of the repository and their supertypes. */
+    private final TypeHierarchyService typeHierarchyService;
+    /* The cache of the resolutions of the callable expressions of the repository, kept per thread. */
+    private final CallResolutionCache callResolutionCache = new CallResolutionCache();
+    /* The cache of the types resolved from their fully qualified names, for each thread. */
+    private final ReleasableThreadLocal<Map<String, ResolvedType>> resolvedTypes = new ReleasableThreadLocal<>(HashMap::new);
+
+    /**
+     * Creates a new context for the given repository, setting up the JavaParser to resolve its symbols.
+     *
+     * @param repoRootPath the path to the root of the repository
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     */
+    public TestProcessingContext(Path repoRootPath, String classpath) {
+        this(RepositoryIndex.scan(repoRootPath), classpath);
+    }
+
+    /**
+     * Creates a new context for the repository of the given index, setting up the JavaParser to resolve its symbols
+     * from the source roots listed in the index.
+     *
+     * @param repositoryIndex the index of the repository
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     */
+    public TestProcessingContext(RepositoryIndex repositoryIndex, String classpath) {
+        this(repositoryIndex, classpath, null);
+    }
+
+    /**
+     * Creates a new context for the repository of the given index, setting up the JavaParser to resolve its symbols
+     * from the source roots listed in the index, from a type solver shared with the contexts of other repositories
+     * (like the one of the JDK libraries), and from the given classpath.
+     *
+     * @param repositoryIndex the index of the repository
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     * @param sharedTypeSolver the type solver shared with the contexts of other repositories. Can be null.
+     */
+    public TestProcessingContext(RepositoryIndex repositoryIndex, String classpath, TypeSolver sharedTypeSolver) {
+        this(repositoryIndex, classpath, sharedTypeSolver, CompilationUnitCache.DEFAULT_MAX_MEMORY_MB, 1);
+    }
+
+    /**
+     * Creates a new context for the repository of the given index, setting up the JavaParser to resolve its symbols
+     * from the source roots listed in the index, from a type solver shared with the contexts of other repositories
+     * (like the one of the JDK libraries), and from the given classpath.
+     *
+     * @param repositoryIndex the index of the repository
+     * @param classpath a string containing additional paths to libraries and jars (each reference in the classpath is
+     *                  separated by a ":")
+     * @param sharedTypeSolver the type solver shared with the contexts of other repositories. Can be null.
+     * @param compilationUnitCacheMb the ceiling of the memory retained by the compilation units cached by the context,
+     *                               in megabytes, split evenly between the cache of the compilation units (see
+     *                               {@link CompilationUnitCache}) and the one of the sources parsed by the type solver
+     *                               (see {@link SourceFileCache})
+     * @param threads the number of threads processing the test classes of the repository concurrently (the ceilings of
+     *                the caches of the compilation units are split among them)
+     */
+    public TestProcessingContext(RepositoryIndex repositoryIndex, String classpath, TypeSolver sharedTypeSolver, int compilationUnitCacheMb, int threads) {
+        this.repoRootPath = repositoryIndex.getRepoRootPath();
+        this.classpath = classpath;
+        int sourceFileCacheMb = compilationUnitCacheMb / 2;
+        this.repoTypeSolver = JavaParserUtils.createRepoTypeSolver(repositoryIndex, classpath, sharedTypeSolver, new SourceFileCache(sourceFileCacheMb, threads));
+        this.typeSolver = new OverlayTypeSolver(repoTypeSolver);
+        this.javaParser = new ReleasableThreadLocal<>(() -> JavaParserUtils.createJavaParser(typeSolver));
+        this.compilationUnitCache = new CompilationUnitCache(this::getJavaParser, compilationUnitCacheMb - sourceFileCacheMb, threads);
+        this.typeHierarchyService = new TypeHierarchyService(compilationUnitCache);
+    }
+
+    /**
+     * Get the context bound to the current thread.
+     *
+     * @return the context bound to the current thread
+     * @throws IllegalStateException if no context is bound to the current thread
+     */
+    public static TestProcessingContext current() {
+        TestProcessingContext context = currentContext.get();
+        if (context == null) {
+            throw new IllegalStateException("A test processing context must be opened in the current thread, before calling this method.");
+        }
+        return context;
+    }
+
+    /**
+     * Bind the context to the current thread, until the returned scope is closed. When the scope is closed, the
+     * context previously bound to the current thread (if any) is restored.
+     *
+     * @return the scope of the context within the current thread
+     */
+    public Scope open() {
+        TestProcessingContext previousContext = currentContext.get();
+        currentContext.set(this);
+        return () -> {
+            if (previousContext == null) {
+                currentContext.remove();
+            } else {
+                currentContext.set(previousContext);
+            }
+        };
+    }
+
+    /**
+     * Call the given task with the context bound to the current thread (see {@link #open()}), restoring the context
+     * previously bound to the current thread once the task completes.
+     *
+     * @param task the task to call
+     * @return the result of the task
+     * @param <T> the type of the result of the task
+     * @param <E> the type of the exception thrown by the task
+     * @throws E if the task fails
+     */
+    public <T, E extends Exception> T call(ScopedTask<T, E> task) throws E {
+        Scope scope = open();
+        try {
+            return task.call();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Run the given action with the context bound to the current thread (see {@link #open()}), restoring the context
+     * previously bound to the current thread once the action completes.
+     *
+     * @param action the action to run
+     * @param <E> the type of the exception thrown by the action
+     * @throws E if the action fails
+     */
+    public <E extends Exception> void run(ScopedAction<E> action) throws E {
+        Scope scope = open();
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Register a compilation unit generated during the processing (like a normalized or a split test class), so that
+     * its types can be resolved by the JavaParser of the context without rebuilding the symbol solver. Registering
+     * again the same compilation unit updates the types previously registered for it, while registering a different
+     * compilation unit for the same path replaces the previous one. The compilation unit stays registered until it is
+     * unregistered (see {@link #unregisterGeneratedCompilationUnit(Path)}).
+     *
+     * @param path the path of the generated test class
+     * @param cu the generated compilation unit
+     */
+    public void registerGeneratedCompilationUnit(Path path, CompilationUnit cu) {
+        CompilationUnit previousCu = generatedCompilationUnits.put(path, cu);
+        if (previousCu != null && previousCu != cu && !generatedCompilationUnits.containsValue(previousCu)) {
+            typeSolver.unregister(previousCu);
+        }
+        typeSolver.register(cu);
+    }
+
+    /**
+     * Unregister the compilation unit generated for the given path, once the test classes generated from it have been
+     * processed. The compilation unit is removed from the type solver only if it is not registered for other paths
+     * (the same compilation unit is carried through all the steps of the in-memory pipeline).
+     *
+     * @param path the path of the generated test class
+     */
+    public void unregisterGeneratedCompilationUnit(Path path) {
+        CompilationUnit cu = generatedCompilationUnits.remove(path);
+        if (cu != null && !generatedCompilationUnits.containsValue(cu)) {
+            typeSolver.unregister(cu);
+        }
+    }
+
+    /**
+     * Check if a compilation unit is registered for the given path of a generated test class.
+     *
+     * @param path the path of the generated test class
+     * @return true if a compilation unit is registered for the path, false otherwise
+     */
+    public boolean isGeneratedCompilationUnitRegistered(Path path) {
+        return generatedCompilationUnits.containsKey(path);
+    }
+
+    public Path getRepoRootPath() {
+        return repoRootPath;
+    }
+
+    public String getClasspath() {
+        return classpath;
+    }
+
+    /**
+     * Get the JavaParser of the current thread.
+     *
+     * @return the JavaParser of the current thread
+     */
+    public JavaParser getJavaParser() {
+        return javaParser.get();
+    }
+
+    public CompilationUnitCache getCompilationUnitCache() {
+        return compilationUnitCache;
+    }
+
+    public TypeHierarchyService getTypeHierarchyService() {
+        return typeHierarchyService;
+    }
+
+    public CallResolutionCache getCallResolutionCache() {
+        return callResolutionCache;
+    }
+
+    /**
+     * Get the next unique id for a placeholder variable name and increment the counter of the current thread.
+     *
+     * @return the next unique id for a placeholder variable name
+     */
+    public int nextVariableID() {
+        int id = variableID.get();
+        variableID.set(id + 1);
+        return id;
+    }
+
+    /**
+     * Reset the counter of the placeholder variable names of the current thread. The counter is reset at the
+     * beginning of the processing of each test class, so that the names generated within a test class do not depend on
+     * the test classes processed before it (unlike the single sequence of the names across all the test classes of the
+     * repository, generated when the test classes were processed one at a time).
+     */
+    public void resetVariableID() {
+        variableID.set(0);
+    }
+
+    /**
+     * Get the cached type resolved from the given fully qualified name within the current thread, if present.
+     *
+     * @param fqName the fully qualified name of the type
+     * @return the cached resolved type. An empty optional if the type has not been resolved yet.
+     */
+    public Optional<ResolvedType> getCachedResolvedType(String fqName) {
+        return Optional.ofNullable(resolvedTypes.get().get(fqName));
+    }
+
+    /**
+     * Cache the type resolved from the given fully qualified name within the current thread.
+     *
+     * @param fqName the fully qualified name of the type
+     * @param resolvedType the resolved type
+     */
+    public void cacheResolvedType(String fqName, ResolvedType resolvedType) {
+        resolvedTypes.get().put(fqName, resolvedType);
+    }
+
+    /**
+     * Release the state kept for each thread by the context (the JavaParsers, the caches, and the ASTs parsed by the
+     * type solver), once the processing of the repository is over. The context must not be used anymore by any thread.
+     */
+    @Override
+    public void close() {
+        javaParser.release();
+        variableID.release();
+        resolvedTypes.release();
+        compilationUnitCache.release();
+        callResolutionCache.release();
+        repoTypeSolver.release();
+    }
+
+    /**
+     * The scope of a context bound to a thread. Closing the scope unbinds the context from the thread.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * A task called with the context bound to the current thread (see {@link #call(ScopedTask)}).
+     *
+     * @param <T> the type of the result of the task
+     * @param <E> the type of the exception thrown by the task
+     */
+    @FunctionalInterface
+    public interface ScopedTask<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * An action run with the context bound to the current thread (see {@link #run(ScopedAction)}).
+     *
+     * @param <E> the type of the exception thrown by the action
+     */
+    @FunctionalInterface
+    public interface ScopedAction<E extends Exception> {
+        void run() throws E;
+    }
+}
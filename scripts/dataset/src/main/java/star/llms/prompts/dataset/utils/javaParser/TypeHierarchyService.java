@@ -0,0 +1,200 @@
+package star.llms.prompts.dataset.utils.javaParser;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.data.enums.NamingConvention;
+import star.llms.prompts.dataset.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The service retrieving the type declarations of a repository from their fully qualified names, and the types
+ * extended and implemented (iteratively) by a type declaration. The service memoizes the folders where the types are
+ * searched (the decompiled libraries and the source folder), the file declaring each type, and the fully qualified
+ * names of the types related to each type declaration, so that the file system is explored (and the imports are
+ * matched) only the first time a type is requested. The type declarations are read from the
+ * {@link CompilationUnitCache} of the repository, so they must not be modified.
+ * <p>
+ * The service is safe for concurrent use (the memoized paths and names are shared, while the type declarations are
+ * read from the cache of the current thread). The files created after a type has been requested (for example, the test
+ * classes generated during the processing) are not considered for that type.
+ */
+public class TypeHierarchyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TypeHierarchyService.class);
+
+    /* The cache of the compilation units of the repository. */
+    private final CompilationUnitCache compilationUnitCache;
+    /* The folders where the types are searched, in order of priority, by source folder. */
+    private final Map<Path, List<Path>> candidatePrefixPaths = new ConcurrentHashMap<>();
+    /* The file declaring each type (empty if the type is not declared in the repository), by source folder and type. */
+    private final Map<TypeKey, Optional<Path>> typeFilePaths = new ConcurrentHashMap<>();
+    /* The fully qualified names of the types related to each type declaration, by source folder and type. */
+    private final Map<TypeKey, List<String>> relatedTypeNames = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new service reading the type declarations from the given cache of compilation units.
+     *
+     * @param compilationUnitCache the cache of the compilation units of the repository
+     */
+    public TypeHierarchyService(CompilationUnitCache compilationUnitCache) {
+        this.compilationUnitCache = compilationUnitCache;
+    }
+
+    /**
+     * Retrieve the type declaration from the fully qualified name of the class and the root path of the repository where
+     * the class should be located (source code or decompiled library), or an empty optional if the class cannot be found.
+     *
+     * @param fqn the fully qualified name of the class to retrieve
+     * @param repoSourcePath the root path of the repository where the class should be located
+     * @return the type declaration of the class corresponding to the fully qualified name or an empty optional if the class
+     *        cannot be found
+     */
+    public Optional<TypeDeclaration> findTypeDeclaration(String fqn, Path repoSourcePath) {
+        Optional<Path> classFilePath = typeFilePaths.computeIfAbsent(new TypeKey(repoSourcePath, fqn), key -> {
+            Path fqnPath = FilesUtils.getFQNPath(fqn);
+            for (Path candidatePrefixPath : getCandidatePrefixPaths(repoSourcePath)) {
+                Path candidateFilePath = candidatePrefixPath.resolve(fqnPath);
+                if (Files.exists(candidateFilePath)) {
+                    return Optional.of(candidateFilePath);
+                }
+            }
+            return Optional.empty();
+        });
+        if (classFilePath.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            CompilationUnit cu = compilationUnitCache.get(classFilePath.get());
+            return cu.getPrimaryType().map(primaryType -> primaryType);
+        } catch (IOException e) {
+            logger.error("Error reading file: " + classFilePath.get());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Retrieve the list of related type declarations (extended and implemented classes) of a type declaration,
+     * iteratively. The types are searched with {@link #findTypeDeclaration(String, Path)}.
+     *
+     * @param referenceTypeDeclaration the reference type declaration to analyze
+     * @param repoSourcePath the root path of the repository where the type declaration is located
+     * @return the list of related type declarations (extended and implemented classes) of the reference type
+     * declaration (a new list, that can be modified by the caller)
+     */
+    public List<TypeDeclaration> getRelatedTypeDeclarations(TypeDeclaration<?> referenceTypeDeclaration, Path repoSourcePath) {
+        Optional<String> referenceFqn = referenceTypeDeclaration.getFullyQualifiedName();
+        List<String> relatedFqns = referenceFqn.isEmpty()
+                ? collectRelatedTypeNames(referenceTypeDeclaration, repoSourcePath, new HashSet<>())
+                : relatedTypeNames.computeIfAbsent(new TypeKey(repoSourcePath, referenceFqn.get()), key -> List.copyOf(collectRelatedTypeNames(referenceTypeDeclaration, repoSourcePath, new HashSet<>())));
+        List<TypeDeclaration> relatedTypeDeclarations = new ArrayList<>();
+        for (String relatedFqn : relatedFqns) {
+            findTypeDeclaration(relatedFqn, repoSourcePath).ifPresent(relatedTypeDeclarations::add);
+        }
+        return relatedTypeDeclarations;
+    }
+
+    /**
+     * Collect the fully qualified names of the related types (extended and implemented classes) of a type declaration,
+     * iteratively. Only the types declared in the repository are collected (in depth-first order).
+     *
+     * @param referenceTypeDeclaration the reference type declaration to analyze
+     * @param repoSourcePath the root path of the repository where the type declaration is located
+     * @param visited the fully qualified names of the types already visited
+     * @return the list of fully qualified names of the related types
+     */
+    private List<String> collectRelatedTypeNames(TypeDeclaration<?> referenceTypeDeclaration, Path repoSourcePath, Set<String> visited) {
+        // Define the list of related types to return. Initially empty.
+        List<String> relatedFqns = new ArrayList<>();
+        // Not a class or interface declaration. No extended or implemented types to retrieve. Return an empty list.
+        if (!(referenceTypeDeclaration instanceof ClassOrInterfaceDeclaration classOrInterfaceDeclaration)) {
+            return relatedFqns;
+        }
+        // Define the list of extended and implemented types of the reference type declaration
+        List<ClassOrInterfaceType> extendedAndImplementedTypes = new ArrayList<>();
+        extendedAndImplementedTypes.addAll(classOrInterfaceDeclaration.getExtendedTypes());
+        extendedAndImplementedTypes.addAll(classOrInterfaceDeclaration.getImplementedTypes());
+        // Retrieve the imports and the package of the compilation unit of the reference type declaration
+        CompilationUnit referenceTypeCu = (CompilationUnit) referenceTypeDeclaration.getParentNode().orElse(null);
+        NodeList<ImportDeclaration> referenceTypeImports = referenceTypeCu != null ? referenceTypeCu.getImports() : new NodeList<>();
+        PackageDeclaration referenceTypePackage = referenceTypeCu != null ? referenceTypeCu.getPackageDeclaration().orElse(null) : null;
+        for (ClassOrInterfaceType extendedOrImplementedType : extendedAndImplementedTypes) {
+            String extendedOrImplementedTypeName = extendedOrImplementedType.getNameAsString();
+            // Search the type in the imports first, and then in the package of the reference type declaration
+            String fqn = null;
+            for (ImportDeclaration referenceTypeImport : referenceTypeImports) {
+                String importName = referenceTypeImport.getNameAsString();
+                if (importName.endsWith(extendedOrImplementedTypeName)) {
+                    fqn = importName;
+                    break;
+                }
+            }
+            if (fqn == null && referenceTypePackage != null) {
+                fqn = referenceTypePackage.getNameAsString().concat("." + extendedOrImplementedTypeName);
+            }
+            if (fqn != null && !visited.contains(fqn)) {
+                visited.add(fqn);
+                try {
+                    Optional<TypeDeclaration> relatedTypeDeclaration = findTypeDeclaration(fqn, repoSourcePath);
+                    if (relatedTypeDeclaration.isPresent()) {
+                        relatedFqns.add(fqn);
+                        relatedFqns.addAll(collectRelatedTypeNames(relatedTypeDeclaration.get(), repoSourcePath, visited));
+                    }
+                } catch (Exception e) {
+                    logger.error("Error retrieving related type declaration: " + fqn);
+                }
+            }
+        }
+        return relatedFqns;
+    }
+
+    /**
+     * Get the folders where the types are searched: the decompiled libraries (if the source folder, or one of its
+     * ancestors, contains the libraries folder), followed by the source folder.
+     *
+     * @param repoSourcePath the root path of the repository where the types should be located
+     * @return the folders where the types are searched, in order of priority
+     */
+    private List<Path> getCandidatePrefixPaths(Path repoSourcePath) {
+        return candidatePrefixPaths.computeIfAbsent(repoSourcePath, key -> {
+            List<Path> prefixPaths = new ArrayList<>();
+            prefixPaths.add(repoSourcePath);
+            // Search the libraries folder in the source folder and in its ancestors
+            Path referencePath = repoSourcePath;
+            boolean hasLibFolder = FilesUtils.hasChildDirectory(referencePath, NamingConvention.LIB_FOLDER.getConventionName());
+            while (!hasLibFolder && referencePath.getParent() != null) {
+                referencePath = referencePath.getParent();
+                hasLibFolder = FilesUtils.hasChildDirectory(referencePath, NamingConvention.LIB_FOLDER.getConventionName());
+            }
+            if (hasLibFolder) {
+                prefixPaths = FilesUtils.listDirectories(referencePath.resolve(NamingConvention.DECOMPILED_LIB_FOLDER.getConventionName()));
+            }
+            prefixPaths.add(repoSourcePath);
+            return List.copyOf(prefixPaths);
+        });
+    }
+
+    /**
+     * The key of a type within a source folder.
+     *
+     * @param repoSourcePath the root path of the repository where the type should be located
+     * @param fqn the fully qualified name of the type
+     */
+    private record TypeKey(Path repoSourcePath, String fqn) {}
+}
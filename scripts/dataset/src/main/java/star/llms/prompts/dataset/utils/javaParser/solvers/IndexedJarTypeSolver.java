@@ -0,0 +1,241 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A type solver of a jar, backed by a persistent index of the classes declared in the jar. The index is stored on disk
+ * (in the folder {@link #INDEX_FOLDER_PROPERTY}) and keyed by the path, the size, and the last modified time of the
+ * jar, so that it is built only the first time the jar is used (or when the jar changes).
+ * <p>
+ * When the index is available, the jar is not opened until one of its classes is requested: the {@link JarTypeSolver}
+ * of the jar is created lazily, while the requests of the classes the jar does not declare (most of the requests
+ * reaching a jar in a combined type solver) are answered by the index alone. Therefore, the cost of the creation of a
+ * type solver no longer scales with the number of jars of the classpath, but with the number of jars actually used.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedJarTypeSolver.class);
+    /* The system property defining the folder of the indexes of the jars. */
+    public static final String INDEX_FOLDER_PROPERTY = "star.jar-index-folder";
+    /* The default folder of the indexes of the jars (if the system property is not defined). */
+    private static final Path DEFAULT_INDEX_FOLDER = Path.of(System.getProperty("user.home"), ".cache", "star", "jar-index");
+    /* The extension of the index files. */
+    private static final String INDEX_EXTENSION = ".idx";
+
+    /* The path to the jar. */
+    private final Path jarPath;
+    /* The names of the classes declared in the jar (in the format of JarTypeSolver#getKnownClasses). */
+    private final Set<String> knownClasses;
+    /* The type solver of the jar (null until one of the classes of the jar is requested). */
+    private volatile JarTypeSolver jarTypeSolver;
+    /* The parent type solver (if any). */
+    private TypeSolver parent;
+
+    private IndexedJarTypeSolver(Path jarPath, Set<String> knownClasses, JarTypeSolver jarTypeSolver) {
+        this.jarPath = jarPath;
+        this.knownClasses = knownClasses;
+        this.jarTypeSolver = jarTypeSolver;
+        if (jarTypeSolver != null) {
+            jarTypeSolver.setParent(this);
+        }
+    }
+
+    /**
+     * Creates the type solver of a jar. If the index of the jar is available (and up-to-date) the jar is not opened,
+     * otherwise the jar is indexed and the index is stored for the next executions.
+     *
+     * @param jarPath the path to the jar
+     * @return the type solver of the jar
+     * @throws IOException if an error occurs while reading the jar
+     */
+    public static IndexedJarTypeSolver open(Path jarPath) throws IOException {
+        Path absoluteJarPath = jarPath.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(absoluteJarPath, BasicFileAttributes.class);
+        String indexKey = absoluteJarPath + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        Path indexPath = getIndexFolder().resolve(hash(indexKey) + INDEX_EXTENSION);
+        // Load the index, if available
+        Set<String> knownClasses = readIndex(indexPath, indexKey);
+        if (knownClasses != null) {
+            return new IndexedJarTypeSolver(absoluteJarPath, knownClasses, null);
+        }
+        // Index the jar (the type solver of the jar is kept, since the jar has been opened anyway)
+        JarTypeSolver jarTypeSolver = new JarTypeSolver(absoluteJarPath);
+        knownClasses = Collections.unmodifiableSet(new HashSet<>(jarTypeSolver.getKnownClasses()));
+        writeIndex(indexPath, indexKey, knownClasses);
+        return new IndexedJarTypeSolver(absoluteJarPath, knownClasses, jarTypeSolver);
+    }
+
+    /**
+     * Get the folder of the indexes of the jars, defined by the system property {@link #INDEX_FOLDER_PROPERTY} (by
+     * default, {@code ~/.cache/star/jar-index}).
+     *
+     * @return the folder of the indexes
+     */
+    public static Path getIndexFolder() {
+        String indexFolder = System.getProperty(INDEX_FOLDER_PROPERTY);
+        return indexFolder == null || indexFolder.isBlank() ? DEFAULT_INDEX_FOLDER : Path.of(indexFolder);
+    }
+
+    /**
+     * Read the index of a jar. The first line of the index is the key of the jar it was built for, followed by the
+     * names of the classes declared in the jar (one for each line).
+     *
+     * @param indexPath the path to the index file
+     * @param indexKey the key of the jar (path, size and last modified time)
+     * @return the names of the classes declared in the jar, or null if the index is not available or outdated
+     */
+    private static Set<String> readIndex(Path indexPath, String indexKey) {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+            if (!indexKey.equals(reader.readLine())) {
+                return null;
+            }
+            Set<String> knownClasses = new HashSet<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                knownClasses.add(line);
+            }
+            return Collections.unmodifiableSet(knownClasses);
+        } catch (IOException e) {
+            logger.warn("Unable to read the jar index {}, rebuilding it.", indexPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the index of a jar. The index is written to a temporary file first, and then moved to its final path, so
+     * that concurrent executions never read a partial index. The failures are logged and ignored, since the index is
+     * only an optimization.
+     *
+     * @param indexPath the path to the index file
+     * @param indexKey the key of the jar (path, size and last modified time)
+     * @param knownClasses the names of the classes declared in the jar
+     */
+    private static void writeIndex(Path indexPath, String indexKey, Set<String> knownClasses) {
+        Path tmpIndexPath = null;
+        try {
+            Files.createDirectories(indexPath.getParent());
+            tmpIndexPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+            List<String> sortedKnownClasses = new ArrayList<>(knownClasses);
+            Collections.sort(sortedKnownClasses);
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpIndexPath, StandardCharsets.UTF_8)) {
+                writer.write(indexKey);
+                writer.newLine();
+                for (String knownClass : sortedKnownClasses) {
+                    writer.write(knownClass);
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(tmpIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write the jar index {}.", indexPath, e);
+            if (tmpIndexPath != null) {
+                try {
+                    Files.deleteIfExists(tmpIndexPath);
+                } catch (IOException ignored) {
+                    // The temporary file is left behind
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the SHA-256 hash of the key of a jar, used as the name of its index file.
+     *
+     * @param indexKey the key of the jar
+     * @return the hexadecimal hash of the key
+     */
+    private static String hash(String indexKey) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(indexKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Get the type solver of the jar, creating it (and opening the jar) the first time.
+     *
+     * @return the type solver of the jar
+     * @throws Error if an error occurs while reading the jar
+     */
+    private JarTypeSolver getJarTypeSolver() {
+        JarTypeSolver solver = jarTypeSolver;
+        if (solver == null) {
+            synchronized (this) {
+                solver = jarTypeSolver;
+                if (solver == null) {
+                    try {
+                        solver = new JarTypeSolver(jarPath);
+                    } catch (IOException e) {
+                        throw new Error("Unable to resolve jar " + jarPath, e);
+                    }
+                    // The types of the jar are resolved within the hierarchy of this type solver
+                    solver.setParent(this);
+                    jarTypeSolver = solver;
+                }
+            }
+        }
+        return solver;
+    }
+
+    public Set<String> getKnownClasses() {
+        return knownClasses;
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        // The classes not declared in the jar are answered by the index, without opening the jar
+        if (!knownClasses.contains(name)) {
+            return SymbolReference.unsolved();
+        }
+        return getJarTypeSolver().tryToSolveType(name);
+    }
+}
@@ -0,0 +1,110 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A type solver that overlays the compilation units generated in memory (like the normalized and split test classes)
+ * on top of a base type solver (resolving the types of the repository and of its libraries). The types declared in the
+ * registered compilation units are resolved directly from their AST, while all the other types are delegated to the
+ * base type solver. In this way, the generated test classes can be resolved without rebuilding the base type solver
+ * (and losing its caches) every time a new test class is generated.
+ * <p>
+ * The type solver is safe for concurrent use: the compilation units can be registered while other threads resolve
+ * types. A registered compilation unit is resolved by the thread that generated it, or by the threads of the following
+ * phases of the generation (once the thread that generated it has completed), so its AST is never accessed by
+ * multiple threads at the same time.
+ */
+public final class OverlayTypeSolver implements TypeSolver {
+
+    /* The base type solver, resolving all the types not declared in the registered compilation units. */
+    private final TypeSolver baseTypeSolver;
+    /* The parent type solver (if any). */
+    private TypeSolver parent;
+    /* The type declarations of the registered compilation units, indexed by their fully qualified name. */
+    private final Map<String, TypeDeclaration<?>> typeDeclarations = new ConcurrentHashMap<>();
+    /* The fully qualified names of the types registered for each compilation unit (compared by identity). */
+    private final Map<CompilationUnit, List<String>> registeredNames = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Creates a new overlay type solver on top of the given base type solver. The overlay type solver becomes the
+     * parent of the base type solver, so that the types resolved through the root of the base type solver consider the
+     * registered compilation units as well.
+     *
+     * @param baseTypeSolver the base type solver
+     */
+    public OverlayTypeSolver(TypeSolver baseTypeSolver) {
+        this.baseTypeSolver = baseTypeSolver;
+        baseTypeSolver.setParent(this);
+    }
+
+    /**
+     * Register (or update) the types declared in the given compilation unit. If the compilation unit has already been
+     * registered, the types previously registered for it are replaced with the current ones (for example, after the
+     * primary type has been renamed).
+     *
+     * @param cu the compilation unit to register
+     */
+    public void register(CompilationUnit cu) {
+        List<String> names = new ArrayList<>();
+        for (TypeDeclaration<?> typeDeclaration : cu.findAll(TypeDeclaration.class)) {
+            typeDeclaration.getFullyQualifiedName().ifPresent(fqn -> {
+                typeDeclarations.put(fqn, typeDeclaration);
+                names.add(fqn);
+            });
+        }
+        List<String> previousNames = registeredNames.put(cu, names);
+        if (previousNames != null) {
+            for (String previousName : previousNames) {
+                if (!names.contains(previousName)) {
+                    typeDeclarations.remove(previousName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the types declared in the given compilation unit from the overlay.
+     *
+     * @param cu the compilation unit to unregister
+     */
+    public void unregister(CompilationUnit cu) {
+        List<String> names = registeredNames.remove(cu);
+        if (names != null) {
+            names.forEach(typeDeclarations::remove);
+        }
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        TypeDeclaration<?> typeDeclaration = typeDeclarations.get(name);
+        if (typeDeclaration != null) {
+            return SymbolReference.solved(JavaParserFacade.get(getRoot()).getTypeDeclaration(typeDeclaration));
+        }
+        return baseTypeSolver.tryToSolveType(name);
+    }
+}
@@ -0,0 +1,56 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+
+import java.util.Objects;
+
+/**
+ * A type solver delegating to a type solver shared by multiple type solvers hierarchies (for example, the type solver
+ * of the JDK libraries, shared by the type solvers of multiple repositories). A type solver can have a single parent,
+ * so the shared type solver cannot be added directly to multiple hierarchies: each hierarchy adds its own instance of
+ * this class instead, delegating to the shared type solver without becoming its parent.
+ * <p>
+ * The types resolved by the shared type solver are resolved within its own hierarchy. Therefore, the shared type solver
+ * must be self-contained (the types it declares must only refer to types it declares as well, like the types of the
+ * JDK libraries) and safe for concurrent use.
+ */
+public class SharedTypeSolver implements TypeSolver {
+
+    /* The shared type solver. */
+    private final TypeSolver sharedTypeSolver;
+    /* The parent type solver (if any). */
+    private TypeSolver parent;
+
+    /**
+     * Creates a new type solver delegating to the given shared type solver.
+     *
+     * @param sharedTypeSolver the shared type solver
+     */
+    public SharedTypeSolver(TypeSolver sharedTypeSolver) {
+        this.sharedTypeSolver = sharedTypeSolver;
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        return sharedTypeSolver.tryToSolveType(name);
+    }
+}
@@ -0,0 +1,110 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import star.llms.prompts.dataset.utils.javaParser.CompilationUnitCache;
+import star.llms.prompts.dataset.utils.javaParser.ReleasableThreadLocal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A bounded cache of the compilation units parsed by the {@link SourceRootsTypeSolver}s of a repository (the source
+ * roots of the repository and of its source libraries), keyed by the path of the java file. As in the
+ * {@link CompilationUnitCache}, the cache is bounded by an estimate of the memory retained by the compilation units
+ * (proportional to the size of the source files), and the ceiling is split among the threads using the cache. The
+ * compilation units are also held through soft references, so that they are released under memory pressure.
+ * <p>
+ * Each thread has its own cache, filled by the JavaParser of the thread (without symbol resolution, and accepting the
+ * latest language features, as in JavaParserTypeSolver): the symbol solver writes the data of the AST nodes while
+ * resolving the types, so the ASTs cannot be shared by the threads. A compilation unit evicted from the cache is parsed
+ * again by the following lookup of one of its types.
+ */
+public class SourceFileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceFileCache.class);
+
+    /* The default ceiling of the memory retained by the cached compilation units of all the threads, in megabytes. */
+    public static final int DEFAULT_MAX_MEMORY_MB = CompilationUnitCache.DEFAULT_MAX_MEMORY_MB / 2;
+
+    /* The configuration of the parser of the java files. */
+    private final ParserConfiguration parserConfiguration = new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE);
+    /* The JavaParser of each thread (a JavaParser instance cannot be shared by concurrent parses). */
+    private final ReleasableThreadLocal<JavaParser> javaParser = new ReleasableThreadLocal<>(() -> new JavaParser(parserConfiguration));
+    /* The parsed files of each thread, by path of the file. */
+    private final ReleasableThreadLocal<Cache<Path, ParsedFile>> parsedFiles;
+
+    /**
+     * Creates a new cache of the compilation units parsed by the type solvers, with the default ceiling, for a single
+     * thread.
+     */
+    public SourceFileCache() {
+        this(DEFAULT_MAX_MEMORY_MB, 1);
+    }
+
+    /**
+     * Creates a new cache of the compilation units parsed by the type solvers.
+     *
+     * @param maxMemoryMb the ceiling of the (estimated) memory retained by the cached compilation units of all the
+     *                    threads, in megabytes. The cache is disabled if the ceiling is 0.
+     * @param threads the number of threads using the cache concurrently, among which the ceiling is split
+     * @throws IllegalArgumentException if the number of threads is not greater than 0
+     */
+    public SourceFileCache(int maxMemoryMb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be greater than 0. Found: " + threads);
+        }
+        // The weights are expressed in kilobytes, to fit large ceilings in the int weights of the cache
+        long maxThreadWeight = (long) maxMemoryMb * 1024 / threads;
+        this.parsedFiles = new ReleasableThreadLocal<>(() -> CacheBuilder.newBuilder()
+                .maximumWeight(maxThreadWeight)
+                .weigher((Path path, ParsedFile parsed) -> (int) Math.min(Integer.MAX_VALUE, Math.max(1, parsed.size() * CompilationUnitCache.ESTIMATED_HEAP_BYTES_PER_SOURCE_BYTE / 1024)))
+                .softValues()
+                .build());
+    }
+
+    /**
+     * Get the compilation unit of a java file from the cache of the current thread, parsing the file only if it is not
+     * cached.
+     *
+     * @param javaFilePath the path to the java file
+     * @return the compilation unit of the java file, or empty if the file cannot be read or parsed
+     */
+    Optional<CompilationUnit> parse(Path javaFilePath) {
+        Cache<Path, ParsedFile> threadParsedFiles = parsedFiles.get();
+        ParsedFile parsed = threadParsedFiles.getIfPresent(javaFilePath);
+        if (parsed == null) {
+            try {
+                parsed = new ParsedFile(javaParser.get().parse(javaFilePath).getResult(), Files.size(javaFilePath));
+            } catch (IOException e) {
+                logger.warn("Unable to read the file {}.", javaFilePath, e);
+                parsed = new ParsedFile(Optional.empty(), 0);
+            }
+            threadParsedFiles.put(javaFilePath, parsed);
+        }
+        return parsed.compilationUnit();
+    }
+
+    /**
+     * Release the parsers and the compilation units kept by all the threads, once the cache is not used anymore.
+     */
+    public void release() {
+        javaParser.release();
+        parsedFiles.release();
+    }
+
+    /**
+     * A parsed java file.
+     *
+     * @param compilationUnit the compilation unit of the file (empty if the file cannot be parsed)
+     * @param size the size of the file (in bytes)
+     */
+    private record ParsedFile(Optional<CompilationUnit> compilationUnit, long size) {}
+}
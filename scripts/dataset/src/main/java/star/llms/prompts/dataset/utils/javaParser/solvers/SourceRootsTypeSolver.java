@@ -0,0 +1,164 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.Navigator;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A type solver resolving the types declared in the java files of multiple source roots, replacing a
+ * {@code JavaParserTypeSolver} for each source root. The source roots of a repository overlap (the root of the
+ * repository contains all the other ones, and the same source root can be matched by multiple patterns), so the
+ * {@code JavaParserTypeSolver}s would probe the file system for each lookup, and parse (and keep in memory) the same
+ * files multiple times, once for each source root containing them.
+ * <p>
+ * This type solver indexes the java files by source root and package once, when it is created, and resolves the types
+ * with in-memory lookups, following the same strategy (and the same priority among the source roots) of a sequence of
+ * {@code JavaParserTypeSolver}s: for each source root, the file named after the type is searched first, followed by the
+ * other files of the same package. Each file is parsed by each thread once for all the source roots containing it, and
+ * the compilation units are kept in a bounded cache (see {@link SourceFileCache}), so a file is parsed again only after
+ * it has been evicted.
+ * <p>
+ * The type solver is safe for concurrent use. The index of the source roots is shared, while each thread parses the
+ * java files on its own: the symbol solver writes the data of the AST nodes while resolving the types, so the ASTs (and
+ * the types backed by them) cannot be shared by the threads.
+ */
+public class SourceRootsTypeSolver implements TypeSolver {
+
+    /* The java files of each source root (in order of priority), by package (relative path of the folder, dotted). */
+    private final List<Map<String, List<Path>>> packagesBySourceRoot = new ArrayList<>();
+    /* The cache of the compilation units of the java files parsed by each thread (possibly shared with other type
+       solvers of the same repository). */
+    private final SourceFileCache sourceFileCache;
+    /* The parent type solver (if any). */
+    private TypeSolver parent;
+
+    /**
+     * Creates a new type solver for the given source roots, indexing the given java files. The duplicated source roots
+     * are considered only once, and the java files not contained in any source root are ignored.
+     *
+     * @param sourceRootPaths the source roots, in order of priority
+     * @param javaFilePaths the java files of the source roots
+     */
+    public SourceRootsTypeSolver(List<Path> sourceRootPaths, Collection<Path> javaFilePaths) {
+        this(sourceRootPaths, javaFilePaths, new SourceFileCache());
+    }
+
+    /**
+     * Creates a new type solver for the given source roots, indexing the given java files, and caching the parsed
+     * compilation units in the given cache. The duplicated source roots are considered only once, and the java files
+     * not contained in any source root are ignored.
+     *
+     * @param sourceRootPaths the source roots, in order of priority
+     * @param javaFilePaths the java files of the source roots
+     * @param sourceFileCache the cache of the parsed compilation units (can be shared by the type solvers of the same
+     *                        repository, so that they are bounded by a single ceiling)
+     */
+    public SourceRootsTypeSolver(List<Path> sourceRootPaths, Collection<Path> javaFilePaths, SourceFileCache sourceFileCache) {
+        this.sourceFileCache = sourceFileCache;
+        Map<Path, Map<String, List<Path>>> packagesBySourceRootPath = new LinkedHashMap<>();
+        for (Path sourceRootPath : new LinkedHashSet<>(sourceRootPaths)) {
+            packagesBySourceRootPath.put(sourceRootPath, new HashMap<>());
+        }
+        // Assign each java file to all the source roots containing it (in the package of its relative folder)
+        for (Path javaFilePath : new LinkedHashSet<>(javaFilePaths)) {
+            Path packagePath = javaFilePath.getParent();
+            for (Path folder = packagePath; folder != null; folder = folder.getParent()) {
+                Map<String, List<Path>> packages = packagesBySourceRootPath.get(folder);
+                if (packages != null) {
+                    String packageName = folder.relativize(packagePath).toString().replace(File.separatorChar, '.');
+                    packages.computeIfAbsent(packageName, k -> new ArrayList<>()).add(javaFilePath);
+                }
+            }
+        }
+        packagesBySourceRoot.addAll(packagesBySourceRootPath.values());
+    }
+
+    /**
+     * Search a type in the java files of a package, either in the file named after the type only, or in all the other
+     * files of the package.
+     *
+     * @param packageFiles the java files of the package
+     * @param typeName the name of the type, relative to the compilation unit (including the enclosing types)
+     * @param fileName the name of the file named after the type
+     * @param namedFile true to search the file named after the type only, false to search all the other files
+     * @return the type declaration, if found
+     */
+    private Optional<TypeDeclaration<?>> findType(List<Path> packageFiles, String typeName, String fileName, boolean namedFile) {
+        for (Path javaFilePath : packageFiles) {
+            if (javaFilePath.getFileName().toString().equals(fileName) != namedFile) {
+                continue;
+            }
+            Optional<CompilationUnit> cu = sourceFileCache.parse(javaFilePath);
+            if (cu.isPresent()) {
+                Optional<TypeDeclaration<?>> typeDeclaration = Navigator.findType(cu.get(), typeName);
+                if (typeDeclaration.isPresent()) {
+                    return typeDeclaration;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Release the parsers and the compilation units kept by all the threads, once the type solver is not used anymore.
+     */
+    public void release() {
+        sourceFileCache.release();
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        String[] nameElements = name.split("\\.");
+        for (Map<String, List<Path>> packages : packagesBySourceRoot) {
+            // The name is split into the package, the file (named after the top level type), and the nested types
+            for (int i = nameElements.length; i > 0; i--) {
+                List<Path> packageFiles = packages.get(String.join(".", List.of(nameElements).subList(0, i - 1)));
+                if (packageFiles == null) {
+                    continue;
+                }
+                String fileName = nameElements[i - 1] + ".java";
+                String typeName = String.join(".", List.of(nameElements).subList(i - 1, nameElements.length));
+                // Search the file named after the type first, and then the other files of the package
+                Optional<TypeDeclaration<?>> typeDeclaration = findType(packageFiles, typeName, fileName, true)
+                        .or(() -> findType(packageFiles, typeName, fileName, false));
+                if (typeDeclaration.isPresent()) {
+                    return SymbolReference.solved(JavaParserFacade.get(this).getTypeDeclaration(typeDeclaration.get()));
+                }
+            }
+        }
+        return SymbolReference.unsolved();
+    }
+}
@@ -0,0 +1,81 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.cache.CacheStats;
+import star.llms.prompts.dataset.utils.javaParser.ReleasableThreadLocal;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A cache of a type solver keeping a separate cache for each thread. The types resolved from the java sources (like the
+ * ones of the repository) are backed by the AST of their compilation units, and the symbol solver writes the data of
+ * the AST nodes while resolving them: an AST is not safe for concurrent use, so the types resolved by a thread must not
+ * be handed to the other threads through a shared cache.
+ * <p>
+ * All the operations of the cache only involve the cache of the current thread, except {@link #release()}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ThreadConfinedCache<K, V> implements Cache<K, V> {
+
+    /* The cache of each thread. */
+    private final ReleasableThreadLocal<Cache<K, V>> threadCaches;
+
+    /**
+     * Creates a new cache, creating the cache of each thread on demand.
+     *
+     * @param cacheFactory the factory of the cache of a thread
+     */
+    public ThreadConfinedCache(Supplier<Cache<K, V>> cacheFactory) {
+        this.threadCaches = new ReleasableThreadLocal<>(cacheFactory);
+    }
+
+    /**
+     * Release the caches of all the threads, once the cache is not used anymore.
+     */
+    public void release() {
+        threadCaches.release();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        threadCaches.get().put(key, value);
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        return threadCaches.get().get(key);
+    }
+
+    @Override
+    public void remove(K key) {
+        threadCaches.get().remove(key);
+    }
+
+    @Override
+    public void removeAll() {
+        threadCaches.get().removeAll();
+    }
+
+    @Override
+    public boolean contains(K key) {
+        return threadCaches.get().contains(key);
+    }
+
+    @Override
+    public long size() {
+        return threadCaches.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return threadCaches.get().isEmpty();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return threadCaches.get().stats();
+    }
+}
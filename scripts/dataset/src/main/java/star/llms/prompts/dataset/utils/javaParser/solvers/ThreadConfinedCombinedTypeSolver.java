@@ -0,0 +1,55 @@
+package star.llms.prompts.dataset.utils.javaParser.solvers;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.cache.GuavaCache;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A combined type solver caching the resolved types separately for each thread (since the types resolved from the java
+ * sources are backed by ASTs that cannot be shared by the threads, see {@link ThreadConfinedCache}). The state kept
+ * for each thread by the type solver, and by the {@link SourceRootsTypeSolver}s added to it, can be released at once
+ * for all the threads (see {@link #release()}), so that the threads of a pool outliving the type solver do not keep
+ * alive the ASTs parsed by it.
+ */
+public final class ThreadConfinedCombinedTypeSolver extends CombinedTypeSolver {
+
+    /* The cache of the resolved types of each thread. */
+    private final ThreadConfinedCache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> typeCache;
+    /* The type solvers added that keep a state for each thread. */
+    private final List<SourceRootsTypeSolver> sourceRootsTypeSolvers = new ArrayList<>();
+
+    /**
+     * Creates an empty combined type solver.
+     */
+    public ThreadConfinedCombinedTypeSolver() {
+        this(new ThreadConfinedCache<>(() -> new GuavaCache<>(CacheBuilder.newBuilder().softValues().build())));
+    }
+
+    private ThreadConfinedCombinedTypeSolver(ThreadConfinedCache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> typeCache) {
+        super(ExceptionHandlers.IGNORE_NONE, new ArrayList<>(), typeCache);
+        this.typeCache = typeCache;
+    }
+
+    @Override
+    public void add(TypeSolver typeSolver, boolean resetCache) {
+        super.add(typeSolver, resetCache);
+        if (typeSolver instanceof SourceRootsTypeSolver sourceRootsTypeSolver) {
+            sourceRootsTypeSolvers.add(sourceRootsTypeSolver);
+        }
+    }
+
+    /**
+     * Release the state kept for each thread by the type solver and by the type solvers added to it, once the type
+     * solver is not used anymore.
+     */
+    public void release() {
+        typeCache.release();
+        sourceRootsTypeSolvers.forEach(SourceRootsTypeSolver::release);
+    }
+}